@@ -0,0 +1,216 @@
+package bench.rice;
+
+import main.rice.BoardPool;
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.pieces.AChessPiece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH microbenchmarks for the hot paths of ChessBoard: construction (new, copied or
+ * pooled), getPiece, accepted and rejected moves, each piece's validateMove, and
+ * toString.
+ *
+ * <p>Every benchmark returns its result, so JMH consumes it and the JIT cannot discard
+ * the work. Each thread owns its own board (see BoardState), so running with several
+ * threads measures contention on shared state such as allocation and GC, not on the
+ * board. Run the suite through run.sh, which repeats it under several collectors and
+ * thread counts; the storage engine can be chosen by passing
+ * -jvmArgsAppend -Dmain.rice.storage=... to JMH.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms256m", "-Xmx256m"})
+public class BoardBenchmark {
+
+    /**
+     * Per-thread benchmark state.
+     */
+    @State(Scope.Thread)
+    public static class BoardState {
+
+        /**
+         * The number of precomputed coordinates; a power of two.
+         */
+        static final int COORDS = 1024;
+
+        /**
+         * A board in the initial position.
+         */
+        ChessBoard board;
+
+        /**
+         * A pool for the boards of boardPool.
+         */
+        BoardPool pool;
+
+        /**
+         * Random on-board coordinates.
+         */
+        final Coordinate[] coords = new Coordinate[COORDS];
+
+        /**
+         * A white Rook from the board.
+         */
+        AChessPiece rook;
+
+        /**
+         * A white Knight from the board.
+         */
+        AChessPiece knight;
+
+        /**
+         * A white Bishop from the board.
+         */
+        AChessPiece bishop;
+
+        /**
+         * The index of the next coordinate to use.
+         */
+        int next;
+
+        /**
+         * True if the Knight of moveAccepted is on its home square.
+         */
+        boolean knightHome;
+
+        /**
+         * Sets up the board and the random coordinates, seeded by the thread's index so
+         * that every run sees the same coordinates.
+         *
+         * @param thread the thread this state belongs to
+         */
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams thread) {
+            Random random = new Random(thread.getThreadIndex());
+            for (int i = 0; i < COORDS; i++) {
+                this.coords[i] = Coordinate.of(random.nextInt(8), random.nextInt(8));
+            }
+            this.board = new ChessBoard();
+            this.pool = new BoardPool(1);
+            this.rook = this.board.getPiece(Coordinate.of(7, 0));
+            this.knight = this.board.getPiece(Coordinate.of(7, 6));
+            this.bishop = this.board.getPiece(Coordinate.of(7, 2));
+            this.knightHome = true;
+        }
+
+        /**
+         * @return the next random coordinate
+         */
+        Coordinate nextCoord() {
+            return this.coords[this.next++ & (COORDS - 1)];
+        }
+    }
+
+    /**
+     * @return a new board in the initial position
+     */
+    @Benchmark
+    public ChessBoard newChessBoard() {
+        return new ChessBoard();
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return a copy of the thread's board
+     */
+    @Benchmark
+    public ChessBoard copy(BoardState state) {
+        return state.board.copy();
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return a board taken from the thread's pool and handed straight back
+     */
+    @Benchmark
+    public ChessBoard boardPool(BoardState state) {
+        ChessBoard board = state.pool.acquire();
+        state.pool.release(board);
+        return board;
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return the piece on a random square, or null
+     */
+    @Benchmark
+    public AChessPiece getPiece(BoardState state) {
+        return state.board.getPiece(state.nextCoord());
+    }
+
+    /**
+     * Shuffles the Queen-side Knight out and back, one move per call.
+     *
+     * @param state the calling thread's state
+     * @return true, as the move is always accepted
+     */
+    @Benchmark
+    public boolean moveAccepted(BoardState state) {
+        boolean out = state.knightHome;
+        state.knightHome = !out;
+        return state.board.move(Coordinate.of(out ? 7 : 5, out ? 1 : 2),
+            Coordinate.of(out ? 5 : 7, out ? 2 : 1));
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return false, as the Rook's path is blocked
+     */
+    @Benchmark
+    public boolean moveRejected(BoardState state) {
+        return state.board.move(Coordinate.of(7, 0), Coordinate.of(7, 2));
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return the Rook's path to a random square, or null
+     */
+    @Benchmark
+    public Coordinate[] validateMoveRook(BoardState state) {
+        return state.rook.validateMove(state.nextCoord());
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return the Knight's path to a random square, or null
+     */
+    @Benchmark
+    public Coordinate[] validateMoveKnight(BoardState state) {
+        return state.knight.validateMove(state.nextCoord());
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return the Bishop's path to a random square, or null
+     */
+    @Benchmark
+    public Coordinate[] validateMoveBishop(BoardState state) {
+        return state.bishop.validateMove(state.nextCoord());
+    }
+
+    /**
+     * @param state the calling thread's state
+     * @return the string representation of the thread's board
+     */
+    @Benchmark
+    public String boardToString(BoardState state) {
+        return state.board.toString();
+    }
+}
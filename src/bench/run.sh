@@ -0,0 +1,27 @@
+#!/bin/sh
+# Compiles the project with the vendored JMH jars in bench/jars and runs the benchmarks
+# in bench/rice under several garbage collectors and thread counts, printing one result
+# table per configuration. THREADS sets the thread counts (default "1 2"), and extra
+# arguments are passed on to JMH, e.g.:
+#   THREADS="1 4" src/bench/run.sh -wi 2 -i 3 -f 1 'BoardBenchmark.move.*'
+set -e
+cd "$(dirname "$0")/.."
+OUT=$(mktemp -d)
+CP=$(echo bench/jars/*.jar | tr ' ' ':')
+javac --release 11 -cp "$CP" -processorpath "$CP" -d "$OUT" \
+    $(find main/rice bench/rice -name '*.java' ! -name Main.java)
+for GC in -XX:+UseSerialGC -XX:+UseParallelGC -XX:+UseG1GC; do
+    for T in ${THREADS:-1 2}; do
+        echo "## $GC, $T thread(s)"
+        if ! java -cp "$OUT:$CP" org.openjdk.jmh.Main -t "$T" -jvmArgsAppend "$GC" \
+            -rf text -rff "$OUT/result.txt" "$@" > "$OUT/jmh.log" 2>&1; then
+            cat "$OUT/jmh.log"
+            exit 1
+        fi
+        grep -m 5 -E '^# (JMH version|VM version|VM options|Warmup|Measurement):' \
+            "$OUT/jmh.log"
+        cat "$OUT/result.txt"
+        echo
+    done
+done
+rm -rf "$OUT"
@@ -0,0 +1,217 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+
+/**
+ * Incrementally maintained attack maps for a standard 8x8 ChessBoard. A piece attacks a
+ * square if it could move there were the square held by an opposing piece: the square
+ * matches its pattern and nothing stands in between. Squares held by friendly pieces
+ * therefore count as attacked (defended) too.
+ *
+ * <p>For every square, the map keeps both the set of squares attacked by the piece
+ * standing on it and the set of squares holding a piece that attacks it. When a square
+ * changes, only the sliding pieces attacking that square can have gained or lost attacks
+ * (a sliding piece whose ray crosses the square is, by definition, attacking it), so
+ * only those pieces are recomputed.
+ */
+class AttackMap {
+
+    /**
+     * The number of squares on the board.
+     */
+    private static final int SQUARES = Coordinate.DIM * Coordinate.DIM;
+
+    /**
+     * The board whose pieces are mapped.
+     */
+    private final ChessBoard board;
+
+    /**
+     * The squares attacked by the piece on each square (0 for empty squares).
+     */
+    private final long[] attacksFrom = new long[SQUARES];
+
+    /**
+     * The squares holding a piece (of either color) that attacks each square.
+     */
+    private final long[] attackersOf = new long[SQUARES];
+
+    /**
+     * The squares occupied by each color, indexed by color ordinal.
+     */
+    private final long[] colorMasks = new long[Color.COUNT];
+
+    /**
+     * The squares occupied by any piece.
+     */
+    private long occupied;
+
+    /**
+     * The squares occupied by sliding pieces (Rooks and Bishops), the only pieces whose
+     * attacks depend on the occupancy of other squares.
+     */
+    private long sliders;
+
+    /**
+     * Constructor for an AttackMap.
+     *
+     * @param board the board whose pieces to map; must be empty
+     */
+    AttackMap(ChessBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Replaces this map with a copy of another board's map, for a board that has just
+     * been given the same pieces (see ChessBoard.copy()).
+     *
+     * @param other the map to copy
+     */
+    void copyFrom(AttackMap other) {
+        System.arraycopy(other.attacksFrom, 0, this.attacksFrom, 0, SQUARES);
+        System.arraycopy(other.attackersOf, 0, this.attackersOf, 0, SQUARES);
+        System.arraycopy(other.colorMasks, 0, this.colorMasks, 0, Color.COUNT);
+        this.occupied = other.occupied;
+        this.sliders = other.sliders;
+    }
+
+    /**
+     * Records that a piece has been placed on a square. The piece must already be on
+     * the board.
+     *
+     * @param square the square the piece was placed on
+     * @param piece  the piece that was placed
+     */
+    void pieceAdded(int square, AChessPiece piece) {
+        long bit = 1L << square;
+        this.occupied |= bit;
+        this.colorMasks[piece.getColor().ordinal()] |= bit;
+        if (piece.getType() != PieceType.KNIGHT) {
+            this.sliders |= bit;
+        }
+
+        // Sliding pieces attacking this square are now blocked by it
+        this.recomputeAll(this.attackersOf[square] & this.sliders & ~bit);
+        this.setAttacks(square, this.computeAttacks(piece));
+    }
+
+    /**
+     * Records that a piece has been removed from a square. The piece must already be off
+     * the board.
+     *
+     * @param square the square the piece was removed from
+     * @param piece  the piece that was removed
+     */
+    void pieceRemoved(int square, AChessPiece piece) {
+        long bit = 1L << square;
+        this.occupied &= ~bit;
+        this.colorMasks[piece.getColor().ordinal()] &= ~bit;
+        this.sliders &= ~bit;
+        this.setAttacks(square, 0);
+
+        // Sliding pieces attacking this square can now see past it
+        this.recomputeAll(this.attackersOf[square] & this.sliders);
+    }
+
+    /**
+     * @param square the square to check
+     * @param color  the color of the attackers to look for
+     * @return the squares holding a piece of the given color that attacks the square
+     */
+    long attackersOf(int square, Color color) {
+        return this.attackersOf[square] & this.colorMasks[color.ordinal()];
+    }
+
+    /**
+     * @param square the square holding the piece
+     * @return the squares attacked by the piece on the square (0 if it is empty)
+     */
+    long attacksFrom(int square) {
+        return this.attacksFrom[square];
+    }
+
+    /**
+     * @return the squares occupied by any piece
+     */
+    long occupied() {
+        return this.occupied;
+    }
+
+    /**
+     * @param color the color of the pieces
+     * @return the squares occupied by a piece of the given color
+     */
+    long occupiedBy(Color color) {
+        return this.colorMasks[color.ordinal()];
+    }
+
+    /**
+     * @param color the color of the attackers
+     * @return the squares attacked by at least one piece of the given color
+     */
+    long attackedBy(Color color) {
+        long attacked = 0;
+        long pieces = this.colorMasks[color.ordinal()];
+        while (pieces != 0) {
+            attacked |= this.attacksFrom[Long.numberOfTrailingZeros(pieces)];
+            pieces &= pieces - 1;
+        }
+        return attacked;
+    }
+
+    /**
+     * Recomputes the attacks of the pieces on the given squares.
+     *
+     * @param squares the squares whose pieces to recompute
+     */
+    private void recomputeAll(long squares) {
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            this.setAttacks(square, this.computeAttacks(this.board.getPiece(square)));
+        }
+    }
+
+    /**
+     * @param piece a piece on the board
+     * @return the squares that piece attacks, given the current occupancy
+     */
+    private long computeAttacks(AChessPiece piece) {
+        long attacks = 0;
+        long targets = piece.getTargetMask();
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if ((piece.validateMoveMask(target) & this.occupied) == 0) {
+                attacks |= 1L << target;
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Replaces the attack set of the piece on a square, updating the reverse map for
+     * every square that was gained or lost.
+     *
+     * @param square  the square holding the piece
+     * @param attacks the piece's new attack set
+     */
+    private void setAttacks(int square, long attacks) {
+        long bit = 1L << square;
+        long old = this.attacksFrom[square];
+        this.attacksFrom[square] = attacks;
+
+        long lost = old & ~attacks;
+        while (lost != 0) {
+            this.attackersOf[Long.numberOfTrailingZeros(lost)] &= ~bit;
+            lost &= lost - 1;
+        }
+        long gained = attacks & ~old;
+        while (gained != 0) {
+            this.attackersOf[Long.numberOfTrailingZeros(gained)] |= bit;
+            gained &= gained - 1;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package main.rice;
+
+import main.rice.storage.StorageType;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe pool of ChessBoards, so that workloads that start and finish
+ * many games can recycle finished boards instead of creating new ones and leaving the
+ * old ones to the garbage collector. A released board is reset to the initial position
+ * (see ChessBoard.resetToInitial()), so acquire() always returns a board that looks
+ * brand new.
+ *
+ * <p>Only idle boards are counted against the bound: boards handed out are not
+ * tracked, and boards released while the pool is full are simply dropped. Neither
+ * acquire() nor release() ever blocks.
+ */
+public final class BoardPool {
+
+    /**
+     * The type of storage engine backing every board of this pool.
+     */
+    private final StorageType storageType;
+
+    /**
+     * The boards waiting to be handed out, all in the initial position.
+     */
+    private final BlockingQueue<ChessBoard> idle;
+
+    /**
+     * The number of boards created by acquire().
+     */
+    private final LongAdder created = new LongAdder();
+
+    /**
+     * The number of boards handed out again after being released.
+     */
+    private final LongAdder reused = new LongAdder();
+
+    /**
+     * Constructor for a BoardPool; its boards are backed by the storage engine named by
+     * the main.rice.storage system property, like those of new ChessBoard().
+     *
+     * @param maxIdle the largest number of boards to keep for reuse
+     * @throws IllegalArgumentException if maxIdle is not positive
+     */
+    public BoardPool(int maxIdle) {
+        this(maxIdle, StorageType.fromSystemProperty());
+    }
+
+    /**
+     * Constructor for a BoardPool.
+     *
+     * @param maxIdle     the largest number of boards to keep for reuse
+     * @param storageType the storage engine to back the pool's boards with
+     * @throws IllegalArgumentException if maxIdle is not positive
+     */
+    public BoardPool(int maxIdle, StorageType storageType) {
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("maxIdle must be positive: " + maxIdle);
+        }
+        this.storageType = storageType;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Hands out a board in the initial position, with no moves to unmake and no move
+     * event publisher: a released one if any is idle, or a new one otherwise.
+     *
+     * @return a board for the caller's exclusive use until it is released
+     */
+    public ChessBoard acquire() {
+        ChessBoard board = this.idle.poll();
+        if (board == null) {
+            this.created.increment();
+            return new ChessBoard(this.storageType);
+        }
+        this.reused.increment();
+        return board;
+    }
+
+    /**
+     * Returns a board to the pool, resetting it for reuse. The caller (and anyone it
+     * shared the board or its pieces with) must not use the board afterwards, and must
+     * release it only once.
+     *
+     * @param board a board backed by this pool's type of storage engine
+     * @return true if the board was kept for reuse; false if the pool was full
+     * @throws IllegalArgumentException if the board has a different type of storage
+     */
+    public boolean release(ChessBoard board) {
+        if (board.getStorageType() != this.storageType) {
+            throw new IllegalArgumentException("Board is backed by "
+                + board.getStorageType() + " storage, not " + this.storageType);
+        }
+
+        // Skip the reset if the board would be dropped anyway
+        if (this.idle.remainingCapacity() == 0) {
+            return false;
+        }
+        board.resetToInitial();
+        board.setMoveEvents(null);
+        return this.idle.offer(board);
+    }
+
+    /**
+     * @return the number of boards waiting to be handed out
+     */
+    public int getIdleCount() {
+        return this.idle.size();
+    }
+
+    /**
+     * @return the number of boards created so far because none was idle
+     */
+    public long getCreatedCount() {
+        return this.created.sum();
+    }
+
+    /**
+     * @return the number of times a released board has been handed out again
+     */
+    public long getReusedCount() {
+        return this.reused.sum();
+    }
+}
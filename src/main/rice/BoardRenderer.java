@@ -0,0 +1,264 @@
+package main.rice;
+
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceCode;
+import main.rice.pieces.PieceType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Renders boards (any IBoardView) in the text format of ChessBoard.toString(): a
+ * separator line, then for each row a line of cells ("|" followed by " BR |", "    |",
+ * ...) and another separator line. Every cell is copied from a table precomputed per
+ * PieceCode, so rendering into a caller-supplied Appendable or ByteBuffer creates no
+ * objects.
+ *
+ * <p>An instance also supports a diff mode for clients that keep the previous
+ * rendering: renderChanges() emits only the rows that changed since its last call, each
+ * as the row number followed by the row's cell line. Row r's cell line starts at
+ * character SEPARATOR_CHARS + r * (LINE_CHARS + SEPARATOR_CHARS) of a full rendering.
+ * Instances are not thread-safe; use one per stream of updates.
+ */
+public class BoardRenderer {
+
+    /**
+     * The number of characters in a separator line, including its newline.
+     */
+    public static final int SEPARATOR_CHARS = 42;
+
+    /**
+     * The number of characters in a row's cell line, including its newline.
+     */
+    public static final int LINE_CHARS = 2 + Coordinate.DIM * 5;
+
+    /**
+     * The number of characters in a full rendering.
+     */
+    public static final int RENDERED_CHARS =
+        SEPARATOR_CHARS + Coordinate.DIM * (LINE_CHARS + SEPARATOR_CHARS);
+
+    /**
+     * The number of characters renderChanges() emits per changed row.
+     */
+    public static final int CHANGED_ROW_CHARS = 1 + LINE_CHARS;
+
+    /**
+     * The separator line.
+     */
+    private static final String SEPARATOR = "-".repeat(SEPARATOR_CHARS - 1) + "\n";
+
+    /**
+     * The separator line, as ASCII bytes.
+     */
+    private static final byte[] SEPARATOR_BYTES = ascii(SEPARATOR);
+
+    /**
+     * The text of each square, indexed by PieceCode; e.g. " BR |" for a black Rook.
+     */
+    private static final String[] CELLS = new String[PieceCode.COUNT];
+
+    /**
+     * The text of each square, indexed by PieceCode, as ASCII bytes.
+     */
+    private static final byte[][] CELL_BYTES = new byte[PieceCode.COUNT][];
+
+    static {
+        CELLS[PieceCode.EMPTY] = "    |";
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                CELLS[PieceCode.of(color, type)] = " " + color.getDesignator()
+                    + type.getDesignator() + " |";
+            }
+        }
+        for (int code = 0; code < PieceCode.COUNT; code++) {
+            CELL_BYTES[code] = ascii(CELLS[code]);
+        }
+    }
+
+    /**
+     * The packed codes of each row as of the last renderChanges() call (see rowCodes()).
+     */
+    private final int[] lastRows = new int[Coordinate.DIM];
+
+    /**
+     * True once renderChanges() has been called since construction or reset().
+     */
+    private boolean primed;
+
+    /**
+     * Renders a board into a new String.
+     *
+     * @param board the board to render
+     * @return the rendering of the board
+     */
+    public static String render(IBoardView board) {
+        StringBuilder sb = new StringBuilder(RENDERED_CHARS);
+        try {
+            render(board, sb);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Renders a board into an Appendable.
+     *
+     * @param board the board to render
+     * @param out   the Appendable to write to
+     * @throws IOException if out cannot be written
+     */
+    public static void render(IBoardView board, Appendable out) throws IOException {
+        out.append(SEPARATOR);
+        for (int row = 0; row < Coordinate.DIM; row++) {
+            appendLine(rowCodes(board, row), out);
+            out.append(SEPARATOR);
+        }
+    }
+
+    /**
+     * Renders a board into a ByteBuffer as ASCII, advancing its position.
+     *
+     * @param board the board to render
+     * @param out   the buffer to write to
+     * @throws BufferOverflowException if out has fewer than RENDERED_CHARS bytes
+     *                                 remaining; in that case, nothing is written
+     */
+    public static void render(IBoardView board, ByteBuffer out) {
+        if (out.remaining() < RENDERED_CHARS) {
+            throw new BufferOverflowException();
+        }
+        out.put(SEPARATOR_BYTES);
+        for (int row = 0; row < Coordinate.DIM; row++) {
+            putLine(rowCodes(board, row), out);
+            out.put(SEPARATOR_BYTES);
+        }
+    }
+
+    /**
+     * Emits the rows of a board that changed since the last call (every row on the
+     * first call, or after reset()). Each row is emitted as its number ('0'-'7')
+     * followed by its cell line.
+     *
+     * @param board the board to render
+     * @param out   the Appendable to write to
+     * @return the number of rows emitted
+     * @throws IOException if out cannot be written
+     */
+    public int renderChanges(IBoardView board, Appendable out) throws IOException {
+        int emitted = 0;
+        for (int row = 0; row < Coordinate.DIM; row++) {
+            int codes = rowCodes(board, row);
+            if (this.primed && codes == this.lastRows[row]) {
+                continue;
+            }
+            out.append((char) ('0' + row));
+            appendLine(codes, out);
+            this.lastRows[row] = codes;
+            emitted++;
+        }
+        this.primed = true;
+        return emitted;
+    }
+
+    /**
+     * Emits the rows of a board that changed since the last call as ASCII, advancing the
+     * buffer's position; see renderChanges(IBoardView, Appendable).
+     *
+     * @param board the board to render
+     * @param out   the buffer to write to
+     * @return the number of rows emitted
+     * @throws BufferOverflowException if out cannot hold every changed row; in that
+     *                                 case, nothing is written and nothing is marked as
+     *                                 rendered
+     */
+    public int renderChanges(IBoardView board, ByteBuffer out) {
+        // Count the changed rows first, so that a short buffer leaves everything as is
+        int changed = 0;
+        for (int row = 0; row < Coordinate.DIM; row++) {
+            if (!this.primed || rowCodes(board, row) != this.lastRows[row]) {
+                changed++;
+            }
+        }
+        if (out.remaining() < changed * CHANGED_ROW_CHARS) {
+            throw new BufferOverflowException();
+        }
+
+        for (int row = 0; row < Coordinate.DIM; row++) {
+            int codes = rowCodes(board, row);
+            if (this.primed && codes == this.lastRows[row]) {
+                continue;
+            }
+            out.put((byte) ('0' + row));
+            putLine(codes, out);
+            this.lastRows[row] = codes;
+        }
+        this.primed = true;
+        return changed;
+    }
+
+    /**
+     * Forgets the last rendering, so that the next renderChanges() call emits every row.
+     */
+    public void reset() {
+        this.primed = false;
+    }
+
+    /**
+     * @param board the board to read
+     * @param row   the row to read
+     * @return the PieceCodes of the row's squares, four bits each, column 0 lowest
+     */
+    private static int rowCodes(IBoardView board, int row) {
+        int codes = 0;
+        for (int col = 0; col < Coordinate.DIM; col++) {
+            codes |= board.getPieceCode(row * Coordinate.DIM + col) << (col * 4);
+        }
+        return codes;
+    }
+
+    /**
+     * Appends a row's cell line.
+     *
+     * @param codes the row's packed codes (see rowCodes())
+     * @param out   the Appendable to write to
+     * @throws IOException if out cannot be written
+     */
+    private static void appendLine(int codes, Appendable out) throws IOException {
+        out.append('|');
+        for (int col = 0; col < Coordinate.DIM; col++) {
+            out.append(CELLS[(codes >>> (col * 4)) & 0xF]);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Puts a row's cell line as ASCII.
+     *
+     * @param codes the row's packed codes (see rowCodes())
+     * @param out   the buffer to write to
+     */
+    private static void putLine(int codes, ByteBuffer out) {
+        out.put((byte) '|');
+        for (int col = 0; col < Coordinate.DIM; col++) {
+            out.put(CELL_BYTES[(codes >>> (col * 4)) & 0xF]);
+        }
+        out.put((byte) '\n');
+    }
+
+    /**
+     * @param text ASCII text
+     * @return the text's bytes
+     */
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -1,34 +1,246 @@
 package main.rice;
 
+import main.rice.events.MoveEventPublisher;
+import main.rice.metrics.MoveMetrics;
+import main.rice.metrics.MoveRejection;
 import main.rice.pieces.*;
+import main.rice.storage.IBoardStorage;
+import main.rice.storage.StorageType;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 /**
  * A representation of a chess board, which is an 8x8 grid of squares. Each square is
  * either empty or contains an AChessPiece.
  */
-public class ChessBoard {
+public class ChessBoard implements IBoardView {
 
     /**
      * Dimensions of the board (number of rows/columns).
      */
     private int dim = 8;
 
+    /**
+     * The number of bytes written by writeTo() and read by readFrom(): four bits per
+     * square.
+     */
+    public static final int SNAPSHOT_BYTES = 32;
+
+    /**
+     * The initial position, set up once; new boards copy it (see copyFrom()) instead of
+     * placing and mapping every piece again. Never modified or exposed.
+     */
+    private static final ChessBoard PROTOTYPE = createPrototype();
+
     /**
      * Representation of the board; each square contains an AChessPiece or null (if
      * empty).
      */
-    private AChessPiece[][] board;
+    private IBoardStorage board;
 
     /**
-     * Constructor for a ChessBoard; creates a new board
+     * The type of storage engine backing this board.
+     */
+    private final StorageType storageType;
+
+    /**
+     * Undo records for the moves made through makeMove() that have not been unmade yet.
+     */
+    private final UndoStack undoStack = new UndoStack();
+
+    /**
+     * Zobrist key of the current position (see Zobrist); updated incrementally whenever
+     * a piece is placed or removed.
+     */
+    private long zobristKey;
+
+    /**
+     * Total material value (see PieceType.getValue()) on the board, indexed by color
+     * ordinal; updated incrementally alongside the Zobrist key.
+     */
+    private final int[] material = new int[Color.COUNT];
+
+    /**
+     * Which pieces attack which squares; updated incrementally whenever a piece is
+     * placed or removed.
+     */
+    private final AttackMap attacks = new AttackMap(this);
+
+    /**
+     * Publisher of the moves made through move(), or null if nobody is listening.
+     */
+    private MoveEventPublisher moveEvents;
+
+    /**
+     * Constructor for a ChessBoard; creates a new board backed by the storage engine
+     * named by the main.rice.storage system property (the array engine by default).
      */
     public ChessBoard() {
+        this(StorageType.fromSystemProperty());
+    }
+
+    /**
+     * Constructor for a ChessBoard; creates a new board backed by the given storage
+     * engine.
+     *
+     * @param storageType the storage engine to keep the board's contents in
+     */
+    public ChessBoard(StorageType storageType) {
+        this(storageType, true);
+    }
+
+    /**
+     * Constructor for a ChessBoard; creates a new board backed by the given storage
+     * engine, optionally leaving it empty.
+     *
+     * @param storageType the storage engine to keep the board's contents in
+     * @param initPieces  true to set up the initial pieces; false for an empty board
+     */
+    private ChessBoard(StorageType storageType, boolean initPieces) {
         // Create the board
-        this.board = new AChessPiece[dim][dim];
+        this.storageType = storageType;
+        this.board = storageType.create(dim);
 
         // Create the pieces
-        this.initPieces(0, "black");
-        this.initPieces(7, "white");
+        if (initPieces) {
+            this.copyFrom(PROTOTYPE);
+        }
+    }
+
+    /**
+     * @return a board set up with the initial position by placing each piece
+     */
+    private static ChessBoard createPrototype() {
+        ChessBoard prototype = new ChessBoard(StorageType.ARRAY, false);
+        prototype.initPieces(0, Color.BLACK);
+        prototype.initPieces(7, Color.WHITE);
+        return prototype;
+    }
+
+    /**
+     * Returns an independent copy of this board, backed by the same type of storage
+     * engine. Every piece is copied too, so moves on the copy never affect this board.
+     * The copy starts with no moves to unmake.
+     *
+     * @return a copy of this board
+     */
+    public ChessBoard copy() {
+        ChessBoard copy = new ChessBoard(this.storageType, false);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Puts every piece back where a new board has it, as if this board had just been
+     * created; e.g. to reuse a board for another game (see BoardPool). Pieces taken
+     * from the board before are no longer connected to it. The undo history is cleared;
+     * the move event publisher, if any, is kept.
+     */
+    public void resetToInitial() {
+        this.copyFrom(PROTOTYPE);
+    }
+
+    /**
+     * Replaces the contents of this board with fresh copies of another board's pieces,
+     * and copies its Zobrist key, material totals and attack maps in bulk rather than
+     * recomputing them piece by piece. The undo history is cleared.
+     *
+     * @param source the board to copy; must be a different board
+     */
+    private void copyFrom(ChessBoard source) {
+        // Empty the storage directly; everything derived from it is overwritten below
+        long occupied = this.attacks.occupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            this.board.remove(square / this.dim, square % this.dim);
+        }
+
+        long pieces = source.attacks.occupied();
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            AChessPiece piece = source.getPiece(square);
+            this.board.put(square / this.dim, square % this.dim,
+                piece.getType().create(piece.getColor(), Coordinate.ofSquare(square)));
+        }
+        this.zobristKey = source.zobristKey;
+        System.arraycopy(source.material, 0, this.material, 0, Color.COUNT);
+        this.attacks.copyFrom(source.attacks);
+        this.undoStack.clear();
+    }
+
+    /**
+     * Creates a board with no pieces on it, backed by the storage engine named by the
+     * main.rice.storage system property; e.g. to restore a snapshot into with
+     * readFrom().
+     *
+     * @return a new, empty board
+     */
+    public static ChessBoard empty() {
+        return new ChessBoard(StorageType.fromSystemProperty(), false);
+    }
+
+    /**
+     * Writes a fixed-width, 32-byte snapshot of the position to buf, advancing its
+     * position. Each byte holds two squares (the lower-numbered square in the low four
+     * bits), and each square is stored as its PieceCode. No objects are created along
+     * the way. Undo history is not included.
+     *
+     * @param buf the buffer to write to
+     * @throws BufferOverflowException if buf has fewer than 32 bytes remaining
+     */
+    public void writeTo(ByteBuffer buf) {
+        if (buf.remaining() < SNAPSHOT_BYTES) {
+            throw new BufferOverflowException();
+        }
+        for (int square = 0; square < this.dim * this.dim; square += 2) {
+            int low = PieceCode.of(this.getPiece(square));
+            int high = PieceCode.of(this.getPiece(square + 1));
+            buf.put((byte) (low | (high << 4)));
+        }
+    }
+
+    /**
+     * Replaces the contents of this board with a snapshot written by writeTo(), advancing
+     * buf's position. The undo history is cleared.
+     *
+     * @param buf the buffer to read from
+     * @throws BufferUnderflowException if buf has fewer than 32 bytes remaining
+     * @throws IllegalArgumentException if the snapshot contains an invalid square code;
+     *                                  in that case, the board and buf are unchanged
+     */
+    public void readFrom(ByteBuffer buf) {
+        if (buf.remaining() < SNAPSHOT_BYTES) {
+            throw new BufferUnderflowException();
+        }
+
+        // Validate everything before touching the board
+        int start = buf.position();
+        for (int i = 0; i < SNAPSHOT_BYTES; i++) {
+            int codes = buf.get(start + i) & 0xFF;
+            if (!PieceCode.isValid(codes & 0xF) || !PieceCode.isValid(codes >>> 4)) {
+                throw new IllegalArgumentException("Invalid snapshot byte " + codes
+                    + " at offset " + i);
+            }
+        }
+
+        // Clear the board, then place the pieces
+        this.undoStack.clear();
+        for (int square = 0; square < this.dim * this.dim; square++) {
+            this.removePiece(square);
+        }
+        for (int square = 0; square < this.dim * this.dim; square++) {
+            int codes = buf.get(start + square / 2) & 0xFF;
+            int code = (square & 1) == 0 ? codes & 0xF : codes >>> 4;
+            if (code != PieceCode.EMPTY) {
+                this.putPiece(PieceCode.typeOf(code).create(PieceCode.colorOf(code),
+                    Coordinate.ofSquare(square)));
+            }
+        }
+        buf.position(start + SNAPSHOT_BYTES);
     }
 
     /**
@@ -37,59 +249,211 @@ public class ChessBoard {
      * @param pos the position to get the contents of
      * @return the piece located at the given position
      */
+    @Override
     public AChessPiece getPiece(Coordinate pos) {
-        return this.board[pos.getRow()][pos.getCol()];
+        return this.board.get(pos.getRow(), pos.getCol());
     }
 
     /**
-     * Returns a string representation of the board.
+     * Returns the chess piece (or null) located at the specified square.
      *
-     * @return a string representation of the board
+     * @param square the square (row * 8 + col) to get the contents of
+     * @return the piece located at the given square, or null if it is off the board
      */
+    public AChessPiece getPiece(int square) {
+        if (!this.isInBounds(square)) {
+            return null;
+        }
+        return this.board.get(square / this.dim, square % this.dim);
+    }
+
     @Override
-    public String toString() {
-        // String-ify the top edge
-        StringBuilder sb = new StringBuilder();
-        sb.append("-----------------------------------------\n");
-
-        // String-ify each row
-        for (int row = 0; row < this.dim; row++) {
-            sb.append("|");
-            for (int col = 0; col < this.dim; col++) {
-                // Get the piece in the given (row, col) position
-                AChessPiece piece = this.board[row][col];
-
-                if (piece == null) {
-                    // Empty square
-                    sb.append("    |");
-                    continue;
-                }
+    public int getPieceCode(int square) {
+        return PieceCode.of(this.getPiece(square));
+    }
 
-                // Get one-character representations of the color and type
-                // Note: an alternative design would be to define toString() for each
-                // AChessPiece type and to simply call that here; that would make this
-                // method cleaner, but the downside is that the String we want here
-                // might not be a great String representation for all use cases (it's
-                // relatively indescriptive.)
-                String colorDesignator = piece.getColor().substring(0, 1).toUpperCase();
-                String typeDesignator;
-                if (piece instanceof Bishop) {
-                    typeDesignator = "B";
-                } else if (piece instanceof Knight) {
-                    typeDesignator = "K";
-                } else {
-                    typeDesignator = "R";
-                }
+    /**
+     * Returns the Zobrist key of the current position: the XOR of Zobrist.key() over all
+     * pieces. Positions with the same pieces on the same squares have the same key, no
+     * matter which sequence of moves reached them.
+     *
+     * @return the Zobrist key of the current position
+     */
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    /**
+     * @return the type of storage engine backing this board
+     */
+    public StorageType getStorageType() {
+        return this.storageType;
+    }
+
+    /**
+     * @param color the color to total the material of
+     * @return the summed material value (see PieceType.getValue()) of the given color's
+     * pieces on the board
+     */
+    public int getMaterial(Color color) {
+        return this.material[color.ordinal()];
+    }
+
+    /**
+     * Checks whether any piece of the given color attacks the given position, i.e. could
+     * move there if it held an opposing piece. Runs in constant time.
+     *
+     * @param pos   the position to check; must be on the board
+     * @param color the color of the attackers
+     * @return true if pos is attacked by a piece of the given color; false otherwise
+     */
+    public boolean isAttacked(Coordinate pos, Color color) {
+        return this.isAttacked(pos.getSquare(), color);
+    }
+
+    /**
+     * Checks whether any piece of the given color attacks the given square. Runs in
+     * constant time.
+     *
+     * @param square the square (row * 8 + col) to check
+     * @param color  the color of the attackers
+     * @return true if the square is attacked by a piece of the given color
+     */
+    public boolean isAttacked(int square, Color color) {
+        return this.attacks.attackersOf(square, color) != 0;
+    }
+
+    /**
+     * Returns the squares holding a piece of the given color that attacks the given
+     * square. Runs in constant time.
+     *
+     * @param square the square (row * 8 + col) to check
+     * @param color  the color of the attackers
+     * @return a mask with bit (row * 8 + col) set for each attacker's square
+     */
+    public long getAttackers(int square, Color color) {
+        return this.attacks.attackersOf(square, color);
+    }
+
+    /**
+     * @param color the color of the attackers
+     * @return a mask of the squares attacked by at least one piece of the given color
+     */
+    public long getAttackedSquares(Color color) {
+        return this.attacks.attackedBy(color);
+    }
+
+    /**
+     * Returns the least number of moves the piece at startPos needs to reach endPos,
+     * if every other piece stays where it is (see distance(int, int)).
+     *
+     * @param startPos the current location of the piece
+     * @param endPos   the location to reach
+     * @return the number of moves, or MoveTables.UNREACHABLE if there is no piece at
+     * startPos, either position is off the board, or the piece cannot get there
+     */
+    public int distance(Coordinate startPos, Coordinate endPos) {
+        if (!this.isInBounds(startPos) || !this.isInBounds(endPos)) {
+            return MoveTables.UNREACHABLE;
+        }
+        return this.distance(startPos.getSquare(), endPos.getSquare());
+    }
+
+    /**
+     * Returns the least number of moves the piece on startSquare needs to reach
+     * endSquare, if every other piece stays where it is: the piece may not pass through
+     * or land on friendly pieces, only Knights may jump, and capturing an opposing piece
+     * ends the way. Allocates nothing; answered from an empty-board table (see
+     * PieceType.getDistance()) when no other piece can be in the way, and by a bitboard
+     * search otherwise.
+     *
+     * @param startSquare the current square (row * 8 + col) of the piece
+     * @param endSquare   the square to reach
+     * @return the number of moves (0 if the squares are the same), or
+     * MoveTables.UNREACHABLE if there is no piece on startSquare or it cannot get there
+     */
+    public int distance(int startSquare, int endSquare) {
+        AChessPiece piece = this.getPiece(startSquare);
+        if (piece == null) {
+            return MoveTables.UNREACHABLE;
+        }
+        long enemies = this.attacks.occupiedBy(piece.getColor().opposite());
+        return Reachability.distance(piece.getType(), startSquare, endSquare,
+            this.attacks.occupied(), enemies);
+    }
+
+    /**
+     * Returns the squares a piece on this board can reach in at most maxMoves moves, if
+     * every other piece stays where it is (see distance(int, int)). Allocates nothing.
+     *
+     * @param piece    a piece on this board
+     * @param maxMoves the largest number of moves to make
+     * @return a mask with bit (row * 8 + col) set for each square reachable in 1 to
+     * maxMoves moves; the piece's own square is never included
+     * @throws IllegalArgumentException if the piece is not on this board
+     */
+    public long reachableSquares(AChessPiece piece, int maxMoves) {
+        int square = piece.getPosition().getSquare();
+        if (this.getPiece(square) != piece) {
+            throw new IllegalArgumentException("Piece is not on this board");
+        }
+        long enemies = this.attacks.occupiedBy(piece.getColor().opposite());
+        return Reachability.reachable(piece.getType(), square, this.attacks.occupied(),
+            enemies, maxMoves);
+    }
+
+    /**
+     * Returns true if o is a ChessBoard with the same type and color of piece on every
+     * square as this board; false otherwise. Piece identities and positions, storage
+     * engines and undo histories are not compared.
+     *
+     * @param o the object to compare to
+     * @return true if this and o hold the same position; false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ChessBoard)) {
+            return false;
+        }
 
-                // Non-empty square: display colorDesignator + typeDesignator
-                sb.append(" ").append(colorDesignator).append(typeDesignator)
-                    .append(" |");
+        // Differing keys mean differing positions, so only compare squares on a match
+        ChessBoard other = (ChessBoard) o;
+        if (other.zobristKey != this.zobristKey || other.dim != this.dim) {
+            return false;
+        }
+        for (int square = 0; square < this.dim * this.dim; square++) {
+            AChessPiece piece = this.getPiece(square);
+            AChessPiece otherPiece = other.getPiece(square);
+            if (piece == null || otherPiece == null) {
+                if (piece != otherPiece) {
+                    return false;
+                }
+            } else if (piece.getType() != otherPiece.getType()
+                || piece.getColor() != otherPiece.getColor()) {
+                return false;
             }
-            sb.append("\n-----------------------------------------\n");
         }
+        return true;
+    }
+
+    /**
+     * Returns a hash code consistent with equals(), derived from the Zobrist key.
+     *
+     * @return a hash code for the current position
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobristKey);
+    }
 
-        // Return the complete string representation of the board
-        return sb.toString();
+    /**
+     * Returns a string representation of the board.
+     *
+     * @return a string representation of the board
+     */
+    @Override
+    public String toString() {
+        return BoardRenderer.render(this);
     }
 
     /**
@@ -101,8 +465,264 @@ public class ChessBoard {
      * @return true if the move was able to be completed successfully; false otherwise
      */
     public boolean move(Coordinate startPos, Coordinate endPos) {
-        // TODO: implement this method
-        return false;
+        // Both positions must be on the board
+        if (!this.isInBounds(startPos) || !this.isInBounds(endPos)) {
+            if (MoveMetrics.ENABLED) {
+                MoveMetrics.recordRejected(MoveRejection.OUT_OF_BOUNDS);
+            }
+            return false;
+        }
+        return this.move(startPos.getSquare(), endPos.getSquare());
+    }
+
+    /**
+     * Performs the specified move (from startSquare to endSquare) iff it is valid,
+     * updating both the board as well as the piece's notion of its location. Squares are
+     * numbered row * 8 + col; a square off the board is rejected as OUT_OF_BOUNDS.
+     *
+     * @param startSquare the current square of the piece to be moved
+     * @param endSquare   the prospective destination square of the piece to be moved
+     * @return true if the move was able to be completed successfully; false otherwise
+     */
+    public boolean move(int startSquare, int endSquare) {
+        long start = MoveMetrics.ENABLED ? System.nanoTime() : 0;
+        MoveRejection rejection = this.checkMove(startSquare, endSquare);
+        if (rejection == null) {
+            Coordinate endPos = Coordinate.ofSquare(endSquare);
+            if (this.moveEvents != null) {
+                this.moveEvents.publish(this.getPiece(startSquare),
+                    Coordinate.ofSquare(startSquare), endPos, this.getPiece(endSquare));
+            }
+            this.applyMove(startSquare, endSquare, endPos);
+        }
+        if (MoveMetrics.ENABLED) {
+            MoveMetrics.recordMove(rejection, System.nanoTime() - start);
+        }
+        return rejection == null;
+    }
+
+    /**
+     * Sets the publisher that every move completed through move() is reported to. Moves
+     * made through makeMove() and unmakeMove() (e.g. by a search) are not reported.
+     * Publishing never waits for subscribers; see MoveEventPublisher.
+     *
+     * @param moveEvents the publisher to report moves to, or null to stop reporting
+     */
+    public void setMoveEvents(MoveEventPublisher moveEvents) {
+        this.moveEvents = moveEvents;
+    }
+
+    /**
+     * Performs an encoded move (see MoveBuffer) and records how to undo it. Unlike
+     * move(), this does not check the move: it must be valid for the current position,
+     * e.g. because it was just produced by generateMoves().
+     *
+     * @param move the encoded move to make
+     */
+    public void makeMove(int move) {
+        int from = MoveBuffer.from(move);
+        int to = MoveBuffer.to(move);
+        AChessPiece piece = this.getPiece(from);
+        this.undoStack.push(move, this.getPiece(to), piece.getPosition());
+        this.applyMove(from, to, Coordinate.ofSquare(to));
+    }
+
+    /**
+     * Takes back the most recent move made through makeMove(), restoring the board, the
+     * moved piece's position, and any captured piece in O(1).
+     *
+     * @throws IllegalStateException if there is no move to unmake
+     */
+    public void unmakeMove() {
+        if (this.undoStack.size() == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        int move = this.undoStack.peekMove();
+        AChessPiece captured = this.undoStack.peekCaptured();
+        Coordinate position = this.undoStack.peekPosition();
+        this.undoStack.pop();
+
+        int from = MoveBuffer.from(move);
+        int to = MoveBuffer.to(move);
+        this.applyMove(to, from, position);
+        if (captured != null) {
+            this.putPiece(captured);
+        }
+    }
+
+    /**
+     * @return the number of moves made through makeMove() that can still be unmade
+     */
+    public int getUndoDepth() {
+        return this.undoStack.size();
+    }
+
+    /**
+     * Moves the piece on one square to another, replacing (capturing) anything on the
+     * destination, and updates the piece's notion of its location. Does no validation.
+     *
+     * @param from        the square of the piece to move
+     * @param to          the destination square
+     * @param newPosition the position to give the piece (the Coordinate of to)
+     */
+    private void applyMove(int from, int to, Coordinate newPosition) {
+        AChessPiece piece = this.getPiece(from);
+        this.removePiece(to);
+        this.removePiece(from);
+        piece.move(newPosition);
+        this.putPiece(piece);
+    }
+
+    /**
+     * Places a piece on the (empty) square given by its position, keeping the Zobrist
+     * key, material totals and attack maps up to date.
+     *
+     * @param piece the piece to place
+     */
+    private void putPiece(AChessPiece piece) {
+        Coordinate pos = piece.getPosition();
+        this.board.put(pos.getRow(), pos.getCol(), piece);
+        this.zobristKey ^= Zobrist.key(piece, pos.getSquare());
+        this.material[piece.getColor().ordinal()] += piece.getType().getValue();
+        this.attacks.pieceAdded(pos.getSquare(), piece);
+    }
+
+    /**
+     * Empties a square, keeping the Zobrist key, material totals and attack maps up to
+     * date.
+     *
+     * @param square the square to empty
+     */
+    private void removePiece(int square) {
+        AChessPiece piece = this.getPiece(square);
+        if (piece != null) {
+            this.board.remove(square / this.dim, square % this.dim);
+            this.zobristKey ^= Zobrist.key(piece, square);
+            this.material[piece.getColor().ordinal()] -= piece.getType().getValue();
+            this.attacks.pieceRemoved(square, piece);
+        }
+    }
+
+    /**
+     * Checks whether the specified move (from startPos to endPos) is valid, without
+     * performing it. Unlike AChessPiece.validateMove(Coordinate), this allocates nothing.
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move could be completed successfully; false otherwise
+     */
+    public boolean isValidMove(Coordinate startPos, Coordinate endPos) {
+        // Both positions must be on the board
+        if (!this.isInBounds(startPos) || !this.isInBounds(endPos)) {
+            return false;
+        }
+        return this.isValidMove(startPos.getSquare(), endPos.getSquare());
+    }
+
+    /**
+     * Checks whether the specified move (from startSquare to endSquare) is valid, without
+     * performing it. Squares are numbered row * 8 + col; a square off the board makes the
+     * move invalid.
+     *
+     * @param startSquare the current square of the piece to be moved
+     * @param endSquare   the prospective destination square of the piece to be moved
+     * @return true if the move could be completed successfully; false otherwise
+     */
+    public boolean isValidMove(int startSquare, int endSquare) {
+        return this.checkMove(startSquare, endSquare) == null;
+    }
+
+    /**
+     * Checks whether the specified move (from startSquare to endSquare) is valid, and if
+     * not, why.
+     *
+     * @param startSquare the current square of the piece to be moved
+     * @param endSquare   the prospective destination square of the piece to be moved
+     * @return null if the move is valid; otherwise, the first reason it is not
+     */
+    private MoveRejection checkMove(int startSquare, int endSquare) {
+        // Both squares must be on the board
+        if (!this.isInBounds(startSquare) || !this.isInBounds(endSquare)) {
+            return MoveRejection.OUT_OF_BOUNDS;
+        }
+
+        // There must be a piece to move
+        AChessPiece piece = this.getPiece(startSquare);
+        if (piece == null) {
+            return MoveRejection.EMPTY_START;
+        }
+
+        // The move must match the piece's pattern, and nothing may be in the way
+        long path = piece.validateMoveMask(endSquare);
+        if (path == MoveTables.INVALID) {
+            return MoveRejection.INVALID_PATTERN;
+        }
+        if (this.board.isAnyOccupied(path)) {
+            return MoveRejection.BLOCKED_PATH;
+        }
+
+        // A piece may capture an opponent's piece, but not one of its own
+        AChessPiece target = this.getPiece(endSquare);
+        if (target != null && target.getColor() == piece.getColor()) {
+            return MoveRejection.FRIENDLY_CAPTURE;
+        }
+        return null;
+    }
+
+    /**
+     * Enumerates every valid move for the pieces of the given color into a caller-owned
+     * buffer, without changing the board. The buffer is cleared first; reusing the same
+     * buffer across calls keeps move generation garbage-free.
+     *
+     * @param color  the color whose moves to generate
+     * @param buffer the buffer to fill with encoded moves (see MoveBuffer)
+     * @return the number of moves generated
+     */
+    public int generateMoves(Color color, MoveBuffer buffer) {
+        buffer.clear();
+        for (int from = 0; from < this.dim * this.dim; from++) {
+            AChessPiece piece = this.getPiece(from);
+            if (piece == null || piece.getColor() != color) {
+                continue;
+            }
+
+            // Only the squares the piece could reach on an empty board are candidates
+            long targets = piece.getTargetMask();
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+
+                AChessPiece target = this.getPiece(to);
+                if (target != null && target.getColor() == color) {
+                    continue;
+                }
+                if (!this.board.isAnyOccupied(piece.validateMoveMask(to))) {
+                    buffer.add(MoveBuffer.encode(from, to, target != null));
+                }
+            }
+        }
+        return buffer.size();
+    }
+
+    /**
+     * Checks whether the given position lies on the board.
+     *
+     * @param pos the position to check
+     * @return true if pos is within the bounds of the board; false otherwise
+     */
+    private boolean isInBounds(Coordinate pos) {
+        return pos.getRow() >= 0 && pos.getRow() < this.dim && pos.getCol() >= 0
+            && pos.getCol() < this.dim;
+    }
+
+    /**
+     * Checks whether the given square lies on the board.
+     *
+     * @param square the square (row * 8 + col) to check
+     * @return true if the square is on the board; false otherwise
+     */
+    private boolean isInBounds(int square) {
+        return square >= 0 && square < this.dim * this.dim;
     }
 
     /**
@@ -111,12 +731,12 @@ public class ChessBoard {
      * @param row   the row in which to place the pieces
      * @param color the color of the pieces
      */
-    private void initPieces(int row, String color) {
-        board[row][0] = new Rook(color, new Coordinate(row, 0));
-        board[row][1] = new Knight(color, new Coordinate(row, 1));
-        board[row][2] = new Bishop(color, new Coordinate(row, 2));
-        board[row][5] = new Bishop(color, new Coordinate(row, 5));
-        board[row][6] = new Knight(color, new Coordinate(row, 6));
-        board[row][7] = new Rook(color, new Coordinate(row, 7));
+    private void initPieces(int row, Color color) {
+        this.putPiece(new Rook(color, Coordinate.of(row, 0)));
+        this.putPiece(new Knight(color, Coordinate.of(row, 1)));
+        this.putPiece(new Bishop(color, Coordinate.of(row, 2)));
+        this.putPiece(new Bishop(color, Coordinate.of(row, 5)));
+        this.putPiece(new Knight(color, Coordinate.of(row, 6)));
+        this.putPiece(new Rook(color, Coordinate.of(row, 7)));
     }
 }
@@ -0,0 +1,237 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.PieceCode;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A ChessBoard that can be read by any number of threads while moves are being applied
+ * to it. Moves go through a lock, which only ever waits for other moves. After each
+ * move, the writer publishes an immutable, versioned copy of the position: one PieceCode
+ * per square, packed four bits per square into four longs (the same layout as
+ * ChessBoard.writeTo(), read as little-endian longs).
+ *
+ * <p>Readers never lock, spin or retry: they read the latest published copy through a
+ * volatile field, so they always see a position that existed between two moves, and
+ * never delay the move path.
+ */
+public class ConcurrentChessBoard implements IBoardView {
+
+    /**
+     * The number of squares packed into each long.
+     */
+    private static final int SQUARES_PER_WORD = Long.SIZE / 4;
+
+    /**
+     * The number of longs holding the packed position.
+     */
+    private static final int WORDS = ChessBoard.SNAPSHOT_BYTES / Long.BYTES;
+
+    /**
+     * The board moves are applied to; only touched while holding lock.
+     */
+    private final ChessBoard board;
+
+    /**
+     * Serializes moves; readers never take it.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The latest position; replaced, never modified, after each move.
+     */
+    private volatile Position position;
+
+    /**
+     * Constructor for a ConcurrentChessBoard.
+     *
+     * @param board the board to wrap; must not be used directly afterwards
+     */
+    public ConcurrentChessBoard(ChessBoard board) {
+        this.board = board;
+        ByteBuffer buf = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        board.writeTo(buf);
+        buf.flip();
+        long[] words = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = buf.getLong();
+        }
+        this.position = new Position(words, 0);
+    }
+
+    /**
+     * Performs a move (see ChessBoard.move()) and publishes the resulting position.
+     * Concurrent moves are applied one at a time.
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move was able to be completed successfully; false otherwise
+     */
+    public boolean move(Coordinate startPos, Coordinate endPos) {
+        this.lock.lock();
+        try {
+            if (!this.board.move(startPos, endPos)) {
+                return false;
+            }
+            Position current = this.position;
+            long[] words = current.words.clone();
+            this.pack(words, startPos.getSquare());
+            this.pack(words, endPos.getSquare());
+            this.position = new Position(words, current.version + 1);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param square the square to check, numbered row * 8 + col
+     * @return the PieceCode of the piece on the square, as of the latest move
+     */
+    @Override
+    public int getPieceCode(int square) {
+        return unpack(this.position.words, square);
+    }
+
+    /**
+     * Returns a copy of the piece located at the specified position, as of the latest
+     * move. The copy is not connected to the board; moving it has no effect.
+     *
+     * @param pos the position to get the contents of
+     * @return a copy of the piece located at the given position, or null if it is empty
+     * or off the board
+     */
+    @Override
+    public AChessPiece getPiece(Coordinate pos) {
+        if (!Coordinate.isOnBoard(pos.getRow(), pos.getCol())) {
+            return null;
+        }
+        int code = this.getPieceCode(pos.getSquare());
+        return code == PieceCode.EMPTY ? null
+            : PieceCode.typeOf(code).create(PieceCode.colorOf(code), pos);
+    }
+
+    /**
+     * @return the number of moves applied so far
+     */
+    public long getVersion() {
+        return this.position.version;
+    }
+
+    /**
+     * Writes a 32-byte snapshot of the latest position to buf (see ChessBoard.writeTo()),
+     * advancing its position.
+     *
+     * @param buf the buffer to write to
+     * @return the version of the snapshot written
+     * @throws BufferOverflowException if buf has fewer than 32 bytes remaining
+     */
+    public long writeTo(ByteBuffer buf) {
+        if (buf.remaining() < ChessBoard.SNAPSHOT_BYTES) {
+            throw new BufferOverflowException();
+        }
+        Position current = this.position;
+        ByteOrder order = buf.order();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        for (long word : current.words) {
+            buf.putLong(word);
+        }
+        buf.order(order);
+        return current.version;
+    }
+
+    /**
+     * @return a new, independent ChessBoard holding the latest position
+     */
+    public ChessBoard snapshot() {
+        ByteBuffer buf = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        this.writeTo(buf);
+        buf.flip();
+        ChessBoard copy = ChessBoard.empty();
+        copy.readFrom(buf);
+        return copy;
+    }
+
+    /**
+     * Returns a string representation of the latest position, in the same format as
+     * ChessBoard.toString(). Renders the packed position, without building a ChessBoard.
+     *
+     * @return a string representation of the latest position
+     */
+    @Override
+    public String toString() {
+        return BoardRenderer.render(this.position);
+    }
+
+    /**
+     * Updates the packed code of a square from the board. Must hold lock.
+     *
+     * @param words  the packed position to update
+     * @param square the square to update
+     */
+    private void pack(long[] words, int square) {
+        int word = square / SQUARES_PER_WORD;
+        int shift = (square % SQUARES_PER_WORD) * 4;
+        long code = PieceCode.of(this.board.getPiece(square));
+        words[word] = (words[word] & ~(0xFL << shift)) | (code << shift);
+    }
+
+    /**
+     * @param words  a packed position
+     * @param square the square to check, numbered row * 8 + col
+     * @return the PieceCode of the piece on the square
+     */
+    private static int unpack(long[] words, int square) {
+        int shift = (square % SQUARES_PER_WORD) * 4;
+        return (int) (words[square / SQUARES_PER_WORD] >>> shift) & 0xF;
+    }
+
+    /**
+     * An immutable, published position: the packed squares and the number of moves that
+     * led to them. Also a read-only view of the position, for rendering.
+     */
+    private static final class Position implements IBoardView {
+
+        /**
+         * The packed position: square s is in bits 4 * (s % 16) of word s / 16. Never
+         * modified once the Position is published.
+         */
+        private final long[] words;
+
+        /**
+         * The number of moves applied before this position.
+         */
+        private final long version;
+
+        /**
+         * Constructor for a Position.
+         *
+         * @param words   the packed position; not copied
+         * @param version the number of moves applied before it
+         */
+        private Position(long[] words, long version) {
+            this.words = words;
+            this.version = version;
+        }
+
+        @Override
+        public AChessPiece getPiece(Coordinate pos) {
+            if (!Coordinate.isOnBoard(pos.getRow(), pos.getCol())) {
+                return null;
+            }
+            int code = this.getPieceCode(pos.getSquare());
+            return code == PieceCode.EMPTY ? null
+                : PieceCode.typeOf(code).create(PieceCode.colorOf(code), pos);
+        }
+
+        @Override
+        public int getPieceCode(int square) {
+            return unpack(this.words, square);
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package main.rice;
 
 /**
- * A simple class representing a (row, col) coordinate.
+ * A simple, immutable class representing a (row, col) coordinate.
+ *
+ * <p>The 64 coordinates of the standard 8x8 board are interned: Coordinate.of(row, col)
+ * and Coordinate.ofSquare(square) return canonical instances for them instead of
+ * allocating. Those coordinates can also be packed into a single int square number,
+ * row * 8 + col (0..63), for callers that want to skip Coordinate objects entirely.
  */
 public class Coordinate {
 
+    /**
+     * The number of rows/columns of the standard board, whose coordinates are interned.
+     */
+    public static final int DIM = 8;
+
+    /**
+     * Canonical instances of the on-board coordinates, indexed by square number.
+     */
+    private static final Coordinate[] SQUARES = new Coordinate[DIM * DIM];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new Coordinate(square / DIM, square % DIM);
+        }
+    }
+
     /**
      * The row number.
      */
-    private int row;
+    private final int row;
 
     /**
      * The column number.
      */
-    private int col;
+    private final int col;
 
     /**
      * Constructor for a main.rice.Coordinate; stores the row and column numbers.
@@ -25,6 +46,51 @@ public class Coordinate {
         this.col = col;
     }
 
+    /**
+     * Returns the coordinate (row, col): the canonical instance if it lies on the
+     * standard 8x8 board, or a new instance otherwise.
+     *
+     * @param row row number
+     * @param col column number
+     * @return the coordinate (row, col)
+     */
+    public static Coordinate of(int row, int col) {
+        if (isOnBoard(row, col)) {
+            return SQUARES[row * DIM + col];
+        }
+        return new Coordinate(row, col);
+    }
+
+    /**
+     * Returns the canonical coordinate for a packed square number.
+     *
+     * @param square the square number (row * 8 + col), between 0 and 63
+     * @return the coordinate of the square
+     */
+    public static Coordinate ofSquare(int square) {
+        return SQUARES[square];
+    }
+
+    /**
+     * Packs a (row, col) pair on the standard 8x8 board into a square number.
+     *
+     * @param row row number
+     * @param col column number
+     * @return row * 8 + col
+     */
+    public static int toSquare(int row, int col) {
+        return row * DIM + col;
+    }
+
+    /**
+     * @param row row number
+     * @param col column number
+     * @return true if (row, col) lies on the standard 8x8 board; false otherwise
+     */
+    public static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < DIM && col >= 0 && col < DIM;
+    }
+
     /**
      * @return the row number
      */
@@ -39,6 +105,14 @@ public class Coordinate {
         return this.col;
     }
 
+    /**
+     * @return the square number (row * 8 + col) of this coordinate; only meaningful for
+     * coordinates on the standard 8x8 board
+     */
+    public int getSquare() {
+        return this.row * DIM + this.col;
+    }
+
     /**
      * Returns true if this and o are equivalent (based on their row and column values);
      * false otherwise.
@@ -57,4 +131,15 @@ public class Coordinate {
         Coordinate other = (Coordinate)o;
         return (other.getRow() == this.getRow() && other.getCol() == this.getCol());
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with equals(); coordinates on the standard 8x8 board
+     * hash to their square number.
+     *
+     * @return a hash code for this coordinate
+     */
+    @Override
+    public int hashCode() {
+        return this.row * DIM + this.col;
+    }
+}
@@ -0,0 +1,28 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+
+/**
+ * Read-only access to the contents of a standard 8x8 board, shared by the mutable
+ * ChessBoard and the persistent ImmutableChessBoard so that code which only inspects
+ * positions (e.g. BoardRenderer) works with either.
+ */
+public interface IBoardView {
+
+    /**
+     * Returns the chess piece (or null) located at the specified position.
+     *
+     * @param pos the position to get the contents of
+     * @return the piece located at the given position
+     */
+    AChessPiece getPiece(Coordinate pos);
+
+    /**
+     * Returns the contents of a square as a PieceCode, without creating or exposing any
+     * piece object.
+     *
+     * @param square the square to check, numbered row * 8 + col
+     * @return the PieceCode of the piece on the square (PieceCode.EMPTY if none)
+     */
+    int getPieceCode(int square);
+}
@@ -0,0 +1,269 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.MoveTables;
+import main.rice.pieces.PieceCode;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A persistent (immutable) 8x8 chess board for exploring many branches from one
+ * position: move() leaves the board unchanged and returns a new board with the move
+ * applied, so any number of branches can share a parent safely, even across threads.
+ *
+ * <p>Pieces are not stored as AChessPiece objects (which are mutable) but as PieceCodes,
+ * four bits per square, one int per row. A branch therefore costs one small object and
+ * an 8-int row array, no matter how many pieces are on the board, and never copies a
+ * piece. On an 8x8 board, copying the eight row words is as cheap as sharing eight row
+ * references would be, so rows are copied rather than linked.
+ */
+public final class ImmutableChessBoard implements IBoardView {
+
+    /**
+     * The initial position.
+     */
+    private static final ImmutableChessBoard INITIAL = of(new ChessBoard());
+
+    /**
+     * The PieceCodes of each row, four bits per square, column 0 lowest. Never modified.
+     */
+    private final int[] rows;
+
+    /**
+     * Zobrist key of the position; equal to ChessBoard.getZobristKey() for the same
+     * position.
+     */
+    private final long zobristKey;
+
+    /**
+     * Constructor for an ImmutableChessBoard.
+     *
+     * @param rows       the packed rows; owned by the new board from now on
+     * @param zobristKey the Zobrist key of the position
+     */
+    private ImmutableChessBoard(int[] rows, long zobristKey) {
+        this.rows = rows;
+        this.zobristKey = zobristKey;
+    }
+
+    /**
+     * @return the initial position
+     */
+    public static ImmutableChessBoard initial() {
+        return INITIAL;
+    }
+
+    /**
+     * Captures the current position of a mutable board.
+     *
+     * @param board the board to capture
+     * @return an immutable board holding the same position
+     */
+    public static ImmutableChessBoard of(ChessBoard board) {
+        int[] rows = new int[Coordinate.DIM];
+        for (int square = 0; square < MoveTables.SQUARES; square++) {
+            rows[square / Coordinate.DIM] |=
+                board.getPieceCode(square) << ((square % Coordinate.DIM) * 4);
+        }
+        return new ImmutableChessBoard(rows, board.getZobristKey());
+    }
+
+    /**
+     * Returns a new piece equal to the one located at the specified position. The copy is
+     * not connected to this board; moving it has no effect.
+     *
+     * @param pos the position to get the contents of
+     * @return a copy of the piece located at the given position, or null if it is empty
+     * or off the board
+     */
+    @Override
+    public AChessPiece getPiece(Coordinate pos) {
+        if (!Coordinate.isOnBoard(pos.getRow(), pos.getCol())) {
+            return null;
+        }
+        int code = this.getPieceCode(pos.getSquare());
+        return code == PieceCode.EMPTY ? null
+            : PieceCode.typeOf(code).create(PieceCode.colorOf(code), pos);
+    }
+
+    @Override
+    public int getPieceCode(int square) {
+        return (this.rows[square / Coordinate.DIM] >>> ((square % Coordinate.DIM) * 4))
+            & 0xF;
+    }
+
+    /**
+     * @return the Zobrist key of the position (see ChessBoard.getZobristKey())
+     */
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    /**
+     * Checks whether the specified move (from startPos to endPos) is valid, by the same
+     * rules as ChessBoard.isValidMove().
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move is valid; false otherwise
+     */
+    public boolean isValidMove(Coordinate startPos, Coordinate endPos) {
+        return Coordinate.isOnBoard(startPos.getRow(), startPos.getCol())
+            && Coordinate.isOnBoard(endPos.getRow(), endPos.getCol())
+            && this.isValidMove(startPos.getSquare(), endPos.getSquare());
+    }
+
+    /**
+     * Checks whether the specified move (from startSquare to endSquare) is valid. Squares
+     * are numbered row * 8 + col, and both must lie on the board.
+     *
+     * @param startSquare the current square of the piece to be moved
+     * @param endSquare   the prospective destination square of the piece to be moved
+     * @return true if the move is valid; false otherwise
+     */
+    public boolean isValidMove(int startSquare, int endSquare) {
+        // There must be a piece to move
+        int code = this.getPieceCode(startSquare);
+        if (code == PieceCode.EMPTY) {
+            return false;
+        }
+
+        // The move must match the piece's pattern, and nothing may be in the way
+        long path = PieceCode.typeOf(code).getPath(startSquare, endSquare);
+        if (path == MoveTables.INVALID) {
+            return false;
+        }
+        while (path != 0) {
+            if (this.getPieceCode(Long.numberOfTrailingZeros(path)) != PieceCode.EMPTY) {
+                return false;
+            }
+            path &= path - 1;
+        }
+
+        // A piece may capture an opponent's piece, but not one of its own
+        int target = this.getPieceCode(endSquare);
+        return target == PieceCode.EMPTY
+            || PieceCode.colorOf(target) != PieceCode.colorOf(code);
+    }
+
+    /**
+     * Returns the board that results from the specified move, leaving this board as it
+     * is.
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return the board after the move, or this board if the move is invalid
+     */
+    public ImmutableChessBoard move(Coordinate startPos, Coordinate endPos) {
+        if (!this.isValidMove(startPos, endPos)) {
+            return this;
+        }
+        return this.apply(startPos.getSquare(), endPos.getSquare());
+    }
+
+    /**
+     * Returns the board that results from the specified move, leaving this board as it
+     * is. Squares are numbered row * 8 + col, and both must lie on the board.
+     *
+     * @param startSquare the current square of the piece to be moved
+     * @param endSquare   the prospective destination square of the piece to be moved
+     * @return the board after the move, or this board if the move is invalid
+     */
+    public ImmutableChessBoard move(int startSquare, int endSquare) {
+        if (!this.isValidMove(startSquare, endSquare)) {
+            return this;
+        }
+        return this.apply(startSquare, endSquare);
+    }
+
+    /**
+     * @return a new, mutable ChessBoard holding this position
+     */
+    public ChessBoard toChessBoard() {
+        ByteBuffer buf = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        for (int row : this.rows) {
+            for (int shift = 0; shift < Integer.SIZE; shift += 8) {
+                buf.put((byte) (row >>> shift));
+            }
+        }
+        buf.flip();
+        ChessBoard board = ChessBoard.empty();
+        board.readFrom(buf);
+        return board;
+    }
+
+    /**
+     * Checks if this board holds the same position as another.
+     *
+     * @param o the object to compare against
+     * @return true if o is an ImmutableChessBoard with the same piece on every square
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableChessBoard)) {
+            return false;
+        }
+        ImmutableChessBoard other = (ImmutableChessBoard) o;
+        return other.zobristKey == this.zobristKey
+            && Arrays.equals(other.rows, this.rows);
+    }
+
+    /**
+     * Returns a hash code consistent with equals(), derived from the Zobrist key.
+     *
+     * @return the hash code of this board
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobristKey);
+    }
+
+    /**
+     * Returns a string representation of the board, in the same format as
+     * ChessBoard.toString().
+     *
+     * @return a string representation of the board
+     */
+    @Override
+    public String toString() {
+        return BoardRenderer.render(this);
+    }
+
+    /**
+     * Builds the board after a valid move.
+     *
+     * @param from the square the piece moves from
+     * @param to   the square the piece moves to
+     * @return the new board
+     */
+    private ImmutableChessBoard apply(int from, int to) {
+        int code = this.getPieceCode(from);
+        int target = this.getPieceCode(to);
+        long key = this.zobristKey ^ squareKey(code, from) ^ squareKey(code, to);
+        if (target != PieceCode.EMPTY) {
+            key ^= squareKey(target, to);
+        }
+
+        // Copy the rows (8 ints), then empty the start square and fill the end square
+        int[] next = this.rows.clone();
+        int fromShift = (from % Coordinate.DIM) * 4;
+        int toShift = (to % Coordinate.DIM) * 4;
+        next[from / Coordinate.DIM] &= ~(0xF << fromShift);
+        next[to / Coordinate.DIM] =
+            (next[to / Coordinate.DIM] & ~(0xF << toShift)) | (code << toShift);
+        return new ImmutableChessBoard(next, key);
+    }
+
+    /**
+     * @param code   the code of a piece (not EMPTY)
+     * @param square the square it stands on
+     * @return the Zobrist key of the piece on the square
+     */
+    private static long squareKey(int code, int square) {
+        return Zobrist.key(PieceCode.colorOf(code), PieceCode.typeOf(code), square);
+    }
+}
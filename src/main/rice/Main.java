@@ -1,5 +1,6 @@
 package main.rice;
 
+import org.junit.platform.engine.discovery.ClassSelector;
 import org.junit.platform.launcher.Launcher;
 import org.junit.platform.launcher.LauncherDiscoveryRequest;
 import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
@@ -13,13 +14,38 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Simple Main class that programmatically executes all test cases in ChessBoardTest.java
- * and prints the results.
+ * (and the other test classes listed below) and prints the results.
  */
 public class Main {
 
+    /**
+     * Fully-qualified names of the test classes to run.
+     */
+    private static final String[] TEST_CLASSES = {
+        "test.rice.BoardPoolTest",
+        "test.rice.BoardRendererTest",
+        "test.rice.ChessBoardTest",
+        "test.rice.ConcurrentChessBoardTest",
+        "test.rice.ImmutableChessBoardTest",
+        "test.rice.SparseChessBoardTest",
+        "test.rice.StorageEngineTest",
+        "test.rice.analysis.PerftTest",
+        "test.rice.analysis.ReplayTest",
+        "test.rice.analysis.SearchTest",
+        "test.rice.analysis.TablebaseTest",
+        "test.rice.events.MoveEventPublisherTest",
+        "test.rice.io.MoveJournalTest",
+        "test.rice.io.SnapshotFilesTest",
+        "test.rice.metrics.MoveMetricsTest",
+        "test.rice.session.GameSessionManagerTest",
+        "test.rice.storage.PositionStoreTest",
+    };
+
     /**
      * Simple main method that programmatically executes all test cases in
      * ChessBoardTest.java and pretty-prints the results.
@@ -48,9 +74,12 @@ public class Main {
         for (URL url2 : loader.getURLs()) {
             System.out.println(url2);
         }
-        Class<?> c = loader.loadClass("test.rice.ChessBoardTest");
+        List<ClassSelector> selectors = new ArrayList<>();
+        for (String name : TEST_CLASSES) {
+            selectors.add(selectClass(loader.loadClass(name)));
+        }
         LauncherDiscoveryRequest request =
-            LauncherDiscoveryRequestBuilder.request().selectors(selectClass(c)).build();
+            LauncherDiscoveryRequestBuilder.request().selectors(selectors).build();
 
         // Execute the request to run all tests
         SummaryGeneratingListener listener = new SummaryGeneratingListener();
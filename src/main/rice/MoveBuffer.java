@@ -0,0 +1,126 @@
+package main.rice;
+
+import java.util.Arrays;
+
+/**
+ * A caller-owned, reusable buffer of moves, each encoded as a single int. The buffer only
+ * grows when a call needs more room than any previous one, so filling it repeatedly
+ * (e.g. once per position while walking a move tree) creates no garbage.
+ *
+ * <p>A move is encoded as (from | to &lt;&lt; 6 | capture flag &lt;&lt; 12), where from
+ * and to are square numbers (row * 8 + col) on the standard 8x8 board.
+ */
+public class MoveBuffer {
+
+    /**
+     * Bit that is set in an encoded move iff the move captures an opponent's piece.
+     */
+    public static final int CAPTURE_FLAG = 1 << 12;
+
+    /**
+     * The encoded moves; only the first size entries are meaningful.
+     */
+    private int[] moves;
+
+    /**
+     * The number of moves currently in the buffer.
+     */
+    private int size;
+
+    /**
+     * Constructor for a MoveBuffer; creates a buffer with room for a typical position's
+     * worth of moves.
+     */
+    public MoveBuffer() {
+        this(64);
+    }
+
+    /**
+     * Constructor for a MoveBuffer.
+     *
+     * @param capacity the initial number of moves the buffer can hold
+     */
+    public MoveBuffer(int capacity) {
+        this.moves = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Encodes a move.
+     *
+     * @param from    the square the piece moves from
+     * @param to      the square the piece moves to
+     * @param capture true if the move captures an opponent's piece
+     * @return the encoded move
+     */
+    public static int encode(int from, int to, boolean capture) {
+        return from | (to << 6) | (capture ? CAPTURE_FLAG : 0);
+    }
+
+    /**
+     * @param move an encoded move
+     * @return the square the piece moves from
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * @param move an encoded move
+     * @return the square the piece moves to
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @param move an encoded move
+     * @return true if the move captures an opponent's piece
+     */
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE_FLAG) != 0;
+    }
+
+    /**
+     * Appends an encoded move, growing the buffer if needed.
+     *
+     * @param move the encoded move to append
+     */
+    public void add(int move) {
+        if (this.size == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+        }
+        this.moves[this.size++] = move;
+    }
+
+    /**
+     * @param index the index of the move to get, between 0 and size() - 1
+     * @return the encoded move at the given index
+     */
+    public int get(int index) {
+        return this.moves[index];
+    }
+
+    /**
+     * Overwrites the move at the given index; e.g. to reorder moves in place.
+     *
+     * @param index the index of the move to set, between 0 and size() - 1
+     * @param move  the encoded move to store
+     */
+    public void set(int index, int move) {
+        this.moves[index] = move;
+    }
+
+    /**
+     * @return the number of moves in the buffer
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity for reuse.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+}
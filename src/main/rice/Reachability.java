@@ -0,0 +1,125 @@
+package main.rice;
+
+import main.rice.pieces.MoveTables;
+import main.rice.pieces.PieceType;
+
+/**
+ * Multi-move reachability for a single piece on a standard 8x8 board whose other pieces
+ * stay where they are. Computed by a breadth-first search over bitboards: each layer of
+ * the search is the mask of squares first reached after that many moves, so the whole
+ * search state fits in a few longs and a query allocates nothing.
+ *
+ * <p>The moving piece may not pass through or land on a friendly piece, sliding pieces
+ * may not pass through any piece, and landing on an opposing piece captures it and ends
+ * the walk there.
+ */
+final class Reachability {
+
+    /**
+     * Private constructor; this class only holds static methods.
+     */
+    private Reachability() {
+    }
+
+    /**
+     * Computes the squares a piece can reach in at most maxMoves moves.
+     *
+     * @param type     the type of the moving piece
+     * @param from     the square of the moving piece
+     * @param occupied the squares occupied by any piece, including the moving one
+     * @param enemies  the squares occupied by opposing pieces
+     * @param maxMoves the largest number of moves to make
+     * @return a mask of the squares reachable in 1 to maxMoves moves; never includes from
+     */
+    static long reachable(PieceType type, int from, long occupied, long enemies,
+        int maxMoves) {
+        long start = 1L << from;
+        long others = occupied & ~start;
+        long friends = others & ~enemies;
+        long reached = start;
+        long frontier = start;
+        for (int moves = 0; moves < maxMoves && frontier != 0; moves++) {
+            long next = step(type, frontier, others, friends | reached);
+            reached |= next;
+
+            // Captures end the walk
+            frontier = next & ~enemies;
+        }
+        return reached & ~start;
+    }
+
+    /**
+     * Computes the least number of moves a piece needs to get from one square to
+     * another.
+     *
+     * @param type     the type of the moving piece
+     * @param from     the square of the moving piece
+     * @param to       the square to reach
+     * @param occupied the squares occupied by any piece, including the moving one
+     * @param enemies  the squares occupied by opposing pieces
+     * @return the number of moves (0 if from == to), or MoveTables.UNREACHABLE
+     */
+    static int distance(PieceType type, int from, int to, long occupied, long enemies) {
+        if (from == to) {
+            return 0;
+        }
+        long start = 1L << from;
+        long target = 1L << to;
+        long others = occupied & ~start;
+
+        // Other pieces can only lengthen the way, and only by standing somewhere in
+        // between: with none there, the empty-board table is exact
+        int lowerBound = type.getDistance(from, to);
+        if (lowerBound == MoveTables.UNREACHABLE || (others & target & ~enemies) != 0) {
+            return MoveTables.UNREACHABLE;
+        }
+        if ((others & ~target) == 0) {
+            return lowerBound;
+        }
+
+        long friends = others & ~enemies;
+        long reached = start;
+        long frontier = start;
+        for (int moves = 1; frontier != 0; moves++) {
+            long next = step(type, frontier, others, friends | reached);
+            if ((next & target) != 0) {
+                return moves;
+            }
+            reached |= next;
+            frontier = next & ~enemies;
+        }
+        return MoveTables.UNREACHABLE;
+    }
+
+    /**
+     * Expands one layer of the search.
+     *
+     * @param type     the type of the moving piece
+     * @param frontier the squares to move from
+     * @param others   the squares occupied by pieces other than the moving one
+     * @param excluded the squares not to move to
+     * @return the squares reachable in one move from any square of frontier, less
+     * excluded
+     */
+    private static long step(PieceType type, long frontier, long others, long excluded) {
+        long next = 0;
+        while (frontier != 0) {
+            int from = Long.numberOfTrailingZeros(frontier);
+            frontier &= frontier - 1;
+            long targets = type.getTargetMask(from) & ~excluded & ~next;
+            if (type == PieceType.KNIGHT) {
+                // Knights jump, so nothing can be in the way
+                next |= targets;
+                continue;
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if ((type.getPath(from, to) & others) == 0) {
+                    next |= 1L << to;
+                }
+            }
+        }
+        return next;
+    }
+}
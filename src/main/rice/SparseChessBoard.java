@@ -0,0 +1,160 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.PieceType;
+import main.rice.storage.SparseBoardStorage;
+
+/**
+ * A variant chess board with a configurable dimension (e.g. 1,000 x 1,000 or larger),
+ * intended for boards holding a few hundred pieces. It uses the same pieces and move
+ * rules as ChessBoard, but is backed by a SparseBoardStorage: memory grows with the
+ * number of pieces, and checking a Rook or Bishop path costs a binary search over the
+ * pieces on that line instead of a walk along the path.
+ *
+ * <p>ChessBoard itself stays fixed at 8x8, since its move tables, attack maps, Zobrist
+ * keys and snapshots are all built around 64 squares.
+ */
+public class SparseChessBoard {
+
+    /**
+     * Dimensions of the board (number of rows/columns).
+     */
+    private final int dim;
+
+    /**
+     * Representation of the board.
+     */
+    private final SparseBoardStorage board;
+
+    /**
+     * Constructor for a SparseChessBoard; creates an empty dim x dim board.
+     *
+     * @param dim the number of rows/columns
+     * @throws IllegalArgumentException if dim is not positive
+     */
+    public SparseChessBoard(int dim) {
+        this.dim = dim;
+        this.board = new SparseBoardStorage(dim);
+    }
+
+    /**
+     * @return the number of rows/columns
+     */
+    public int getDim() {
+        return this.dim;
+    }
+
+    /**
+     * @return the number of pieces on the board
+     */
+    public int getPieceCount() {
+        return this.board.size();
+    }
+
+    /**
+     * Places a piece on the board at its current position.
+     *
+     * @param piece the piece to place
+     * @throws IllegalArgumentException if the piece's position is off the board or
+     *                                  already occupied
+     */
+    public void addPiece(AChessPiece piece) {
+        Coordinate pos = piece.getPosition();
+        if (!this.isInBounds(pos)) {
+            throw new IllegalArgumentException("Off the board: " + pos.getRow() + ", "
+                + pos.getCol());
+        }
+        if (this.board.get(pos.getRow(), pos.getCol()) != null) {
+            throw new IllegalArgumentException("Already occupied: " + pos.getRow() + ", "
+                + pos.getCol());
+        }
+        this.board.put(pos.getRow(), pos.getCol(), piece);
+    }
+
+    /**
+     * Removes the piece (if any) at the specified position.
+     *
+     * @param pos the position to empty
+     * @return the removed piece, or null if the position was empty or off the board
+     */
+    public AChessPiece removePiece(Coordinate pos) {
+        AChessPiece piece = this.getPiece(pos);
+        if (piece != null) {
+            this.board.remove(pos.getRow(), pos.getCol());
+        }
+        return piece;
+    }
+
+    /**
+     * Returns the chess piece (or null) located at the specified position.
+     *
+     * @param pos the position to get the contents of
+     * @return the piece located at the given position, or null if it is empty or off
+     * the board
+     */
+    public AChessPiece getPiece(Coordinate pos) {
+        if (!this.isInBounds(pos)) {
+            return null;
+        }
+        return this.board.get(pos.getRow(), pos.getCol());
+    }
+
+    /**
+     * Performs the specified move (from startPos to endPos) iff it is valid, updating
+     * both the board as well as the piece's notion of its location.
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move was able to be completed successfully; false otherwise
+     */
+    public boolean move(Coordinate startPos, Coordinate endPos) {
+        if (!this.isValidMove(startPos, endPos)) {
+            return false;
+        }
+
+        AChessPiece piece = this.board.get(startPos.getRow(), startPos.getCol());
+        this.board.remove(endPos.getRow(), endPos.getCol());
+        this.board.remove(startPos.getRow(), startPos.getCol());
+        piece.move(Coordinate.of(endPos.getRow(), endPos.getCol()));
+        this.board.put(endPos.getRow(), endPos.getCol(), piece);
+        return true;
+    }
+
+    /**
+     * Checks whether the specified move (from startPos to endPos) is valid, without
+     * performing it: there must be a piece at startPos, the move must match its pattern,
+     * no piece may stand in between, and endPos must be empty or hold an opposing piece.
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move is valid; false otherwise
+     */
+    public boolean isValidMove(Coordinate startPos, Coordinate endPos) {
+        // Check that both positions are on the board and that there is a piece to move
+        AChessPiece piece = this.getPiece(startPos);
+        if (piece == null || !this.isInBounds(endPos) || !piece.matchesMove(endPos)) {
+            return false;
+        }
+
+        // Check that the path is clear; a Knight jumps over everything
+        if (piece.getType() != PieceType.KNIGHT && !this.board.isPathClear(
+            startPos.getRow(), startPos.getCol(), endPos.getRow(), endPos.getCol())) {
+            return false;
+        }
+
+        // Check that the destination is empty or holds an opposing piece
+        AChessPiece target = this.board.get(endPos.getRow(), endPos.getCol());
+        return target == null || target.getColor() != piece.getColor();
+    }
+
+    /**
+     * Checks if the given coordinate is within the bounds of the board.
+     *
+     * @param pos the coordinate to check
+     * @return true if pos is in bounds; false otherwise
+     */
+    private boolean isInBounds(Coordinate pos) {
+        return pos.getRow() >= 0 && pos.getRow() < this.dim && pos.getCol() >= 0
+            && pos.getCol() < this.dim;
+    }
+}
@@ -0,0 +1,103 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+
+import java.util.Arrays;
+
+/**
+ * A stack of undo records for ChessBoard.makeMove/unmakeMove. Each record holds the
+ * encoded move (and therefore its from-square), the piece it captured (or null), and the
+ * moving piece's previous Coordinate. Records are kept in parallel arrays that only grow,
+ * so pushing and popping allocate nothing once the stack has reached its working depth.
+ */
+class UndoStack {
+
+    /**
+     * The encoded move of each record (see MoveBuffer).
+     */
+    private int[] moves = new int[32];
+
+    /**
+     * The piece captured by each record's move, or null.
+     */
+    private AChessPiece[] captured = new AChessPiece[32];
+
+    /**
+     * The moving piece's position before each record's move.
+     */
+    private Coordinate[] positions = new Coordinate[32];
+
+    /**
+     * The number of records on the stack.
+     */
+    private int size;
+
+    /**
+     * Pushes a new record onto the stack.
+     *
+     * @param move          the encoded move being made
+     * @param capturedPiece the piece captured by the move, or null
+     * @param position      the moving piece's position before the move
+     */
+    void push(int move, AChessPiece capturedPiece, Coordinate position) {
+        if (this.size == this.moves.length) {
+            int capacity = this.size * 2;
+            this.moves = Arrays.copyOf(this.moves, capacity);
+            this.captured = Arrays.copyOf(this.captured, capacity);
+            this.positions = Arrays.copyOf(this.positions, capacity);
+        }
+        this.moves[this.size] = move;
+        this.captured[this.size] = capturedPiece;
+        this.positions[this.size] = position;
+        this.size++;
+    }
+
+    /**
+     * Discards the top record.
+     *
+     * @throws IllegalStateException if the stack is empty
+     */
+    void pop() {
+        if (this.size == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        this.size--;
+        this.captured[this.size] = null;
+    }
+
+    /**
+     * @return the encoded move of the top record
+     */
+    int peekMove() {
+        return this.moves[this.size - 1];
+    }
+
+    /**
+     * @return the piece captured by the top record's move, or null
+     */
+    AChessPiece peekCaptured() {
+        return this.captured[this.size - 1];
+    }
+
+    /**
+     * @return the moving piece's position before the top record's move
+     */
+    Coordinate peekPosition() {
+        return this.positions[this.size - 1];
+    }
+
+    /**
+     * @return the number of records on the stack
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Discards all records.
+     */
+    void clear() {
+        Arrays.fill(this.captured, 0, this.size, null);
+        this.size = 0;
+    }
+}
@@ -0,0 +1,76 @@
+package main.rice;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for incrementally hashing board positions. Every (color, type, square)
+ * combination gets a fixed random 64-bit key, and a position's key is the XOR of the
+ * keys of its pieces, so placing or removing a piece updates it with a single XOR. The
+ * keys come from a fixed seed, so they are the same in every run.
+ */
+public final class Zobrist {
+
+    /**
+     * The number of squares that keys are precomputed for.
+     */
+    private static final int SQUARES = Coordinate.DIM * Coordinate.DIM;
+
+    /**
+     * Key to XOR in when it is White's turn; the board itself does not track whose turn
+     * it is, so searches that care add this themselves.
+     */
+    public static final long WHITE_TO_MOVE;
+
+    /**
+     * Piece keys, indexed by ((color ordinal * number of types) + type ordinal) * 64 +
+     * square.
+     */
+    private static final long[] KEYS =
+        new long[Color.COUNT * PieceType.COUNT * SQUARES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_2020_CAFEL);
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = random.nextLong();
+        }
+        WHITE_TO_MOVE = random.nextLong();
+    }
+
+    /**
+     * Private constructor; this class only holds static keys.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * @param piece  the piece
+     * @param square the square (row * 8 + col) the piece is on
+     * @return the key for the given piece standing on the given square
+     */
+    public static long key(AChessPiece piece, int square) {
+        return key(piece.getColor(), piece.getType(), square);
+    }
+
+    /**
+     * @param color  the color of the piece
+     * @param type   the type of the piece
+     * @param square the square (row * 8 + col) the piece is on
+     * @return the key for a piece of the given color and type standing on the square
+     */
+    public static long key(Color color, PieceType type, int square) {
+        int piece = color.ordinal() * PieceType.COUNT + type.ordinal();
+        return KEYS[piece * SQUARES + square];
+    }
+
+    /**
+     * @param color the color to move
+     * @return the key to XOR into a position key to account for whose turn it is
+     */
+    public static long sideKey(Color color) {
+        return color == Color.WHITE ? WHITE_TO_MOVE : 0;
+    }
+}
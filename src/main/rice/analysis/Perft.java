@@ -0,0 +1,347 @@
+package main.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.MoveBuffer;
+import main.rice.Zobrist;
+import main.rice.pieces.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft-style move-tree enumeration: counts the positions reachable in exactly depth
+ * plies (half-moves), with the two colors taking turns. The counts double as a
+ * correctness check for move generation and make/unmake, and as a throughput benchmark.
+ *
+ * <p>Enumeration can run on the calling thread or on a ForkJoinPool, in which case the
+ * work is split at the root moves and each task walks its subtree on its own copy of the
+ * board. Either mode can share a TranspositionTable, so that subtrees reached again by a
+ * different move order are counted only once.
+ */
+public final class Perft {
+
+    /**
+     * The result of a timed enumeration.
+     */
+    public static class Result {
+
+        /**
+         * The number of positions counted.
+         */
+        private final long nodes;
+
+        /**
+         * The wall-clock time taken, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Constructor for a Result.
+         *
+         * @param nodes the number of positions counted
+         * @param nanos the wall-clock time taken, in nanoseconds
+         */
+        Result(long nodes, long nanos) {
+            this.nodes = nodes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the number of positions counted
+         */
+        public long getNodes() {
+            return this.nodes;
+        }
+
+        /**
+         * @return the wall-clock time taken, in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the throughput of the enumeration, in positions per second
+         */
+        public double getNodesPerSecond() {
+            return this.nanos == 0 ? 0 : this.nodes * 1e9 / this.nanos;
+        }
+
+        /**
+         * @return a one-line summary of this result
+         */
+        @Override
+        public String toString() {
+            return String.format("%d nodes in %.3f s (%.0f nodes/s)", this.nodes,
+                this.nanos / 1e9, this.getNodesPerSecond());
+        }
+    }
+
+    /**
+     * Private constructor; this class only holds static methods.
+     */
+    private Perft() {
+    }
+
+    /**
+     * Counts the positions reachable from board in exactly depth plies, on the calling
+     * thread. The board is walked with makeMove/unmakeMove and is left unchanged.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @return the number of positions reached
+     */
+    public static long count(ChessBoard board, Color toMove, int depth) {
+        return count(board, toMove, depth, newBuffers(depth), null);
+    }
+
+    /**
+     * Counts the positions reachable from board in exactly depth plies, on the calling
+     * thread, reusing (and recording) subtree counts in the given table.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @param table  the table of subtree counts to share
+     * @return the number of positions reached
+     */
+    public static long count(ChessBoard board, Color toMove, int depth,
+        TranspositionTable table) {
+        return count(board, toMove, depth, newBuffers(depth), table);
+    }
+
+    /**
+     * Counts the positions reachable from board in exactly depth plies, splitting the
+     * work at the root moves across the given pool. The board itself is left untouched;
+     * each task works on its own copy.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @param pool   the pool to run the root-move tasks on
+     * @return the number of positions reached
+     */
+    public static long countParallel(ChessBoard board, Color toMove, int depth,
+        ForkJoinPool pool) {
+        return countParallel(board, toMove, depth, pool, null);
+    }
+
+    /**
+     * Counts the positions reachable from board in exactly depth plies, splitting the
+     * work at the root moves across the given pool. All tasks share the given table of
+     * subtree counts, which is safe because the table is lock-free.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @param pool   the pool to run the root-move tasks on
+     * @param table  the table of subtree counts to share, or null for none
+     * @return the number of positions reached
+     */
+    public static long countParallel(ChessBoard board, Color toMove, int depth,
+        ForkJoinPool pool, TranspositionTable table) {
+        if (depth <= 1) {
+            return count(board, toMove, depth, newBuffers(depth), table);
+        }
+
+        MoveBuffer rootMoves = new MoveBuffer();
+        board.generateMoves(toMove, rootMoves);
+        List<RootTask> tasks = new ArrayList<>(rootMoves.size());
+        for (int i = 0; i < rootMoves.size(); i++) {
+            RootTask task = new RootTask(board, rootMoves.get(i), toMove, depth, table);
+            pool.execute(task);
+            tasks.add(task);
+        }
+
+        long nodes = 0;
+        for (RootTask task : tasks) {
+            nodes += task.join();
+        }
+        return nodes;
+    }
+
+    /**
+     * Times count() on the calling thread.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @return the node count and the time taken
+     */
+    public static Result run(ChessBoard board, Color toMove, int depth) {
+        long start = System.nanoTime();
+        long nodes = count(board, toMove, depth);
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Times countParallel() on the given pool.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @param pool   the pool to run the root-move tasks on
+     * @return the node count and the time taken
+     */
+    public static Result runParallel(ChessBoard board, Color toMove, int depth,
+        ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long nodes = countParallel(board, toMove, depth, pool);
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs perft from the initial position and prints the throughput of the
+     * single-threaded mode and of the fork-join mode at 1, 2, 4, ... threads.
+     *
+     * @param args optional: the depth (default 4) and the maximum number of threads
+     *             (default: the number of available processors)
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        ChessBoard board = new ChessBoard();
+
+        System.out.println("depth " + depth + ", single-threaded: "
+            + run(board, Color.WHITE, depth));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                System.out.println("depth " + depth + ", " + threads + " thread(s): "
+                    + runParallel(board, Color.WHITE, depth, pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        long start = System.nanoTime();
+        long nodes = count(board, Color.WHITE, depth, new TranspositionTable(64 << 20));
+        System.out.println("depth " + depth + ", single-threaded with 64 MB table: "
+            + new Result(nodes, System.nanoTime() - start));
+    }
+
+    /**
+     * Recursive helper for count(); uses one preallocated buffer per ply so the walk
+     * creates no garbage.
+     *
+     * @param board   the position to count from; restored before returning
+     * @param toMove  the color to move
+     * @param depth   the number of plies left
+     * @param buffers the move buffer for each remaining ply, indexed by depth
+     * @param table   the table of subtree counts to share, or null for none
+     * @return the number of positions reached
+     */
+    private static long count(ChessBoard board, Color toMove, int depth,
+        MoveBuffer[] buffers, TranspositionTable table) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        // Reuse the count if this position was already counted to the same depth
+        long key = board.getZobristKey() ^ Zobrist.sideKey(toMove);
+        if (table != null && depth > 1) {
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS
+                && TranspositionTable.depthOf(entry) == depth) {
+                return TranspositionTable.payloadOf(entry);
+            }
+        }
+
+        // At the last ply, the number of moves is the number of positions
+        MoveBuffer moves = buffers[depth];
+        int numMoves = board.generateMoves(toMove, moves);
+        if (depth == 1) {
+            return numMoves;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(board, toMove.opposite(), depth - 1, buffers, table);
+            board.unmakeMove();
+        }
+        if (table != null) {
+            table.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * @param depth the number of plies to allocate buffers for
+     * @return one move buffer per ply, indexed by depth (index 0 is unused)
+     */
+    private static MoveBuffer[] newBuffers(int depth) {
+        MoveBuffer[] buffers = new MoveBuffer[Math.max(depth, 0) + 1];
+        for (int i = 1; i < buffers.length; i++) {
+            buffers[i] = new MoveBuffer();
+        }
+        return buffers;
+    }
+
+    /**
+     * Fork-join task that counts the subtree below one root move on a private copy of
+     * the board.
+     */
+    private static class RootTask extends RecursiveTask<Long> {
+
+        /**
+         * Version of the serialized form inherited from ForkJoinTask.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The root position; only read, to make the copy.
+         */
+        private final ChessBoard root;
+
+        /**
+         * The root move whose subtree this task counts.
+         */
+        private final int move;
+
+        /**
+         * The color making the root move.
+         */
+        private final Color toMove;
+
+        /**
+         * The depth of the whole enumeration, including the root move.
+         */
+        private final int depth;
+
+        /**
+         * The table of subtree counts shared by all tasks, or null for none.
+         */
+        private final TranspositionTable table;
+
+        /**
+         * Constructor for a RootTask.
+         *
+         * @param root   the root position
+         * @param move   the root move whose subtree to count
+         * @param toMove the color making the root move
+         * @param depth  the depth of the whole enumeration
+         * @param table  the table of subtree counts to share, or null for none
+         */
+        RootTask(ChessBoard root, int move, Color toMove, int depth,
+            TranspositionTable table) {
+            this.root = root;
+            this.move = move;
+            this.toMove = toMove;
+            this.depth = depth;
+            this.table = table;
+        }
+
+        @Override
+        protected Long compute() {
+            ChessBoard board = this.root.copy();
+            board.makeMove(this.move);
+            return count(board, this.toMove.opposite(), this.depth - 1,
+                newBuffers(this.depth - 1), this.table);
+        }
+    }
+}
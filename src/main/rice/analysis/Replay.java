@@ -0,0 +1,423 @@
+package main.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.io.GameLogReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Re-validates archived games against the current move rules: every game in a game log
+ * (see main.rice.io.GameLogWriter) is replayed from the initial position through
+ * ChessBoard.move(), and the first move each game gets rejected on is reported.
+ *
+ * <p>The calling thread streams the log through a GameLogReader and hands batches of
+ * games to worker threads through a bounded queue, so memory use stays flat no matter
+ * how large the log is, and a slow worker pool holds the reader back instead of letting
+ * batches pile up. While waiting for room in the queue, the reader checks on the
+ * workers, so a worker that fails stops the replay instead of leaving the reader
+ * waiting for it forever.
+ */
+public final class Replay {
+
+    /**
+     * The first illegal move found in a game.
+     */
+    public static class IllegalMove {
+
+        /**
+         * The id of the game.
+         */
+        private final long gameId;
+
+        /**
+         * The index of the move in the game, starting at 0.
+         */
+        private final int moveIndex;
+
+        /**
+         * The start position of the move.
+         */
+        private final Coordinate from;
+
+        /**
+         * The end position of the move.
+         */
+        private final Coordinate to;
+
+        /**
+         * Constructor for an IllegalMove.
+         *
+         * @param gameId    the id of the game
+         * @param moveIndex the index of the move in the game
+         * @param from      the start position of the move
+         * @param to        the end position of the move
+         */
+        IllegalMove(long gameId, int moveIndex, Coordinate from, Coordinate to) {
+            this.gameId = gameId;
+            this.moveIndex = moveIndex;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return the id of the game
+         */
+        public long getGameId() {
+            return this.gameId;
+        }
+
+        /**
+         * @return the index of the move in the game, starting at 0
+         */
+        public int getMoveIndex() {
+            return this.moveIndex;
+        }
+
+        /**
+         * @return the start position of the move
+         */
+        public Coordinate getFrom() {
+            return this.from;
+        }
+
+        /**
+         * @return the end position of the move
+         */
+        public Coordinate getTo() {
+            return this.to;
+        }
+
+        /**
+         * @return a one-line description of this move
+         */
+        @Override
+        public String toString() {
+            return "game " + this.gameId + ", move " + this.moveIndex + ": ("
+                + this.from.getRow() + ", " + this.from.getCol() + ") -> ("
+                + this.to.getRow() + ", " + this.to.getCol() + ")";
+        }
+    }
+
+    /**
+     * The result of a replay.
+     */
+    public static class Result {
+
+        /**
+         * The number of games replayed.
+         */
+        private final long games;
+
+        /**
+         * The number of moves applied or rejected.
+         */
+        private final long moves;
+
+        /**
+         * The wall-clock time taken, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * The first illegal move of each game that has one, ordered by game id.
+         */
+        private final List<IllegalMove> illegalMoves;
+
+        /**
+         * Constructor for a Result.
+         *
+         * @param games        the number of games replayed
+         * @param moves        the number of moves applied or rejected
+         * @param nanos        the wall-clock time taken, in nanoseconds
+         * @param illegalMoves the first illegal move of each game that has one
+         */
+        Result(long games, long moves, long nanos, List<IllegalMove> illegalMoves) {
+            this.games = games;
+            this.moves = moves;
+            this.nanos = nanos;
+            this.illegalMoves = illegalMoves;
+        }
+
+        /**
+         * @return the number of games replayed
+         */
+        public long getGames() {
+            return this.games;
+        }
+
+        /**
+         * @return the number of moves applied, plus one per illegal game for the move it
+         * was rejected on
+         */
+        public long getMoves() {
+            return this.moves;
+        }
+
+        /**
+         * @return the wall-clock time taken, in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the first illegal move of each game that has one, ordered by game id
+         */
+        public List<IllegalMove> getIllegalMoves() {
+            return this.illegalMoves;
+        }
+
+        /**
+         * @return the throughput of the replay, in games per second
+         */
+        public double getGamesPerSecond() {
+            return this.nanos == 0 ? 0 : this.games * 1e9 / this.nanos;
+        }
+
+        /**
+         * @return the throughput of the replay, in moves per second
+         */
+        public double getMovesPerSecond() {
+            return this.nanos == 0 ? 0 : this.moves * 1e9 / this.nanos;
+        }
+
+        /**
+         * @return a one-line summary of this result
+         */
+        @Override
+        public String toString() {
+            return String.format("%d games, %d moves, %d illegal in %.3f s "
+                    + "(%.0f games/s, %.0f moves/s)", this.games, this.moves,
+                this.illegalMoves.size(), this.nanos / 1e9, this.getGamesPerSecond(),
+                this.getMovesPerSecond());
+        }
+    }
+
+    /**
+     * The number of games handed to a worker at a time.
+     */
+    private static final int GAMES_PER_BATCH = 512;
+
+    /**
+     * Marks the end of the batches for a worker.
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    /**
+     * How long the reader waits for room in the queue before checking on the workers.
+     */
+    private static final long OFFER_MILLIS = 50;
+
+    /**
+     * Private constructor; this class only holds static methods.
+     */
+    private Replay() {
+    }
+
+    /**
+     * Replays every game in a log, each on a new ChessBoard.
+     *
+     * @param log     the game log to replay
+     * @param threads the number of worker threads
+     * @return the games and moves replayed, the illegal moves found and the time taken
+     * @throws IOException           if the log cannot be read or is corrupt
+     * @throws IllegalStateException if a worker fails
+     */
+    public static Result run(Path log, int threads) throws IOException {
+        return run(log, threads, ChessBoard::new);
+    }
+
+    /**
+     * Replays every game in a log. If a worker fails, the log is no longer read, the
+     * other workers are interrupted, and the failure is rethrown.
+     *
+     * @param log     the game log to replay
+     * @param threads the number of worker threads
+     * @param boards  supplies a board in the initial position for each game; called
+     *                concurrently by the workers
+     * @return the games and moves replayed, the illegal moves found and the time taken
+     * @throws IOException           if the log cannot be read or is corrupt
+     * @throws IllegalStateException if a worker fails
+     */
+    public static Result run(Path log, int threads, Supplier<ChessBoard> boards)
+        throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<ByteBuffer> batches = new ArrayBlockingQueue<>(2 * threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Worker>> futures = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(new Worker(batches, boards)));
+            }
+
+            // Stream the log, then tell every worker to stop; if reading fails, the
+            // workers are interrupted below instead
+            try (GameLogReader reader = new GameLogReader(log)) {
+                ByteBuffer batch;
+                while ((batch = reader.nextBatch(GAMES_PER_BATCH)) != null) {
+                    offer(batches, batch, futures);
+                }
+            }
+            for (int i = 0; i < threads; i++) {
+                offer(batches, END, futures);
+            }
+
+            long games = 0;
+            long moves = 0;
+            List<IllegalMove> illegalMoves = new ArrayList<>();
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+                games += worker.games;
+                moves += worker.moves;
+                illegalMoves.addAll(worker.illegalMoves);
+            }
+            illegalMoves.sort(Comparator.comparingLong(IllegalMove::getGameId));
+            return new Result(games, moves, System.nanoTime() - start,
+                Collections.unmodifiableList(illegalMoves));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying " + log, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues a batch for the workers, checking on them whenever the queue stays full
+     * for OFFER_MILLIS, and before each batch.
+     *
+     * @param batches the queue of batches
+     * @param batch   the batch to queue
+     * @param futures the workers' futures
+     * @throws InterruptedException if interrupted while waiting for room
+     * @throws ExecutionException   if a worker has failed
+     */
+    private static void offer(BlockingQueue<ByteBuffer> batches, ByteBuffer batch,
+        List<Future<Worker>> futures) throws InterruptedException, ExecutionException {
+        do {
+            for (Future<Worker> future : futures) {
+                // Rethrows the failure of a worker that stopped early
+                if (future.isDone()) {
+                    future.get();
+                }
+            }
+        } while (!batches.offer(batch, OFFER_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Replays a game log and prints the throughput and the illegal moves found.
+     *
+     * @param args the log to replay, and optionally the number of worker threads
+     *             (default: the number of available processors)
+     * @throws IOException if the log cannot be read or is corrupt
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        Result result = run(Paths.get(args[0]), threads);
+        System.out.println(result);
+        for (IllegalMove move : result.getIllegalMoves()) {
+            System.out.println("  " + move);
+        }
+    }
+
+    /**
+     * Replays batches of games until it receives END.
+     */
+    private static class Worker implements Callable<Worker> {
+
+        /**
+         * The batches to replay.
+         */
+        private final BlockingQueue<ByteBuffer> batches;
+
+        /**
+         * Supplies the board each game is replayed on.
+         */
+        private final Supplier<ChessBoard> boards;
+
+        /**
+         * The first illegal move of each game replayed by this worker that has one.
+         */
+        private final List<IllegalMove> illegalMoves = new ArrayList<>();
+
+        /**
+         * The number of games replayed by this worker.
+         */
+        private long games;
+
+        /**
+         * The number of moves applied or rejected by this worker.
+         */
+        private long moves;
+
+        /**
+         * Constructor for a Worker.
+         *
+         * @param batches the batches to replay
+         * @param boards  supplies the board each game is replayed on
+         */
+        Worker(BlockingQueue<ByteBuffer> batches, Supplier<ChessBoard> boards) {
+            this.batches = batches;
+            this.boards = boards;
+        }
+
+        /**
+         * Replays batches until END.
+         *
+         * @return this worker, holding its totals
+         * @throws InterruptedException if interrupted while waiting for a batch
+         */
+        @Override
+        public Worker call() throws InterruptedException {
+            ByteBuffer batch;
+            while ((batch = this.batches.take()) != END) {
+                while (batch.hasRemaining()) {
+                    this.replayGame(batch);
+                    GameLogReader.skipGame(batch);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Replays the game at the batch's position, stopping at its first illegal move.
+         *
+         * @param batch a batch positioned at the start of a record
+         */
+        private void replayGame(ByteBuffer batch) {
+            ChessBoard board = this.boards.get();
+            int count = GameLogReader.moveCount(batch);
+            this.games++;
+            for (int i = 0; i < count; i++) {
+                int from = GameLogReader.moveFrom(batch, i);
+                int to = GameLogReader.moveTo(batch, i);
+                this.moves++;
+                if (!board.move(from, to)) {
+                    this.illegalMoves.add(new IllegalMove(GameLogReader.gameId(batch), i,
+                        Coordinate.ofSquare(from), Coordinate.ofSquare(to)));
+                    return;
+                }
+            }
+        }
+    }
+}
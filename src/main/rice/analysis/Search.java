@@ -0,0 +1,588 @@
+package main.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.MoveBuffer;
+import main.rice.Zobrist;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+
+/**
+ * A best-move search over ChessBoard under the Rook/Bishop/Knight rules implemented by
+ * validateMove. Positions are scored by material (see PieceType.getValue()); a side that
+ * has lost all of its pieces has lost the game, and a side that still has pieces but no
+ * valid move is treated as a draw.
+ *
+ * <p>The search is a negamax alpha-beta search with iterative deepening under a time
+ * budget. Moves are ordered with the transposition table's best move first, then
+ * captures (most valuable victim first), then quiet moves. With more than one thread the
+ * search runs as Lazy SMP: every thread searches the same root on its own copy of the
+ * board, and the threads only cooperate through the shared, lock-free transposition
+ * table. The result is taken from the first thread.
+ */
+public class Search {
+
+    /**
+     * Score of a won position (all opposing pieces captured), before adjusting for the
+     * number of plies it takes to get there.
+     */
+    public static final int WIN = 10000;
+
+    /**
+     * Value of bestMove when the side to move has no valid move.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The deepest search supported, in plies.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * Transposition table flag: the stored value is exact.
+     */
+    private static final int EXACT = 0;
+
+    /**
+     * Transposition table flag: the stored value is a lower bound (the search failed
+     * high).
+     */
+    private static final int LOWER = 1;
+
+    /**
+     * Transposition table flag: the stored value is an upper bound (the search failed
+     * low).
+     */
+    private static final int UPPER = 2;
+
+    /**
+     * Number of nodes between checks of the clock.
+     */
+    private static final int CLOCK_INTERVAL = 2048;
+
+    /**
+     * The result of a search.
+     */
+    public static class Result {
+
+        /**
+         * The best move found (see MoveBuffer), or NO_MOVE.
+         */
+        private final int bestMove;
+
+        /**
+         * The score of bestMove from the point of view of the side to move.
+         */
+        private final int score;
+
+        /**
+         * The deepest fully completed iteration, in plies.
+         */
+        private final int depth;
+
+        /**
+         * The number of positions visited, summed over all threads.
+         */
+        private final long nodes;
+
+        /**
+         * The wall-clock time taken, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Constructor for a Result.
+         *
+         * @param bestMove the best move found, or NO_MOVE
+         * @param score    the score of bestMove
+         * @param depth    the deepest fully completed iteration
+         * @param nodes    the number of positions visited
+         * @param nanos    the wall-clock time taken, in nanoseconds
+         */
+        Result(int bestMove, int score, int depth, long nodes, long nanos) {
+            this.bestMove = bestMove;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the best move found (see MoveBuffer), or NO_MOVE if there is none
+         */
+        public int getBestMove() {
+            return this.bestMove;
+        }
+
+        /**
+         * @return the score of the best move from the point of view of the side to move
+         */
+        public int getScore() {
+            return this.score;
+        }
+
+        /**
+         * @return the deepest fully completed iteration, in plies
+         */
+        public int getDepth() {
+            return this.depth;
+        }
+
+        /**
+         * @return the number of positions visited, summed over all threads
+         */
+        public long getNodes() {
+            return this.nodes;
+        }
+
+        /**
+         * @return the wall-clock time taken, in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the throughput of the search, in positions per second
+         */
+        public double getNodesPerSecond() {
+            return this.nanos == 0 ? 0 : this.nodes * 1e9 / this.nanos;
+        }
+
+        /**
+         * @return a one-line summary of this result
+         */
+        @Override
+        public String toString() {
+            String move = this.bestMove == NO_MOVE ? "none"
+                : MoveBuffer.from(this.bestMove) + "->" + MoveBuffer.to(this.bestMove);
+            return String.format("best %s, score %d, depth %d, %d nodes in %.3f s"
+                    + " (%.0f nodes/s)", move, this.score, this.depth, this.nodes,
+                this.nanos / 1e9, this.getNodesPerSecond());
+        }
+    }
+
+    /**
+     * The transposition table shared by all threads.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The number of threads to search with.
+     */
+    private final int threads;
+
+    /**
+     * Set when the current search should wind down, either because its time is up or
+     * because the first thread has finished.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The System.nanoTime() at which the current search must stop.
+     */
+    private volatile long deadline;
+
+    /**
+     * The endgame tablebase to probe, or null.
+     */
+    private Tablebase tablebase;
+
+    /**
+     * Constructor for a Search.
+     *
+     * @param table   the transposition table to use (and keep between searches)
+     * @param threads the number of threads to search with; 1 for a single-threaded search
+     */
+    public Search(TranspositionTable table, int threads) {
+        this.table = table;
+        this.threads = Math.max(threads, 1);
+    }
+
+    /**
+     * Sets the endgame tablebase that searches probe once few enough pieces are left;
+     * positions it covers are scored exactly instead of being searched further. Must not
+     * be called while a search is running.
+     *
+     * @param tablebase the tablebase to probe, or null to stop probing
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches for the best move for the given color, deepening one ply at a time until
+     * maxDepth is reached or the time budget runs out. At least one ply is always
+     * searched in full. The board is left unchanged.
+     *
+     * @param board        the position to search
+     * @param toMove       the color to find a move for
+     * @param maxDepth     the deepest iteration to search, in plies (at most MAX_DEPTH)
+     * @param budgetMillis the time budget, in milliseconds
+     * @return the best move found, with statistics about the search
+     */
+    public Result findBestMove(ChessBoard board, Color toMove, int maxDepth,
+        long budgetMillis) {
+        long start = System.nanoTime();
+        this.table.newGeneration();
+        this.stopped = false;
+        this.deadline = start + budgetMillis * 1_000_000;
+        maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+
+        // Start the helper threads (Lazy SMP), each on its own copy of the board and
+        // with every other helper starting one ply deeper to diversify the search
+        Worker[] workers = new Worker[this.threads];
+        Thread[] helpers = new Thread[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            workers[i] = new Worker(i == 0 ? board : board.copy(), toMove, maxDepth,
+                1 + (i & 1));
+        }
+        for (int i = 1; i < this.threads; i++) {
+            helpers[i] = new Thread(workers[i]::run, "search-helper-" + i);
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+
+        // The first thread runs here and decides the result
+        workers[0].run();
+        this.stopped = true;
+        long nodes = workers[0].nodes;
+        for (int i = 1; i < this.threads; i++) {
+            try {
+                helpers[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            nodes += workers[i].nodes;
+        }
+
+        return new Result(workers[0].bestMove, workers[0].bestScore,
+            workers[0].depthReached, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Searches from the initial position and prints the result for 1, 2, 4, ... threads.
+     *
+     * @param args optional: the time budget in milliseconds (default 1000) and the
+     *             maximum number of threads (default: the number of available processors)
+     */
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Search search = new Search(new TranspositionTable(64 << 20), threads);
+            System.out.println(threads + " thread(s): " + search.findBestMove(
+                new ChessBoard(), Color.WHITE, MAX_DEPTH, budget));
+        }
+    }
+
+    /**
+     * Converts a score relative to the current node into one relative to the root, so
+     * that won/lost scores stored in the table stay correct wherever they are probed.
+     *
+     * @param score the score to store
+     * @param ply   the distance of the current node from the root
+     * @return the score to put in the table
+     */
+    private static int toTable(int score, int ply) {
+        if (score > WIN - MAX_DEPTH) {
+            return score + ply;
+        } else if (score < -WIN + MAX_DEPTH) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Inverse of toTable().
+     *
+     * @param score the score read from the table
+     * @param ply   the distance of the current node from the root
+     * @return the score relative to the current node
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > WIN - MAX_DEPTH) {
+            return score - ply;
+        } else if (score < -WIN + MAX_DEPTH) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * One search thread: iterative deepening over its own board, with its own move
+     * buffers and node counter.
+     */
+    private class Worker {
+
+        /**
+         * The board this worker searches; restored after every move it makes.
+         */
+        private final ChessBoard board;
+
+        /**
+         * The color to move at the root.
+         */
+        private final Color rootColor;
+
+        /**
+         * The deepest iteration to search.
+         */
+        private final int maxDepth;
+
+        /**
+         * The first iteration to search.
+         */
+        private final int startDepth;
+
+        /**
+         * The moves of each ply, indexed by distance from the root.
+         */
+        private final MoveBuffer[] moves = new MoveBuffer[MAX_DEPTH + 1];
+
+        /**
+         * The ordering scores of each ply's moves, parallel to moves.
+         */
+        private final int[][] orderScores = new int[MAX_DEPTH + 1][64];
+
+        /**
+         * The number of positions this worker has visited.
+         */
+        private long nodes;
+
+        /**
+         * The best move of the deepest completed iteration.
+         */
+        private int bestMove = NO_MOVE;
+
+        /**
+         * The score of bestMove.
+         */
+        private int bestScore;
+
+        /**
+         * The deepest completed iteration; 0 until the first one completes.
+         */
+        private int depthReached;
+
+        /**
+         * Constructor for a Worker.
+         *
+         * @param board      the board to search; used exclusively by this worker
+         * @param rootColor  the color to move at the root
+         * @param maxDepth   the deepest iteration to search
+         * @param startDepth the first iteration to search
+         */
+        Worker(ChessBoard board, Color rootColor, int maxDepth, int startDepth) {
+            this.board = board;
+            this.rootColor = rootColor;
+            this.maxDepth = maxDepth;
+            this.startDepth = Math.min(startDepth, maxDepth);
+            for (int i = 0; i < this.moves.length; i++) {
+                this.moves[i] = new MoveBuffer();
+            }
+        }
+
+        /**
+         * Runs iterative deepening until maxDepth or until the search is stopped.
+         */
+        void run() {
+            for (int depth = this.startDepth; depth <= this.maxDepth; depth++) {
+                int score = this.searchRoot(depth);
+                if (this.isAborted()) {
+                    break;
+                }
+                this.bestScore = score;
+                this.depthReached = depth;
+                if (this.bestMove == NO_MOVE || Math.abs(score) > WIN - MAX_DEPTH) {
+                    // Nothing to move, or the outcome is already decided
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Searches the root position to the given depth, updating bestMove if the
+         * iteration completes.
+         *
+         * @param depth the depth to search to
+         * @return the score of the best root move
+         */
+        private int searchRoot(int depth) {
+            MoveBuffer rootMoves = this.moves[0];
+            int numMoves = this.board.generateMoves(this.rootColor, rootMoves);
+            if (numMoves == 0) {
+                this.bestMove = NO_MOVE;
+                return this.board.getMaterial(this.rootColor) == 0 ? -WIN : 0;
+            }
+            this.order(0, numMoves, this.bestMove);
+
+            int alpha = -WIN - 1;
+            int move = rootMoves.get(0);
+            for (int i = 0; i < numMoves; i++) {
+                this.board.makeMove(rootMoves.get(i));
+                int score = -this.negamax(this.rootColor.opposite(), depth - 1, -WIN - 1,
+                    -alpha, 1);
+                this.board.unmakeMove();
+                if (this.isAborted()) {
+                    return 0;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    move = rootMoves.get(i);
+                }
+            }
+            this.bestMove = move;
+            return alpha;
+        }
+
+        /**
+         * Negamax alpha-beta search.
+         *
+         * @param toMove the color to move
+         * @param depth  the number of plies left to search
+         * @param alpha  the lower bound of the search window
+         * @param beta   the upper bound of the search window
+         * @param ply    the distance from the root
+         * @return the score of the position from the point of view of toMove
+         */
+        private int negamax(Color toMove, int depth, int alpha, int beta, int ply) {
+            if ((++this.nodes & (CLOCK_INTERVAL - 1)) == 0
+                && System.nanoTime() - Search.this.deadline > 0) {
+                Search.this.stopped = true;
+            }
+            if (this.isAborted()) {
+                return 0;
+            }
+
+            // A side with no pieces left has lost
+            int ours = this.board.getMaterial(toMove);
+            if (ours == 0) {
+                return -WIN + ply;
+            }
+            int theirs = this.board.getMaterial(toMove.opposite());
+
+            // Endgames in the tablebase need no search
+            Tablebase tablebase = Search.this.tablebase;
+            if (tablebase != null && ours + theirs <= tablebase.getMaxMaterial()) {
+                int result = tablebase.probe(this.board, toMove);
+                if (result != Tablebase.MISSING) {
+                    return result > 0 ? WIN - ply - result
+                        : result < 0 ? -WIN + ply - result : 0;
+                }
+            }
+            if (depth == 0 || ply >= MAX_DEPTH) {
+                return ours - theirs;
+            }
+
+            // Use the table to cut off, or at least to pick the first move to try
+            long key = this.board.getZobristKey() ^ Zobrist.sideKey(toMove);
+            long entry = Search.this.table.probe(key);
+            int tableMove = NO_MOVE;
+            if (entry != TranspositionTable.MISS) {
+                long payload = TranspositionTable.payloadOf(entry);
+                tableMove = (int) (payload >>> 18) - 1;
+                if (TranspositionTable.depthOf(entry) >= depth) {
+                    int score = fromTable((int) (payload & 0xFFFF) - 0x8000, ply);
+                    int flag = (int) (payload >>> 16) & 3;
+                    if (flag == EXACT || (flag == LOWER && score >= beta)
+                        || (flag == UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            MoveBuffer buffer = this.moves[ply];
+            int numMoves = this.board.generateMoves(toMove, buffer);
+            if (numMoves == 0) {
+                return 0;
+            }
+            this.order(ply, numMoves, tableMove);
+
+            int originalAlpha = alpha;
+            int best = -WIN - 1;
+            int bestMoveHere = NO_MOVE;
+            for (int i = 0; i < numMoves; i++) {
+                int move = buffer.get(i);
+                this.board.makeMove(move);
+                int score = -this.negamax(toMove.opposite(), depth - 1, -beta, -alpha,
+                    ply + 1);
+                this.board.unmakeMove();
+                if (this.isAborted()) {
+                    return 0;
+                }
+
+                if (score > best) {
+                    best = score;
+                    bestMoveHere = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            int flag = best <= originalAlpha ? UPPER : best >= beta ? LOWER : EXACT;
+            long payload = ((toTable(best, ply) + 0x8000) & 0xFFFF) | ((long) flag << 16)
+                | ((long) (bestMoveHere + 1) << 18);
+            Search.this.table.store(key, depth, payload);
+            return best;
+        }
+
+        /**
+         * Sorts the first numMoves moves of a ply: first the given preferred move, then
+         * captures by decreasing victim value (and increasing attacker value), then the
+         * rest.
+         *
+         * @param ply       the ply whose moves to sort
+         * @param numMoves  the number of moves
+         * @param preferred the move to try first, or NO_MOVE
+         */
+        private void order(int ply, int numMoves, int preferred) {
+            MoveBuffer buffer = this.moves[ply];
+            if (this.orderScores[ply].length < numMoves) {
+                this.orderScores[ply] = new int[numMoves * 2];
+            }
+            int[] scores = this.orderScores[ply];
+
+            for (int i = 0; i < numMoves; i++) {
+                int move = buffer.get(i);
+                if (move == preferred) {
+                    scores[i] = Integer.MAX_VALUE;
+                } else if (MoveBuffer.isCapture(move)) {
+                    AChessPiece victim = this.board.getPiece(MoveBuffer.to(move));
+                    AChessPiece attacker = this.board.getPiece(MoveBuffer.from(move));
+                    scores[i] = 1000 + victim.getType().getValue() * 10
+                        - attacker.getType().getValue();
+                } else {
+                    scores[i] = 0;
+                }
+            }
+
+            // Insertion sort; move lists are short
+            for (int i = 1; i < numMoves; i++) {
+                int move = buffer.get(i);
+                int score = scores[i];
+                int j = i - 1;
+                while (j >= 0 && scores[j] < score) {
+                    scores[j + 1] = scores[j];
+                    buffer.set(j + 1, buffer.get(j));
+                    j--;
+                }
+                scores[j + 1] = score;
+                buffer.set(j + 1, move);
+            }
+        }
+
+        /**
+         * @return true if this worker should abandon its current iteration: the search
+         * has been stopped and this worker already has a result (the first iteration is
+         * always completed, so there is always a move to return)
+         */
+        private boolean isAborted() {
+            return Search.this.stopped && this.depthReached > 0;
+        }
+    }
+}
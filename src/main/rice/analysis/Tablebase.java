@@ -0,0 +1,286 @@
+package main.rice.analysis;
+
+import main.rice.IBoardView;
+import main.rice.pieces.Color;
+import main.rice.pieces.MoveTables;
+import main.rice.pieces.PieceCode;
+import main.rice.pieces.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Perfect play for positions with few pieces, read from a tablebase file written by
+ * TablebaseGenerator. The file holds one table per material signature (the multiset of
+ * pieces on the board), each mapped into memory when the tablebase is opened, so a
+ * probe is a table lookup plus one scan of the board.
+ *
+ * <p>A probe returns the result for the side to move: n &gt; 0 if it wins (captures the
+ * last opposing piece) in n plies, -n if it loses in n plies, and 0 if neither side can
+ * force a win. Both sides play the shortest win or the longest loss, and a side with no
+ * valid move draws, matching Search.
+ *
+ * <p>File format (big-endian): MAGIC, VERSION, the maximum number of pieces, and the
+ * number of tables (4 bytes each); then per table, sorted by key, its key (4 bytes), its
+ * number of pieces n (4) and the file offset of its data (8); then the tables. A table
+ * holds one byte per index stm * 64^n + sq[0] * 64^(n-1) + ... + sq[n-1], where stm is
+ * the ordinal of the color to move and sq[] the squares of its pieces, in increasing
+ * order of PieceCode. A key packs per color (ordinal 0 in the high 12 bits) the number of
+ * pieces of each type, 4 bits per type. Since the move rules do not depend on color,
+ * only signatures whose color 0 key is at least its color 1 key are stored; other
+ * positions are probed with the colors swapped.
+ */
+public class Tablebase {
+
+    /**
+     * The first four bytes of every tablebase file ("RTB1").
+     */
+    public static final int MAGIC = 0x52544231;
+
+    /**
+     * The version of the format read by this class.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Returned by probe() for positions not covered by the tablebase.
+     */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * The number of bytes before the table directory.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * The number of bytes per table in the directory.
+     */
+    static final int ENTRY_BYTES = 16;
+
+    /**
+     * The value stored for indices that put two pieces on one square.
+     */
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    /**
+     * The largest number of pieces a table may cover, so that each table can be mapped
+     * as one buffer (2 * 64^4 bytes = 32 MB).
+     */
+    static final int MAX_SUPPORTED_PIECES = 4;
+
+    /**
+     * The number of bits per piece in a packed position (see pack()).
+     */
+    private static final int PIECE_BITS = 9;
+
+    /**
+     * The keys of the tables, in increasing order.
+     */
+    private final int[] keys;
+
+    /**
+     * The tables, in the order of keys.
+     */
+    private final ByteBuffer[] tables;
+
+    /**
+     * The largest number of pieces covered.
+     */
+    private final int maxPieces;
+
+    /**
+     * Constructor for a Tablebase; maps every table of a tablebase file.
+     *
+     * @param file the tablebase file
+     * @throws IOException if the file cannot be read or is not a tablebase
+     */
+    public Tablebase(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " tablebase: " + file);
+            }
+            this.maxPieces = header.getInt();
+            int count = header.getInt();
+            if (this.maxPieces < 2 || this.maxPieces > MAX_SUPPORTED_PIECES
+                || count < 0) {
+                throw new IOException("Corrupt tablebase header: " + file);
+            }
+
+            this.keys = new int[count];
+            this.tables = new ByteBuffer[count];
+            ByteBuffer directory = readFully(channel, HEADER_BYTES, count * ENTRY_BYTES);
+            for (int i = 0; i < count; i++) {
+                this.keys[i] = directory.getInt();
+                int pieces = directory.getInt();
+                long offset = directory.getLong();
+                long size = tableSize(pieces);
+                if ((i > 0 && this.keys[i] <= this.keys[i - 1]) || pieces < 2
+                    || pieces > this.maxPieces || offset < 0
+                    || offset + size > channel.size()) {
+                    throw new IOException("Corrupt tablebase directory: " + file);
+                }
+                this.tables[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            }
+        }
+    }
+
+    /**
+     * @return the largest number of pieces covered
+     */
+    public int getMaxPieces() {
+        return this.maxPieces;
+    }
+
+    /**
+     * @return the largest total material (see ChessBoard.getMaterial()) of a covered
+     * position; positions with more can be skipped without probing
+     */
+    public int getMaxMaterial() {
+        return this.maxPieces * PieceType.ROOK.getValue();
+    }
+
+    /**
+     * @return the number of tables
+     */
+    public int getTableCount() {
+        return this.keys.length;
+    }
+
+    /**
+     * Looks up the result of a position under perfect play. Scans the board once and
+     * creates no objects; safe to call from many threads.
+     *
+     * @param board  the position to look up
+     * @param toMove the color to move
+     * @return n &gt; 0 if the side to move wins in n plies, -n if it loses in n plies,
+     * 0 if the position is drawn, or MISSING if the position has too many pieces, lacks
+     * pieces of either color, or its table was not generated
+     */
+    public int probe(IBoardView board, Color toMove) {
+        long packed = 0;
+        int n = 0;
+        int key0 = 0;
+        int key1 = 0;
+        for (int square = 0; square < MoveTables.SQUARES; square++) {
+            int code = board.getPieceCode(square);
+            if (code == PieceCode.EMPTY) {
+                continue;
+            }
+            if (n == this.maxPieces) {
+                return MISSING;
+            }
+            packed = pack(packed, n++, code, square);
+            if (PieceCode.colorOf(code).ordinal() == 0) {
+                key0 += typeKey(code);
+            } else {
+                key1 += typeKey(code);
+            }
+        }
+        if (key0 == 0 || key1 == 0) {
+            return MISSING;
+        }
+
+        boolean swap = key0 < key1;
+        int table = Arrays.binarySearch(this.keys, tableKey(key0, key1, swap));
+        if (table < 0) {
+            return MISSING;
+        }
+        return this.tables[table].get((int) index(packed, n, toMove.ordinal(), swap));
+    }
+
+    /**
+     * @param pieces the number of pieces of a table
+     * @return the number of entries (and bytes) of the table
+     */
+    static long tableSize(int pieces) {
+        return 2L << (6 * pieces);
+    }
+
+    /**
+     * @param code a PieceCode (not EMPTY)
+     * @return the amount the piece adds to its color's half of a key
+     */
+    static int typeKey(int code) {
+        return 1 << (4 * PieceCode.typeOf(code).ordinal());
+    }
+
+    /**
+     * @param key0 the key of color 0's pieces (see typeKey())
+     * @param key1 the key of color 1's pieces
+     * @param swap true to swap the colors, as done when key0 &lt; key1
+     * @return the key of the table holding the position
+     */
+    static int tableKey(int key0, int key1, boolean swap) {
+        return swap ? (key1 << 12) | key0 : (key0 << 12) | key1;
+    }
+
+    /**
+     * Adds a piece to a packed position: 9 bits per piece, its code above its square.
+     *
+     * @param packed the pieces so far
+     * @param i      the number of pieces so far
+     * @param code   the PieceCode of the piece
+     * @param square the square of the piece
+     * @return the packed position with the piece added
+     */
+    static long pack(long packed, int i, int code, int square) {
+        return packed | (long) ((code << 6) | square) << (PIECE_BITS * i);
+    }
+
+    /**
+     * Computes the index of a position in its table.
+     *
+     * @param packed the pieces of the position (see pack())
+     * @param n      the number of pieces
+     * @param stm    the ordinal of the color to move
+     * @param swap   true to swap the colors (see tableKey())
+     * @return the index of the position
+     */
+    static long index(long packed, int n, int stm, boolean swap) {
+        long index = swap ? 1 - stm : stm;
+        for (int code = 1; code < PieceCode.COUNT; code++) {
+            int wanted = swap ? swapColor(code) : code;
+            for (int i = 0; i < n; i++) {
+                int piece = (int) (packed >>> (PIECE_BITS * i)) & 0x1FF;
+                if (piece >>> 6 == wanted) {
+                    index = (index << 6) | (piece & 0x3F);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param code a PieceCode (not EMPTY)
+     * @return the code of the same type of piece, of the other color
+     */
+    static int swapColor(int code) {
+        return code > PieceType.COUNT ? code - PieceType.COUNT : code + PieceType.COUNT;
+    }
+
+    /**
+     * Reads a range of a file.
+     *
+     * @param channel the file
+     * @param offset  the offset of the range
+     * @param length  the length of the range
+     * @return a buffer holding the range
+     * @throws IOException if the range cannot be read
+     */
+    private static ByteBuffer readFully(FileChannel channel, long offset, int length)
+        throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) {
+                throw new IOException("Truncated tablebase");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+}
@@ -0,0 +1,587 @@
+package main.rice.analysis;
+
+import main.rice.pieces.PieceCode;
+import main.rice.pieces.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds tablebase files (see Tablebase) by retrograde analysis, offline. Tables are
+ * built in order of increasing number of pieces, so that a capture always leads into a
+ * table that is already complete.
+ *
+ * <p>For each table, one forward pass generates every position's moves: it resolves
+ * captures through the smaller tables and counts the other moves. The results then
+ * spread backwards, in order of increasing distance, along un-moves (every move in this
+ * game can be played backwards from an empty square). A position becomes a win in d + 1
+ * plies as soon as one successor is a loss in d; it becomes a loss once every successor
+ * is a win, in 1 + the longest of them. Whatever is left unresolved is a draw.
+ */
+public final class TablebaseGenerator {
+
+    /**
+     * The largest distance a table can hold, in plies.
+     */
+    private static final int MAX_DISTANCE = Byte.MAX_VALUE;
+
+    /**
+     * Flag: the position's value is final.
+     */
+    private static final byte FINAL = 1;
+
+    /**
+     * Flag: the side to move can reach a drawn position, so it cannot lose.
+     */
+    private static final byte DRAWN = 2;
+
+    /**
+     * The largest number of pieces to build tables for.
+     */
+    private final int maxPieces;
+
+    /**
+     * The tables built so far, by key (see Tablebase.tableKey()).
+     */
+    private final Map<Integer, byte[]> tables = new TreeMap<>();
+
+    /**
+     * Private constructor; use generate().
+     *
+     * @param maxPieces the largest number of pieces to build tables for
+     */
+    private TablebaseGenerator(int maxPieces) {
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Builds every table of up to maxPieces pieces (with at least one piece per color)
+     * and writes them to a tablebase file.
+     *
+     * @param maxPieces the largest number of pieces, from 2 to 4; 3 takes about a second
+     *                  and 10 MB, 4 takes minutes and about 1.7 GB
+     * @param file      the file to write; replaced if it exists
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if maxPieces is out of range
+     */
+    public static void generate(int maxPieces, Path file) throws IOException {
+        if (maxPieces < 2 || maxPieces > Tablebase.MAX_SUPPORTED_PIECES) {
+            throw new IllegalArgumentException("Unsupported number of pieces: "
+                + maxPieces);
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(maxPieces);
+        for (int n = 2; n <= maxPieces; n++) {
+            for (int[] codes : signatures(n)) {
+                generator.new TableBuilder(codes).run();
+            }
+        }
+        generator.write(file);
+    }
+
+    /**
+     * Builds a tablebase file and prints how long it took.
+     *
+     * @param args the file to write, and optionally the largest number of pieces
+     *             (default: 3)
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long start = System.nanoTime();
+        generate(maxPieces, Paths.get(args[0]));
+        System.out.printf("Built tables of up to %d pieces in %.1f s%n", maxPieces,
+            (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Lists the material signatures of n pieces that get a table: both colors have
+     * pieces, and color 0's key is at least color 1's.
+     *
+     * @param n the number of pieces
+     * @return the PieceCodes of each signature, in increasing order
+     */
+    private static List<int[]> signatures(int n) {
+        List<int[]> signatures = new ArrayList<>();
+        int[] codes = new int[n];
+        addSignatures(codes, 0, 1, signatures);
+        return signatures;
+    }
+
+    /**
+     * Adds the signatures that extend codes[0..i) with codes from min on.
+     *
+     * @param codes      the codes so far
+     * @param i          the number of codes so far
+     * @param min        the smallest code allowed next
+     * @param signatures receives the signatures
+     */
+    private static void addSignatures(int[] codes, int i, int min,
+        List<int[]> signatures) {
+        if (i == codes.length) {
+            int key0 = colorKey(codes, 0);
+            int key1 = colorKey(codes, 1);
+            if (key1 != 0 && key0 >= key1) {
+                signatures.add(codes.clone());
+            }
+            return;
+        }
+        for (int code = min; code < PieceCode.COUNT; code++) {
+            codes[i] = code;
+            addSignatures(codes, i + 1, code, signatures);
+        }
+    }
+
+    /**
+     * @param codes the PieceCodes of a signature
+     * @param color the ordinal of a color
+     * @return the key of the color's pieces (see Tablebase.typeKey())
+     */
+    private static int colorKey(int[] codes, int color) {
+        int key = 0;
+        for (int code : codes) {
+            if (PieceCode.colorOf(code).ordinal() == color) {
+                key += Tablebase.typeKey(code);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Writes every table built to a tablebase file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    private void write(Path file) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int count = this.tables.size();
+            ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES
+                + count * Tablebase.ENTRY_BYTES);
+            header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION)
+                .putInt(this.maxPieces).putInt(count);
+            long offset = header.capacity();
+            for (Map.Entry<Integer, byte[]> table : this.tables.entrySet()) {
+                int size = table.getValue().length;
+                int pieces = (Integer.numberOfTrailingZeros(size) - 1) / 6;
+                header.putInt(table.getKey()).putInt(pieces).putLong(offset);
+                offset += table.getValue().length;
+            }
+            header.flip();
+            writeFully(out, header);
+            for (byte[] table : this.tables.values()) {
+                writeFully(out, ByteBuffer.wrap(table));
+            }
+        }
+    }
+
+    /**
+     * Writes all of a buffer.
+     *
+     * @param out the channel to write to
+     * @param buf the buffer to write
+     * @throws IOException if the channel cannot be written
+     */
+    private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    /**
+     * A growable list of ints; one per distance, holding the positions to resolve at
+     * that distance.
+     */
+    private static class IntList {
+
+        /**
+         * The elements, followed by unused space.
+         */
+        private int[] elements = new int[16];
+
+        /**
+         * The number of elements.
+         */
+        private int size;
+
+        /**
+         * @param element the element to append
+         */
+        void add(int element) {
+            if (this.size == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, this.size * 2);
+            }
+            this.elements[this.size++] = element;
+        }
+    }
+
+    /**
+     * Builds one table: see the class comment.
+     */
+    private class TableBuilder {
+
+        /**
+         * The PieceCodes of the table's pieces, in increasing order.
+         */
+        private final int[] codes;
+
+        /**
+         * The number of pieces.
+         */
+        private final int n;
+
+        /**
+         * The table being built (see Tablebase for the values).
+         */
+        private final byte[] values;
+
+        /**
+         * Per position, FINAL and DRAWN flags.
+         */
+        private final byte[] flags;
+
+        /**
+         * Per position, the number of non-capturing moves whose result is not yet known.
+         */
+        private final byte[] unresolved;
+
+        /**
+         * Per position, the shortest win found so far, or 0.
+         */
+        private final byte[] winDistance;
+
+        /**
+         * Per position, the longest loss found so far (if every move turns out to lose).
+         */
+        private final byte[] lossDistance;
+
+        /**
+         * Per distance, the positions that may resolve at that distance: wins as their
+         * index, losses as ~index.
+         */
+        private final IntList[] queues = new IntList[MAX_DISTANCE + 1];
+
+        /**
+         * The squares of the pieces of the position being looked at.
+         */
+        private final int[] squares;
+
+        /**
+         * Constructor for a TableBuilder.
+         *
+         * @param codes the PieceCodes of the table's pieces, in increasing order
+         */
+        TableBuilder(int[] codes) {
+            this.codes = codes;
+            this.n = codes.length;
+            int size = (int) Tablebase.tableSize(this.n);
+            this.values = new byte[size];
+            this.flags = new byte[size];
+            this.unresolved = new byte[size];
+            this.winDistance = new byte[size];
+            this.lossDistance = new byte[size];
+            this.squares = new int[this.n];
+            for (int d = 0; d <= MAX_DISTANCE; d++) {
+                this.queues[d] = new IntList();
+            }
+        }
+
+        /**
+         * Builds the table and adds it to the finished tables.
+         */
+        void run() {
+            for (int index = 0; index < this.values.length; index++) {
+                this.scan(index);
+            }
+            for (int d = 1; d <= MAX_DISTANCE; d++) {
+                IntList queue = this.queues[d];
+                for (int i = 0; i < queue.size; i++) {
+                    this.resolve(queue.elements[i], d);
+                }
+                this.queues[d] = null;
+            }
+            int key = Tablebase.tableKey(colorKey(this.codes, 0), colorKey(this.codes, 1),
+                false);
+            TablebaseGenerator.this.tables.put(key, this.values);
+        }
+
+        /**
+         * Generates the moves of a position: resolves captures, counts other moves, and
+         * queues the position if that already decides it.
+         *
+         * @param index the index of the position
+         */
+        private void scan(int index) {
+            int stm = this.decode(index);
+            long occupied = this.occupied();
+            if (occupied == -1) {
+                this.values[index] = Tablebase.ILLEGAL;
+                this.flags[index] = FINAL;
+                return;
+            }
+
+            int opponents = 0;
+            for (int i = 0; i < this.n; i++) {
+                if (this.colorOf(i) != stm) {
+                    opponents++;
+                }
+            }
+
+            int moves = 0;
+            int quiet = 0;
+            int win = 0;
+            int loss = 0;
+            boolean drawn = false;
+            for (int i = 0; i < this.n; i++) {
+                if (this.colorOf(i) != stm) {
+                    continue;
+                }
+                PieceType type = PieceCode.typeOf(this.codes[i]);
+                int from = this.squares[i];
+                long targets = type.getTargetMask(from);
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int victim = this.pieceAt(to);
+                    if ((type.getPath(from, to) & occupied) != 0
+                        || (victim >= 0 && this.colorOf(victim) == stm)) {
+                        continue;
+                    }
+                    moves++;
+                    if (victim < 0) {
+                        quiet++;
+                        continue;
+                    }
+
+                    // Taking the last opposing piece wins; other captures lead into a
+                    // smaller table
+                    if (opponents == 1) {
+                        win = 1;
+                        continue;
+                    }
+                    int result = this.afterCapture(i, to, victim, 1 - stm);
+                    if (result < 0 && (win == 0 || 1 - result < win)) {
+                        win = 1 - result;
+                    } else if (result == 0) {
+                        drawn = true;
+                    } else if (result > 0) {
+                        loss = Math.max(loss, result + 1);
+                    }
+                }
+            }
+
+            if (moves == 0) {
+                // No valid move: a draw, as in Search
+                this.flags[index] = FINAL;
+                return;
+            }
+            this.unresolved[index] = (byte) quiet;
+            this.flags[index] = drawn ? DRAWN : 0;
+            this.lossDistance[index] = (byte) loss;
+            if (win > 0) {
+                this.winDistance[index] = (byte) checkDistance(win);
+                this.queues[win].add(index);
+            } else if (quiet == 0 && !drawn) {
+                this.queues[checkDistance(loss)].add(~index);
+            }
+        }
+
+        /**
+         * Resolves a queued position if it is still undecided, and passes the result on
+         * to the positions that lead to it.
+         *
+         * @param entry    the queued position: its index for a win, ~index for a loss
+         * @param distance the distance being resolved
+         */
+        private void resolve(int entry, int distance) {
+            boolean win = entry >= 0;
+            int index = win ? entry : ~entry;
+            if ((this.flags[index] & FINAL) != 0
+                || (win && this.winDistance[index] != distance)) {
+                return;
+            }
+            this.values[index] = (byte) (win ? distance : -distance);
+            this.flags[index] |= FINAL;
+
+            // Walk the un-moves of the side that just moved
+            int stm = this.decode(index);
+            int mover = 1 - stm;
+            long occupied = this.occupied();
+            for (int i = 0; i < this.n; i++) {
+                if (this.colorOf(i) != mover) {
+                    continue;
+                }
+                PieceType type = PieceCode.typeOf(this.codes[i]);
+                int to = this.squares[i];
+                long origins = type.getTargetMask(to) & ~occupied;
+                while (origins != 0) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    if ((type.getPath(from, to) & occupied) != 0) {
+                        continue;
+                    }
+                    this.squares[i] = from;
+                    int previous = this.encode(mover);
+                    this.squares[i] = to;
+                    if (win) {
+                        this.loseOneMove(previous, distance + 1);
+                    } else {
+                        this.findWin(previous, distance + 1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Records that one of a position's moves leads to a position won by the opponent.
+         *
+         * @param index    the position
+         * @param distance the distance to the end of the game along that move
+         */
+        private void loseOneMove(int index, int distance) {
+            if ((this.flags[index] & FINAL) != 0) {
+                return;
+            }
+            this.lossDistance[index] =
+                (byte) Math.max(this.lossDistance[index], checkDistance(distance));
+            if (--this.unresolved[index] == 0 && (this.flags[index] & DRAWN) == 0
+                && this.winDistance[index] == 0) {
+                this.queues[this.lossDistance[index]].add(~index);
+            }
+        }
+
+        /**
+         * Records that one of a position's moves leads to a position lost by the
+         * opponent.
+         *
+         * @param index    the position
+         * @param distance the distance to the end of the game along that move
+         */
+        private void findWin(int index, int distance) {
+            if ((this.flags[index] & FINAL) != 0) {
+                return;
+            }
+            if (this.winDistance[index] == 0 || distance < this.winDistance[index]) {
+                this.winDistance[index] = (byte) checkDistance(distance);
+                this.queues[distance].add(index);
+            }
+        }
+
+        /**
+         * Looks up the result of a capture that leaves the opponent with pieces.
+         *
+         * @param mover  the piece that captures
+         * @param to     the square it captures on
+         * @param victim the piece captured
+         * @param stm    the ordinal of the color to move after the capture
+         * @return the result for stm (see Tablebase.probe())
+         */
+        private int afterCapture(int mover, int to, int victim, int stm) {
+            long packed = 0;
+            int count = 0;
+            int key0 = 0;
+            int key1 = 0;
+            for (int i = 0; i < this.n; i++) {
+                if (i == victim) {
+                    continue;
+                }
+                int code = this.codes[i];
+                int square = i == mover ? to : this.squares[i];
+                packed = Tablebase.pack(packed, count++, code, square);
+                if (this.colorOf(i) == 0) {
+                    key0 += Tablebase.typeKey(code);
+                } else {
+                    key1 += Tablebase.typeKey(code);
+                }
+            }
+            boolean swap = key0 < key1;
+            byte[] table =
+                TablebaseGenerator.this.tables.get(Tablebase.tableKey(key0, key1, swap));
+            return table[(int) Tablebase.index(packed, count, stm, swap)];
+        }
+
+        /**
+         * Sets squares from a position's index.
+         *
+         * @param index the index of the position
+         * @return the ordinal of the color to move
+         */
+        private int decode(int index) {
+            for (int i = this.n - 1; i >= 0; i--) {
+                this.squares[i] = index & 0x3F;
+                index >>>= 6;
+            }
+            return index;
+        }
+
+        /**
+         * @param stm the ordinal of the color to move
+         * @return the index of the position in squares
+         */
+        private int encode(int stm) {
+            int index = stm;
+            for (int i = 0; i < this.n; i++) {
+                index = (index << 6) | this.squares[i];
+            }
+            return index;
+        }
+
+        /**
+         * @return the mask of the squares in squares, or -1 if two pieces share one
+         */
+        private long occupied() {
+            long occupied = 0;
+            for (int i = 0; i < this.n; i++) {
+                long bit = 1L << this.squares[i];
+                if ((occupied & bit) != 0) {
+                    return -1;
+                }
+                occupied |= bit;
+            }
+            return occupied;
+        }
+
+        /**
+         * @param square a square
+         * @return the piece on the square, or -1 if it is empty
+         */
+        private int pieceAt(int square) {
+            for (int i = 0; i < this.n; i++) {
+                if (this.squares[i] == square) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param i a piece
+         * @return the ordinal of the piece's color
+         */
+        private int colorOf(int i) {
+            return PieceCode.colorOf(this.codes[i]).ordinal();
+        }
+    }
+
+    /**
+     * @param distance a distance to store in a table
+     * @return the distance
+     * @throws IllegalStateException if the distance does not fit in a table
+     */
+    private static int checkDistance(int distance) {
+        if (distance > MAX_DISTANCE) {
+            throw new IllegalStateException("Distance " + distance + " exceeds "
+                + MAX_DISTANCE + " plies");
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,181 @@
+package main.rice.analysis;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size, lock-free transposition table mapping 64-bit position keys (see
+ * main.rice.Zobrist) to a 48-bit payload plus the search depth it was computed at.
+ *
+ * <p>The table is a flat long[] of two-slot buckets. Each slot is two words: the key
+ * XORed with the data, and the data itself. Threads read and write slots without any
+ * locking; a slot that was torn by a concurrent write no longer satisfies
+ * (word0 ^ word1) == key, so it simply reads as a miss. The first slot of a bucket keeps
+ * the deepest (most expensive) result, unless it was written during an older search
+ * generation; the second slot is always overwritten.
+ */
+public class TranspositionTable {
+
+    /**
+     * Value returned by probe() when the table holds no entry for a key. Stored data
+     * words always have VALID set, so they can never equal MISS.
+     */
+    public static final long MISS = 0;
+
+    /**
+     * The largest depth that can be stored.
+     */
+    public static final int MAX_DEPTH = 0x7F;
+
+    /**
+     * Bit that is set in the data word of every stored entry.
+     */
+    private static final long VALID = 1L << 63;
+
+    /**
+     * The number of bits available to callers in each entry's payload.
+     */
+    public static final int PAYLOAD_BITS = 48;
+
+    /**
+     * Mask of the payload bits of an entry's data word.
+     */
+    private static final long PAYLOAD_MASK = (1L << PAYLOAD_BITS) - 1;
+
+    /**
+     * The number of longs per bucket: two slots of two words each.
+     */
+    private static final int BUCKET_LONGS = 4;
+
+    /**
+     * The buckets; see the class comment for the layout.
+     */
+    private final long[] table;
+
+    /**
+     * Mask that maps a key onto a bucket index.
+     */
+    private final int bucketMask;
+
+    /**
+     * The current search generation (0-255), stored in each entry so stale entries can
+     * be replaced first.
+     */
+    private volatile int generation;
+
+    /**
+     * Constructor for a TranspositionTable.
+     *
+     * @param sizeInBytes the approximate amount of memory to use; rounded down to a
+     *                    power-of-two number of 32-byte buckets
+     * @throws IllegalArgumentException if sizeInBytes is too small to hold a bucket
+     */
+    public TranspositionTable(long sizeInBytes) {
+        long buckets = sizeInBytes / (BUCKET_LONGS * Long.BYTES);
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Table too small: " + sizeInBytes);
+        }
+        int numBuckets = (int) Math.min(Long.highestOneBit(buckets), 1 << 26);
+        this.table = new long[numBuckets * BUCKET_LONGS];
+        this.bucketMask = numBuckets - 1;
+    }
+
+    /**
+     * Looks up the entry stored for a key.
+     *
+     * @param key the position key
+     * @return the entry's data word (see depthOf() and payloadOf()), or MISS
+     */
+    public long probe(long key) {
+        int base = this.bucketOf(key);
+        for (int slot = base; slot < base + BUCKET_LONGS; slot += 2) {
+            long data = this.table[slot + 1];
+            if ((this.table[slot] ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores an entry for a key, subject to the replacement policy described in the
+     * class comment.
+     *
+     * @param key     the position key
+     * @param depth   the depth the payload was computed at (0-MAX_DEPTH)
+     * @param payload the caller's data; only the low PAYLOAD_BITS bits are kept
+     */
+    public void store(long key, int depth, long payload) {
+        int gen = this.generation;
+        long data = VALID | ((long) Math.min(depth, MAX_DEPTH) << 56)
+            | ((long) gen << PAYLOAD_BITS) | (payload & PAYLOAD_MASK);
+        int base = this.bucketOf(key);
+
+        // Keep the deeper entry in the first slot unless it is from an older search or
+        // belongs to the same position
+        long old = this.table[base + 1];
+        boolean sameKey = (this.table[base] ^ old) == key;
+        if (old == MISS || sameKey || depth >= depthOf(old)
+            || generationOf(old) != gen) {
+            this.table[base + 1] = data;
+            this.table[base] = key ^ data;
+        } else {
+            this.table[base + 3] = data;
+            this.table[base + 2] = key ^ data;
+        }
+    }
+
+    /**
+     * Starts a new search generation, making every existing entry a preferred candidate
+     * for replacement without clearing it.
+     */
+    public void newGeneration() {
+        this.generation = (this.generation + 1) & 0xFF;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(this.table, MISS);
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public int capacity() {
+        return this.table.length / 2;
+    }
+
+    /**
+     * @param data a data word returned by probe()
+     * @return the depth the entry was stored with
+     */
+    public static int depthOf(long data) {
+        return (int) (data >>> 56) & MAX_DEPTH;
+    }
+
+    /**
+     * @param data a data word returned by probe()
+     * @return the caller's payload
+     */
+    public static long payloadOf(long data) {
+        return data & PAYLOAD_MASK;
+    }
+
+    /**
+     * @param data a data word
+     * @return the search generation the entry was stored in
+     */
+    private static int generationOf(long data) {
+        return (int) (data >>> PAYLOAD_BITS) & 0xFF;
+    }
+
+    /**
+     * @param key a position key
+     * @return the index of the first long of the key's bucket
+     */
+    private int bucketOf(long key) {
+        // Fold the high half in, so that every bit of the key affects the bucket
+        return ((int) (key ^ (key >>> 32)) & this.bucketMask) * BUCKET_LONGS;
+    }
+}
@@ -0,0 +1,116 @@
+package main.rice.events;
+
+import main.rice.Coordinate;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+
+/**
+ * An immutable record of one move made on a ChessBoard. Pieces are described by color
+ * and type rather than referenced, since the board keeps mutating them.
+ */
+public class MoveEvent {
+
+    /**
+     * The position of this event in its publisher's stream, starting at 0.
+     */
+    private final long sequence;
+
+    /**
+     * The color of the piece that moved.
+     */
+    private final Color color;
+
+    /**
+     * The type of the piece that moved.
+     */
+    private final PieceType type;
+
+    /**
+     * The position the piece moved from.
+     */
+    private final Coordinate from;
+
+    /**
+     * The position the piece moved to.
+     */
+    private final Coordinate to;
+
+    /**
+     * The type of the captured piece, or null if the move captured nothing.
+     */
+    private final PieceType captured;
+
+    /**
+     * Constructor for a MoveEvent.
+     *
+     * @param sequence the position of the event in its stream
+     * @param color    the color of the piece that moved
+     * @param type     the type of the piece that moved
+     * @param from     the position the piece moved from
+     * @param to       the position the piece moved to
+     * @param captured the type of the captured piece, or null if there was none
+     */
+    public MoveEvent(long sequence, Color color, PieceType type, Coordinate from,
+        Coordinate to, PieceType captured) {
+        this.sequence = sequence;
+        this.color = color;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.captured = captured;
+    }
+
+    /**
+     * @return the position of this event in its publisher's stream, starting at 0
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * @return the color of the piece that moved
+     */
+    public Color getColor() {
+        return this.color;
+    }
+
+    /**
+     * @return the type of the piece that moved
+     */
+    public PieceType getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the position the piece moved from
+     */
+    public Coordinate getFrom() {
+        return this.from;
+    }
+
+    /**
+     * @return the position the piece moved to
+     */
+    public Coordinate getTo() {
+        return this.to;
+    }
+
+    /**
+     * @return the type of the captured piece (whose color is the opposite of
+     * getColor()), or null if the move captured nothing
+     */
+    public PieceType getCaptured() {
+        return this.captured;
+    }
+
+    /**
+     * @return a short description of this event, e.g. "#3 WR (7, 0) -> (0, 0) x R"
+     */
+    @Override
+    public String toString() {
+        return "#" + this.sequence + " " + this.color.getDesignator()
+            + this.type.getDesignator() + " (" + this.from.getRow() + ", "
+            + this.from.getCol() + ") -> (" + this.to.getRow() + ", " + this.to.getCol()
+            + ")" + (this.captured == null ? "" : " x " + this.captured.getDesignator());
+    }
+}
@@ -0,0 +1,294 @@
+package main.rice.events;
+
+import main.rice.Coordinate;
+import main.rice.pieces.AChessPiece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Flow publisher of the moves made on a ChessBoard (see ChessBoard.setMoveEvents()),
+ * delivered in batches: each item is a list of consecutive MoveEvents.
+ *
+ * <p>The move path never waits on subscribers. publish() only appends the event to a
+ * bounded, lock-free queue (dropping it, and counting the drop, if the queue is full).
+ * A single drain task on the executor turns whatever has accumulated into batches and
+ * hands them to a SubmissionPublisher, which keeps a bounded buffer per subscriber and
+ * honors each subscriber's request(n). A batch that does not fit in a slow subscriber's
+ * buffer is dropped for that subscriber only, so gaps show up as jumps in the sequence
+ * numbers.
+ */
+public class MoveEventPublisher
+    implements Flow.Publisher<List<MoveEvent>>, AutoCloseable {
+
+    /**
+     * The default number of events that may wait to be batched.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+    /**
+     * The default maximum number of events per batch.
+     */
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    /**
+     * The default number of batches buffered per subscriber.
+     */
+    public static final int DEFAULT_SUBSCRIBER_BUFFER = 64;
+
+    /**
+     * Events waiting to be batched, in sequence order.
+     */
+    private final Queue<MoveEvent> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of events in queue.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * The maximum number of events in queue.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The maximum number of events per batch.
+     */
+    private final int maxBatch;
+
+    /**
+     * Delivers batches to subscribers.
+     */
+    private final SubmissionPublisher<List<MoveEvent>> publisher;
+
+    /**
+     * The executor that runs the drain task.
+     */
+    private final Executor executor;
+
+    /**
+     * True while a drain task is scheduled or running.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * The sequence number of the next event.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The number of events dropped because the queue was full.
+     */
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * The number of (subscriber, batch) deliveries dropped because a subscriber's buffer
+     * was full.
+     */
+    private final LongAdder droppedBatches = new LongAdder();
+
+    /**
+     * True once close() has been called.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor for a MoveEventPublisher with the default capacities, delivering on
+     * the common ForkJoinPool.
+     */
+    public MoveEventPublisher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH,
+            DEFAULT_SUBSCRIBER_BUFFER);
+    }
+
+    /**
+     * Constructor for a MoveEventPublisher.
+     *
+     * @param executor         the executor to batch and deliver events on
+     * @param queueCapacity    the maximum number of events waiting to be batched
+     * @param maxBatch         the maximum number of events per batch
+     * @param subscriberBuffer the maximum number of batches buffered per subscriber
+     * @throws IllegalArgumentException if a capacity is not positive
+     */
+    public MoveEventPublisher(Executor executor, int queueCapacity, int maxBatch,
+        int subscriberBuffer) {
+        if (queueCapacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Capacities must be positive");
+        }
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.maxBatch = maxBatch;
+        this.publisher = new SubmissionPublisher<>(executor, subscriberBuffer);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<MoveEvent>> subscriber) {
+        this.publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Records a move without waiting for any subscriber. Called by ChessBoard before the
+     * move is applied; events from one board must be published from one thread at a
+     * time.
+     *
+     * @param piece    the piece that is moving
+     * @param from     the position it moves from
+     * @param to       the position it moves to
+     * @param captured the piece at the destination, or null
+     * @return true if the event was queued; false if it was dropped because the queue is
+     * full, this publisher is closed, or the executor rejected the drain task
+     */
+    public boolean publish(AChessPiece piece, Coordinate from, Coordinate to,
+        AChessPiece captured) {
+        if (this.closed) {
+            return false;
+        }
+        long seq = this.sequence.getAndIncrement();
+        if (this.queued.incrementAndGet() > this.queueCapacity) {
+            this.queued.decrementAndGet();
+            this.droppedEvents.increment();
+            return false;
+        }
+
+        this.queue.add(new MoveEvent(seq, piece.getColor(), piece.getType(), from, to,
+            captured == null ? null : captured.getType()));
+        if (this.draining.compareAndSet(false, true)) {
+            return this.startDrain();
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full or the executor
+     * rejected the drain task
+     */
+    public long getDroppedEvents() {
+        return this.droppedEvents.sum();
+    }
+
+    /**
+     * @return the number of batches not delivered to a subscriber because its buffer was
+     * full, counted once per subscriber
+     */
+    public long getDroppedBatches() {
+        return this.droppedBatches.sum();
+    }
+
+    /**
+     * @return the number of current subscribers
+     */
+    public int getSubscriberCount() {
+        return this.publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Stops accepting events. Events already queued are still delivered, after which
+     * subscribers receive onComplete() (unless the executor no longer accepts tasks, in
+     * which case queued events are dropped).
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.draining.compareAndSet(false, true)) {
+            this.startDrain();
+        }
+    }
+
+    /**
+     * Starts a drain task; called after setting draining. If the executor rejects it
+     * (e.g. it has been shut down), drops every queued event instead, counting them in
+     * getDroppedEvents(), and clears draining the same way drain() does, so that a later
+     * publish() or close() tries again.
+     *
+     * @return true if the drain task was started
+     */
+    private boolean startDrain() {
+        try {
+            this.executor.execute(this::drain);
+            return true;
+        } catch (RejectedExecutionException e) {
+            while (true) {
+                while (this.queue.poll() != null) {
+                    this.queued.decrementAndGet();
+                    this.droppedEvents.increment();
+                }
+                if (this.closed) {
+                    this.closePublisher();
+                }
+                this.draining.set(false);
+                boolean more = this.queue.peek() != null
+                    || (this.closed && !this.publisher.isClosed());
+                if (!more || !this.draining.compareAndSet(false, true)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Batches and delivers queued events until the queue is empty, then completes the
+     * subscribers if this publisher is closed. Only one drain runs at a time.
+     */
+    private void drain() {
+        while (true) {
+            while (this.queue.peek() != null) {
+                List<MoveEvent> batch = new ArrayList<>(
+                    Math.min(this.queued.get(), this.maxBatch));
+                MoveEvent event;
+                while (batch.size() < this.maxBatch
+                    && (event = this.queue.poll()) != null) {
+                    batch.add(event);
+                }
+                this.queued.addAndGet(-batch.size());
+
+                // Events that raced with close() are discarded
+                if (!this.publisher.isClosed()) {
+                    try {
+                        this.publisher.offer(batch, (subscriber, dropped) -> {
+                            this.droppedBatches.increment();
+                            return false;
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // The executor was shut down while this drain ran
+                        this.droppedEvents.add(batch.size());
+                    }
+                }
+            }
+            if (this.closed) {
+                this.closePublisher();
+            }
+
+            // Stop, unless work arrived after the checks above but before the flag was
+            // cleared (its publish() or close() saw draining == true and started nothing)
+            this.draining.set(false);
+            boolean more = this.queue.peek() != null
+                || (this.closed && !this.publisher.isClosed());
+            if (!more || !this.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the underlying publisher. Subscribers are notified on the executor; if it
+     * no longer accepts tasks, they cannot be, but the publisher is closed regardless.
+     */
+    private void closePublisher() {
+        try {
+            this.publisher.close();
+        } catch (RejectedExecutionException e) {
+            // Nothing left to notify subscribers with
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package main.rice.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the records of a game log (see GameLogWriter) without loading the file: the
+ * file is memory-mapped one window at a time, and nextBatch() hands out read-only views
+ * of whole records inside the current window. A new window is mapped, starting at the
+ * first unread record, once the next record no longer fits in the current one.
+ *
+ * <p>Batches are independent views, so they can be handed to other threads and parsed
+ * there with the static record accessors, while this reader moves on.
+ */
+public class GameLogReader implements AutoCloseable {
+
+    /**
+     * The default size of each mapped window.
+     */
+    public static final int DEFAULT_WINDOW_BYTES = 64 << 20;
+
+    /**
+     * The file being read.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The path of the file, for error messages.
+     */
+    private final Path file;
+
+    /**
+     * The size of the file.
+     */
+    private final long size;
+
+    /**
+     * The maximum size of each mapped window.
+     */
+    private final int windowBytes;
+
+    /**
+     * The current window, or null before the first one is mapped.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * The file offset of the start of the current window.
+     */
+    private long windowStart;
+
+    /**
+     * The file offset of the first unread record.
+     */
+    private long position = GameLogWriter.HEADER_BYTES;
+
+    /**
+     * Constructor for a GameLogReader with the default window size.
+     *
+     * @param file the file to read
+     * @throws IOException if the file cannot be opened or is not a game log
+     */
+    public GameLogReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Constructor for a GameLogReader.
+     *
+     * @param file        the file to read
+     * @param windowBytes the maximum size of each mapped window; must hold the largest
+     *                    record in the file
+     * @throws IOException if the file cannot be opened or is not a game log
+     */
+    public GameLogReader(Path file, int windowBytes) throws IOException {
+        this.file = file;
+        this.windowBytes = windowBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = this.channel.size();
+            ByteBuffer header = ByteBuffer.allocate(GameLogWriter.HEADER_BYTES);
+            while (header.hasRemaining() && this.channel.read(header) >= 0) {
+                continue;
+            }
+            header.flip();
+            if (header.remaining() < GameLogWriter.HEADER_BYTES
+                || header.getInt() != GameLogWriter.MAGIC
+                || header.getInt() != GameLogWriter.VERSION) {
+                throw new IOException("Not a version " + GameLogWriter.VERSION
+                    + " game log: " + file);
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a view of the next records in the file.
+     *
+     * @param maxGames the maximum number of records to include
+     * @return a read-only buffer holding one or more whole records, or null at the end
+     * of the file
+     * @throws IOException if the file cannot be mapped, or a record is truncated or
+     *                     larger than the window
+     */
+    public ByteBuffer nextBatch(int maxGames) throws IOException {
+        if (this.position >= this.size) {
+            return null;
+        }
+        if (this.recordEnd(this.position) < 0) {
+            // Remap so that the window starts at the next record
+            this.windowStart = this.position;
+            long length = Math.min(this.windowBytes, this.size - this.windowStart);
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                this.windowStart, length);
+            if (this.recordEnd(this.position) < 0) {
+                throw new IOException("Truncated or oversized record at offset "
+                    + this.position + " of " + this.file);
+            }
+        }
+
+        long start = this.position;
+        int games = 0;
+        long end;
+        while (games < maxGames && this.position < this.size
+            && (end = this.recordEnd(this.position)) >= 0) {
+            this.position = end;
+            games++;
+        }
+
+        ByteBuffer batch = this.window.duplicate();
+        batch.position((int) (start - this.windowStart));
+        batch.limit((int) (this.position - this.windowStart));
+        return batch.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Closes the file. Batches already handed out stay readable.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * @param batch a batch positioned at the start of a record
+     * @return the id of the game, without moving the position
+     */
+    public static long gameId(ByteBuffer batch) {
+        return batch.getLong(batch.position());
+    }
+
+    /**
+     * @param batch a batch positioned at the start of a record
+     * @return the number of moves in the game, without moving the position
+     */
+    public static int moveCount(ByteBuffer batch) {
+        return batch.getInt(batch.position() + Long.BYTES);
+    }
+
+    /**
+     * @param batch a batch positioned at the start of a record
+     * @param index the index of a move in the game
+     * @return the move's start square, without moving the position
+     */
+    public static int moveFrom(ByteBuffer batch, int index) {
+        return moveAt(batch, index) & 0x3F;
+    }
+
+    /**
+     * @param batch a batch positioned at the start of a record
+     * @param index the index of a move in the game
+     * @return the move's end square, without moving the position
+     */
+    public static int moveTo(ByteBuffer batch, int index) {
+        return (moveAt(batch, index) >>> 6) & 0x3F;
+    }
+
+    /**
+     * Advances a batch past the record at its position.
+     *
+     * @param batch a batch positioned at the start of a record
+     */
+    public static void skipGame(ByteBuffer batch) {
+        batch.position(batch.position() + GameLogWriter.RECORD_HEADER_BYTES
+            + moveCount(batch) * GameLogWriter.MOVE_BYTES);
+    }
+
+    /**
+     * @param batch a batch positioned at the start of a record
+     * @param index the index of a move in the game
+     * @return the encoded move
+     */
+    private static int moveAt(ByteBuffer batch, int index) {
+        return batch.getShort(batch.position() + GameLogWriter.RECORD_HEADER_BYTES
+            + index * GameLogWriter.MOVE_BYTES);
+    }
+
+    /**
+     * @param offset the file offset of a record
+     * @return the file offset just past the record, or -1 if the record does not lie
+     * entirely within the current window
+     * @throws IOException if the record is corrupt
+     */
+    private long recordEnd(long offset) throws IOException {
+        if (this.window == null) {
+            return -1;
+        }
+        long windowEnd = this.windowStart + this.window.limit();
+        if (offset < this.windowStart
+            || offset + GameLogWriter.RECORD_HEADER_BYTES > windowEnd) {
+            return -1;
+        }
+        int moves = this.window.getInt((int) (offset - this.windowStart) + Long.BYTES);
+        if (moves < 0) {
+            throw new IOException("Corrupt record at offset " + offset + " of "
+                + this.file);
+        }
+        long end = offset + GameLogWriter.RECORD_HEADER_BYTES
+            + (long) moves * GameLogWriter.MOVE_BYTES;
+        return end <= windowEnd ? end : -1;
+    }
+}
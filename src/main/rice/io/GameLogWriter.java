@@ -0,0 +1,128 @@
+package main.rice.io;
+
+import main.rice.MoveBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes game logs: archives of games, each stored as its id and its list of moves. A
+ * log starts with the 4-byte MAGIC and a 4-byte VERSION, followed by one record per
+ * game: the game id (8 bytes), the number of moves (4 bytes), and each move as 2 bytes
+ * (from | to << 6, with squares numbered row * 8 + col). All values are big-endian.
+ * Records are staged through one direct buffer, so writing creates no per-move objects.
+ */
+public class GameLogWriter implements AutoCloseable {
+
+    /**
+     * The first four bytes of every game log ("RGL1").
+     */
+    public static final int MAGIC = 0x52474C31;
+
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes before the first record.
+     */
+    public static final int HEADER_BYTES = 8;
+
+    /**
+     * The number of bytes of a record before its moves.
+     */
+    public static final int RECORD_HEADER_BYTES = 12;
+
+    /**
+     * The number of bytes per move.
+     */
+    public static final int MOVE_BYTES = 2;
+
+    /**
+     * The size of the staging buffer.
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The file being written.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Records waiting to be written.
+     */
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /**
+     * Constructor for a GameLogWriter; creates the file, or replaces its contents.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be opened
+     */
+    public GameLogWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buf.putInt(MAGIC).putInt(VERSION);
+    }
+
+    /**
+     * Appends one game.
+     *
+     * @param gameId the id of the game
+     * @param moves  the moves of the game, in order (see MoveBuffer)
+     * @throws IOException if the file cannot be written
+     */
+    public void writeGame(long gameId, MoveBuffer moves) throws IOException {
+        this.ensureRemaining(RECORD_HEADER_BYTES);
+        this.buf.putLong(gameId).putInt(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            this.ensureRemaining(MOVE_BYTES);
+            int packed = MoveBuffer.from(move) | (MoveBuffer.to(move) << 6);
+            this.buf.putShort((short) packed);
+        }
+    }
+
+    /**
+     * Writes out any staged records and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Makes room for the given number of bytes in the staging buffer.
+     *
+     * @param bytes the number of bytes about to be put
+     * @throws IOException if the file cannot be written
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (this.buf.remaining() < bytes) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Writes out everything staged and empties the buffer for reuse.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void flush() throws IOException {
+        this.buf.flip();
+        while (this.buf.hasRemaining()) {
+            this.channel.write(this.buf);
+        }
+        this.buf.clear();
+    }
+}
@@ -0,0 +1,843 @@
+package main.rice.io;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead journal of hosted games, so that they survive a crash. Every change to a
+ * game (a new board, an accepted move, the end of the game) is appended as a record, and
+ * the log call returns only once the record is on disk. Concurrent callers share disk
+ * syncs (group commit): while one caller writes and syncs a batch of records, the others
+ * stage theirs in a buffer, and the next sync covers all of them. Opening a journal
+ * recovers every game it holds by replaying its records.
+ *
+ * <p>The journal lives in a directory of segment files (journal-N.log) and an optional
+ * snapshot (snapshot.bin). compact() starts a new segment, writes the current boards to
+ * a new snapshot, and deletes the segments the snapshot replaces, so recovery time stays
+ * bounded. Each record carries a journal-wide sequence number (LSN), and the snapshot
+ * stores, per game, the LSN of the last record its board reflects; recovery skips
+ * records the snapshot already covers, so games may keep moving while it is taken.
+ *
+ * <p>Records are big-endian: LSN (8 bytes), game id (8), op (2), for BOARD a 32-byte
+ * board snapshot (see ChessBoard.writeTo()), then a CRC32 of all of the above (4). The
+ * op is from | to << 6 for a move, or OP_BOARD or OP_END. A torn record at the end of
+ * the newest segment (from a crash mid-write) is discarded on open, but a missing segment
+ * fails it.
+ */
+public class MoveJournal implements AutoCloseable {
+
+    /**
+     * The first four bytes of every segment ("RMJ1").
+     */
+    public static final int MAGIC = 0x524D4A31;
+
+    /**
+     * The first four bytes of every snapshot ("RMS1").
+     */
+    public static final int SNAPSHOT_MAGIC = 0x524D5331;
+
+    /**
+     * The version of the formats written by this class.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes before the first record of a segment.
+     */
+    public static final int HEADER_BYTES = 8;
+
+    /**
+     * The op of a record holding a whole board; the game starts (or restarts) from it.
+     */
+    public static final int OP_BOARD = 0x1000;
+
+    /**
+     * The op of a record ending a game.
+     */
+    public static final int OP_END = 0x2000;
+
+    /**
+     * The default segment size beyond which needsCompaction() returns true.
+     */
+    public static final long DEFAULT_COMPACT_BYTES = 64L << 20;
+
+    /**
+     * The name of the snapshot file.
+     */
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    /**
+     * The number of bytes of a record before its payload: LSN, game id and op.
+     */
+    private static final int RECORD_HEADER_BYTES = 18;
+
+    /**
+     * The number of bytes of a record's checksum.
+     */
+    private static final int CRC_BYTES = 4;
+
+    /**
+     * The largest record, a BOARD record.
+     */
+    private static final int MAX_RECORD_BYTES =
+        RECORD_HEADER_BYTES + ChessBoard.SNAPSHOT_BYTES + CRC_BYTES;
+
+    /**
+     * The number of bytes of a game in a snapshot: id, LSN and board.
+     */
+    private static final int SNAPSHOT_ENTRY_BYTES = 16 + ChessBoard.SNAPSHOT_BYTES;
+
+    /**
+     * The size of each staging buffer.
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Collects the games of a snapshot being taken by compact().
+     */
+    public static class SnapshotWriter {
+
+        /**
+         * The entries collected so far.
+         */
+        private final List<ByteBuffer> entries = new ArrayList<>();
+
+        /**
+         * Private constructor; instances are handed out by compact().
+         */
+        private SnapshotWriter() {
+        }
+
+        /**
+         * Adds a game to the snapshot. Must be called while the game cannot change, so
+         * that the board and the LSN match.
+         *
+         * @param gameId the id of the game
+         * @param lsn    the LSN returned by the last log call for the game, or 0 if
+         *               there was none since the journal was opened
+         * @param board  the current board of the game
+         */
+        public void add(long gameId, long lsn, ChessBoard board) {
+            ByteBuffer entry = ByteBuffer.allocate(SNAPSHOT_ENTRY_BYTES);
+            entry.putLong(gameId).putLong(lsn);
+            board.writeTo(entry);
+            entry.flip();
+            this.entries.add(entry);
+        }
+    }
+
+    /**
+     * The directory holding the segments and the snapshot.
+     */
+    private final Path dir;
+
+    /**
+     * needsCompaction() returns true once the current segment is at least this large.
+     */
+    private final long compactBytes;
+
+    /**
+     * The games recovered on open, by id.
+     */
+    private final Map<Long, ChessBoard> recovered;
+
+    /**
+     * Guards every field below, and the current channel.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled whenever a flush finishes.
+     */
+    private final Condition flushed = this.lock.newCondition();
+
+    /**
+     * Serializes compact() calls.
+     */
+    private final ReentrantLock compactLock = new ReentrantLock();
+
+    /**
+     * Reused to checksum records; only used while holding lock.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Records staged for the next flush.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_BYTES);
+
+    /**
+     * Records being written by the current flush; swapped with pending.
+     */
+    private ByteBuffer writing = ByteBuffer.allocate(BUFFER_BYTES);
+
+    /**
+     * The segment being appended to.
+     */
+    private FileChannel channel;
+
+    /**
+     * The generation (N in journal-N.log) of the current segment.
+     */
+    private long generation;
+
+    /**
+     * The size of the current segment, including staged records.
+     */
+    private long segmentBytes;
+
+    /**
+     * The LSN of the next record; LSNs start at 1.
+     */
+    private long nextLsn = 1;
+
+    /**
+     * Every record with a smaller LSN than this is on disk.
+     */
+    private long durableLsn;
+
+    /**
+     * True while a caller is writing and syncing outside the lock.
+     */
+    private boolean flushing;
+
+    /**
+     * The number of disk syncs so far.
+     */
+    private long syncs;
+
+    /**
+     * The number of records logged so far.
+     */
+    private long records;
+
+    /**
+     * The error that broke the journal, or null; once set, every log call fails.
+     */
+    private IOException failure;
+
+    /**
+     * Constructor for a MoveJournal with the default compaction threshold.
+     *
+     * @param dir the directory of the journal; created if it does not exist
+     * @throws IOException if the journal cannot be opened or is corrupt
+     */
+    public MoveJournal(Path dir) throws IOException {
+        this(dir, DEFAULT_COMPACT_BYTES);
+    }
+
+    /**
+     * Constructor for a MoveJournal. Recovers the games in the journal (see
+     * getRecoveredGames()) and opens its newest segment for appending.
+     *
+     * @param dir          the directory of the journal; created if it does not exist
+     * @param compactBytes the segment size from which needsCompaction() returns true
+     * @throws IOException if the journal cannot be opened or is corrupt
+     */
+    public MoveJournal(Path dir, long compactBytes) throws IOException {
+        this.dir = dir;
+        this.compactBytes = compactBytes;
+        Files.createDirectories(dir);
+
+        // Load the snapshot, then replay the segments it does not replace
+        Map<Long, ChessBoard> games = new HashMap<>();
+        Map<Long, Long> snapshotLsns = new HashMap<>();
+        long firstGeneration = this.readSnapshot(games, snapshotLsns);
+        List<Long> generations = this.listSegments();
+        generations.removeIf(generation -> generation < firstGeneration);
+        checkContiguous(generations, firstGeneration, dir);
+        for (int i = 0; i < generations.size(); i++) {
+            this.replaySegment(generations.get(i), i == generations.size() - 1, games,
+                snapshotLsns);
+        }
+        this.recovered = Collections.unmodifiableMap(games);
+        this.durableLsn = this.nextLsn;
+
+        // Continue the newest segment, or start the first one
+        if (generations.isEmpty()) {
+            this.generation = firstGeneration;
+            this.channel = this.createSegment(this.generation);
+        } else {
+            this.generation = generations.get(generations.size() - 1);
+            this.channel = FileChannel.open(this.segmentPath(this.generation),
+                StandardOpenOption.WRITE);
+            this.channel.position(this.channel.size());
+        }
+        this.segmentBytes = this.channel.size();
+    }
+
+    /**
+     * @return the games held by the journal when it was opened, by id; the boards are
+     * handed over to the caller
+     */
+    public Map<Long, ChessBoard> getRecoveredGames() {
+        return this.recovered;
+    }
+
+    /**
+     * Logs the start of a game (or a new position for it), waiting until it is on disk.
+     *
+     * @param gameId the id of the game
+     * @param board  the board the game starts from
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written; the journal is then broken
+     */
+    public long logBoard(long gameId, ChessBoard board) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        board.writeTo(payload);
+        payload.flip();
+        return this.log(gameId, OP_BOARD, payload);
+    }
+
+    /**
+     * Logs an accepted move, waiting until it is on disk. Log the move before applying
+     * it, so that a failure leaves the board and the journal in agreement.
+     *
+     * @param gameId the id of the game
+     * @param from   the start square of the move (row * 8 + col)
+     * @param to     the end square of the move (row * 8 + col)
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written; the journal is then broken
+     */
+    public long logMove(long gameId, int from, int to) throws IOException {
+        return this.log(gameId, from | (to << 6), null);
+    }
+
+    /**
+     * Logs the end of a game, waiting until it is on disk; recovery drops the game.
+     *
+     * @param gameId the id of the game
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written; the journal is then broken
+     */
+    public long logEnd(long gameId) throws IOException {
+        return this.log(gameId, OP_END, null);
+    }
+
+    /**
+     * @return true once the current segment has grown past the compaction threshold
+     */
+    public boolean needsCompaction() {
+        this.lock.lock();
+        try {
+            return this.segmentBytes >= this.compactBytes;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the journal's history with a snapshot of the current games. Starts a new
+     * segment, lets collector add every live game to the snapshot (see
+     * SnapshotWriter.add()), makes the snapshot durable, and deletes the older segments.
+     * Games may keep moving meanwhile; a crash at any point leaves a recoverable journal.
+     *
+     * @param collector adds every live game to the snapshot
+     * @throws IOException if the snapshot cannot be written; the old segments are then
+     *                     kept, so nothing is lost
+     */
+    public void compact(Consumer<SnapshotWriter> collector) throws IOException {
+        this.compactLock.lock();
+        try {
+            long snapshotGeneration = this.startSegment();
+            SnapshotWriter snapshot = new SnapshotWriter();
+            collector.accept(snapshot);
+            this.writeSnapshot(snapshotGeneration, snapshot);
+            for (long generation : this.listSegments()) {
+                if (generation < snapshotGeneration) {
+                    Files.deleteIfExists(this.segmentPath(generation));
+                }
+            }
+        } finally {
+            this.compactLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of records logged since the journal was opened
+     */
+    public long getRecordCount() {
+        this.lock.lock();
+        try {
+            return this.records;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of disk syncs since the journal was opened; with concurrent
+     * callers, lower than getRecordCount() thanks to group commit
+     */
+    public long getSyncCount() {
+        this.lock.lock();
+        try {
+            return this.syncs;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out any staged records and closes the current segment.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            try {
+                if (this.failure == null) {
+                    this.flushAll();
+                }
+            } finally {
+                this.channel.close();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record and waits until it is on disk. If no flush is running, the caller
+     * flushes everything staged so far (including other callers' records); otherwise it
+     * waits for the running flush, and flushes next if that one did not cover its record.
+     *
+     * @param gameId  the id of the game
+     * @param op      the op of the record
+     * @param payload the payload of the record, or null
+     * @return the LSN of the record
+     * @throws IOException if the record cannot be written
+     */
+    private long log(long gameId, int op, ByteBuffer payload) throws IOException {
+        this.lock.lock();
+        try {
+            this.checkFailure();
+
+            // Stage the record, waiting for the running flush if the buffer is full
+            while (this.pending.remaining() < MAX_RECORD_BYTES) {
+                if (!this.flushing) {
+                    this.flushBatch();
+                } else {
+                    this.flushed.awaitUninterruptibly();
+                    this.checkFailure();
+                }
+            }
+            long lsn = this.nextLsn++;
+            int start = this.pending.position();
+            this.pending.putLong(lsn).putLong(gameId).putShort((short) op);
+            if (payload != null) {
+                this.pending.put(payload);
+            }
+            this.crc.reset();
+            this.crc.update(this.pending.array(), start, this.pending.position() - start);
+            this.pending.putInt((int) this.crc.getValue());
+            this.segmentBytes += this.pending.position() - start;
+            this.records++;
+
+            // Group commit: lead a flush, or wait for someone else's to cover the record
+            while (this.durableLsn <= lsn) {
+                if (!this.flushing) {
+                    this.flushBatch();
+                } else {
+                    this.flushed.awaitUninterruptibly();
+                    this.checkFailure();
+                }
+            }
+            return lsn;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and syncs everything staged so far. Called with lock held and no flush
+     * running; releases lock during the I/O so that other callers can stage records.
+     *
+     * @throws IOException if the records cannot be written; the journal is then broken
+     */
+    private void flushBatch() throws IOException {
+        ByteBuffer batch = this.pending;
+        this.pending = this.writing;
+        this.writing = batch;
+        long target = this.nextLsn;
+        FileChannel segment = this.channel;
+        this.flushing = true;
+        this.lock.unlock();
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                segment.write(batch);
+            }
+            segment.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            this.lock.lock();
+            batch.clear();
+            this.flushing = false;
+            if (error == null) {
+                this.durableLsn = target;
+                this.syncs++;
+            } else {
+                this.failure = error;
+            }
+            this.flushed.signalAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Flushes until every staged record is on disk. Called with lock held.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    private void flushAll() throws IOException {
+        while (this.durableLsn < this.nextLsn) {
+            if (!this.flushing) {
+                this.flushBatch();
+            } else {
+                this.flushed.awaitUninterruptibly();
+                this.checkFailure();
+            }
+        }
+    }
+
+    /**
+     * @throws IOException if the journal is broken
+     */
+    private void checkFailure() throws IOException {
+        if (this.failure != null) {
+            throw new IOException("Journal failed earlier: " + this.dir, this.failure);
+        }
+    }
+
+    /**
+     * Flushes the current segment and switches appends to a new one.
+     *
+     * @return the generation of the new segment
+     * @throws IOException if either segment cannot be written
+     */
+    private long startSegment() throws IOException {
+        this.lock.lock();
+        try {
+            this.checkFailure();
+            this.flushAll();
+            FileChannel next = this.createSegment(this.generation + 1);
+            this.channel.close();
+            this.channel = next;
+            this.generation++;
+            this.segmentBytes = HEADER_BYTES;
+            return this.generation;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a segment, durably, holding only its header.
+     *
+     * @param generation the generation of the segment
+     * @return the segment, open for appending
+     * @throws IOException if the segment cannot be created
+     */
+    private FileChannel createSegment(long generation) throws IOException {
+        FileChannel segment = FileChannel.open(this.segmentPath(generation),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                segment.write(header);
+            }
+            segment.force(true);
+            this.syncDirectory();
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, syncs it, and renames it over the old one.
+     *
+     * @param generation the first segment not replaced by the snapshot
+     * @param snapshot   the games of the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    private void writeSnapshot(long generation, SnapshotWriter snapshot)
+        throws IOException {
+        long lsn;
+        this.lock.lock();
+        try {
+            lsn = this.nextLsn;
+        } finally {
+            this.lock.unlock();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(28);
+        header.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(generation).putLong(lsn)
+            .putInt(snapshot.entries.size()).flip();
+        CRC32 checksum = new CRC32();
+        Path tmp = this.dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            checksum.update(header.duplicate());
+            writeFully(out, header);
+            for (ByteBuffer entry : snapshot.entries) {
+                checksum.update(entry.duplicate());
+                writeFully(out, entry);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(CRC_BYTES);
+            trailer.putInt((int) checksum.getValue()).flip();
+            writeFully(out, trailer);
+            out.force(true);
+        }
+        Files.move(tmp, this.dir.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        // The rename must reach the disk before compact() deletes the older segments
+        this.syncDirectory();
+    }
+
+    /**
+     * Syncs the directory, so that files created, renamed or deleted in it so far
+     * survive a crash.
+     *
+     * @throws IOException if the directory cannot be synced
+     */
+    private void syncDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(this.dir,
+            StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    /**
+     * Loads the snapshot, if any.
+     *
+     * @param games        receives the games of the snapshot
+     * @param snapshotLsns receives, per game, the LSN its snapshot board reflects
+     * @return the first segment not replaced by the snapshot (0 without a snapshot)
+     * @throws IOException if the snapshot cannot be read or is corrupt
+     */
+    private long readSnapshot(Map<Long, ChessBoard> games, Map<Long, Long> snapshotLsns)
+        throws IOException {
+        Path file = this.dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 checksum = new CRC32();
+        checksum.update(buf.array(), 0, Math.max(0, buf.limit() - CRC_BYTES));
+        if (buf.remaining() < 28 + CRC_BYTES || buf.getInt() != SNAPSHOT_MAGIC
+            || buf.getInt() != VERSION
+            || buf.getInt(buf.limit() - CRC_BYTES) != (int) checksum.getValue()) {
+            throw new IOException("Corrupt snapshot: " + file);
+        }
+        long generation = buf.getLong();
+        this.nextLsn = buf.getLong();
+        int count = buf.getInt();
+        if (buf.remaining() != (long) count * SNAPSHOT_ENTRY_BYTES + CRC_BYTES) {
+            throw new IOException("Corrupt snapshot: " + file);
+        }
+        for (int i = 0; i < count; i++) {
+            long gameId = buf.getLong();
+            long lsn = buf.getLong();
+            ChessBoard board = ChessBoard.empty();
+            board.readFrom(buf);
+            games.put(gameId, board);
+            snapshotLsns.put(gameId, lsn);
+            this.nextLsn = Math.max(this.nextLsn, lsn + 1);
+        }
+        return generation;
+    }
+
+    /**
+     * Checks that no segment is missing from the ones recovery is about to replay. A gap
+     * means records were lost, e.g. if a crash undid the snapshot rename of compact()
+     * but not its deletes, and replaying around it would silently corrupt the games.
+     *
+     * @param generations     the generations of the segments to replay, in order
+     * @param firstGeneration the first segment not replaced by the snapshot
+     * @param dir             the directory of the journal, for error messages
+     * @throws IOException if a segment is missing
+     */
+    private static void checkContiguous(List<Long> generations, long firstGeneration,
+        Path dir) throws IOException {
+        long expected = firstGeneration;
+        for (long generation : generations) {
+            if (generation != expected) {
+                throw new IOException("Missing journal segment journal-" + expected
+                    + ".log in " + dir);
+            }
+            expected++;
+        }
+    }
+
+    /**
+     * Replays the records of a segment onto the recovered games.
+     *
+     * @param generation   the generation of the segment
+     * @param last         true for the newest segment, whose torn tail is truncated
+     * @param games        the games recovered so far
+     * @param snapshotLsns per game, the LSN its snapshot board reflects
+     * @throws IOException if the segment cannot be read or is corrupt
+     */
+    private void replaySegment(long generation, boolean last, Map<Long, ChessBoard> games,
+        Map<Long, Long> snapshotLsns) throws IOException {
+        Path file = this.segmentPath(generation);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC
+                || buf.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " journal segment: "
+                    + file);
+            }
+
+            CRC32 checksum = new CRC32();
+            while (buf.hasRemaining()) {
+                int start = buf.position();
+                int length = recordLength(buf);
+                if (length > 0) {
+                    checksum.reset();
+                    checksum.update(buf.duplicate().limit(start + length - CRC_BYTES));
+                }
+                if (length < 0 || checksum.getValue() != (buf.getInt(start + length
+                    - CRC_BYTES) & 0xFFFFFFFFL)) {
+                    if (!last) {
+                        throw new IOException("Corrupt record at offset " + start
+                            + " of " + file);
+                    }
+                    // A crash interrupted this write; drop it
+                    in.truncate(start);
+                    in.force(true);
+                    return;
+                }
+                this.replayRecord(buf, games, snapshotLsns, file);
+                buf.position(start + length);
+            }
+        }
+    }
+
+    /**
+     * @param buf a buffer positioned at the start of a record
+     * @return the length of the record, or -1 if it is incomplete or has an unknown op
+     */
+    private static int recordLength(ByteBuffer buf) {
+        if (buf.remaining() < RECORD_HEADER_BYTES + CRC_BYTES) {
+            return -1;
+        }
+        int kind = buf.getShort(buf.position() + 16) & 0xF000;
+        int length = RECORD_HEADER_BYTES + CRC_BYTES;
+        if (kind == OP_BOARD) {
+            length += ChessBoard.SNAPSHOT_BYTES;
+        } else if (kind != 0 && kind != OP_END) {
+            return -1;
+        }
+        return buf.remaining() < length ? -1 : length;
+    }
+
+    /**
+     * Applies one checked record to the recovered games.
+     *
+     * @param buf          a buffer positioned at the start of the record
+     * @param games        the games recovered so far
+     * @param snapshotLsns per game, the LSN its snapshot board reflects
+     * @param file         the segment, for error messages
+     * @throws IOException if the record contradicts the games recovered so far
+     */
+    private void replayRecord(ByteBuffer buf, Map<Long, ChessBoard> games,
+        Map<Long, Long> snapshotLsns, Path file) throws IOException {
+        int start = buf.position();
+        long lsn = buf.getLong();
+        long gameId = buf.getLong();
+        int op = buf.getShort() & 0xFFFF;
+        this.nextLsn = Math.max(this.nextLsn, lsn + 1);
+
+        // Skip what the snapshot already reflects
+        Long covered = snapshotLsns.get(gameId);
+        if (covered != null && lsn <= covered) {
+            return;
+        }
+        if (op == OP_BOARD) {
+            ChessBoard board = ChessBoard.empty();
+            board.readFrom(buf);
+            games.put(gameId, board);
+        } else if (op == OP_END) {
+            games.remove(gameId);
+        } else {
+            // Moves of a game ended before the snapshot have nothing to apply to
+            ChessBoard board = games.get(gameId);
+            int from = op & 0x3F;
+            int to = (op >>> 6) & 0x3F;
+            if (board != null && !board.move(from, to)) {
+                throw new IOException("Journaled move " + Coordinate.ofSquare(from)
+                    + " -> " + Coordinate.ofSquare(to) + " of game " + gameId
+                    + " rejected at offset " + start + " of " + file);
+            }
+        }
+    }
+
+    /**
+     * @return the generations of the segments in the directory, in increasing order
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.dir,
+            "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(8, name.length() - 4)));
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    /**
+     * @param generation the generation of a segment
+     * @return the path of the segment
+     */
+    private Path segmentPath(long generation) {
+        return this.dir.resolve("journal-" + generation + ".log");
+    }
+
+    /**
+     * Writes all of a buffer.
+     *
+     * @param out the channel to write to
+     * @param buf the buffer to write
+     * @throws IOException if the channel cannot be written
+     */
+    private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package main.rice.io;
+
+import main.rice.ChessBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk checkpointing of positions to and from files. A snapshot file is simply a
+ * sequence of ChessBoard.SNAPSHOT_BYTES-byte snapshots (see ChessBoard.writeTo()), so the
+ * n-th position starts at byte n * 32 and files can be appended to or split freely.
+ * Positions are staged through one direct buffer per call, so writing creates no
+ * per-position objects.
+ */
+public final class SnapshotFiles {
+
+    /**
+     * The number of positions staged in the buffer between FileChannel calls.
+     */
+    private static final int POSITIONS_PER_BUFFER = 2048;
+
+    /**
+     * Private constructor; this class only holds static methods.
+     */
+    private SnapshotFiles() {
+    }
+
+    /**
+     * Writes the given positions to a file, replacing its contents.
+     *
+     * @param file   the file to write
+     * @param boards the positions to write, in order
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Iterable<ChessBoard> boards) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, boards);
+        }
+    }
+
+    /**
+     * Writes the given positions to a channel at its current position.
+     *
+     * @param channel the channel to write to
+     * @param boards  the positions to write, in order
+     * @throws IOException if the channel cannot be written
+     */
+    public static void write(FileChannel channel, Iterable<ChessBoard> boards)
+        throws IOException {
+        ByteBuffer buf = newBuffer();
+        for (ChessBoard board : boards) {
+            if (buf.remaining() < ChessBoard.SNAPSHOT_BYTES) {
+                drain(channel, buf);
+            }
+            board.writeTo(buf);
+        }
+        drain(channel, buf);
+    }
+
+    /**
+     * Reads every position in a file.
+     *
+     * @param file the file to read
+     * @return the positions in the file, in order
+     * @throws IOException if the file cannot be read, or if its length is not a multiple
+     *                     of the snapshot size
+     */
+    public static List<ChessBoard> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ChessBoard.SNAPSHOT_BYTES != 0) {
+                throw new IOException("Truncated snapshot file: " + file);
+            }
+
+            int count = (int) (size / ChessBoard.SNAPSHOT_BYTES);
+            List<ChessBoard> boards = new ArrayList<>(count);
+            ByteBuffer buf = newBuffer();
+            while (boards.size() < count) {
+                if (channel.read(buf) < 0) {
+                    throw new IOException("Unexpected end of snapshot file: " + file);
+                }
+                buf.flip();
+                while (buf.remaining() >= ChessBoard.SNAPSHOT_BYTES) {
+                    ChessBoard board = ChessBoard.empty();
+                    board.readFrom(buf);
+                    boards.add(board);
+                }
+                buf.compact();
+            }
+            return boards;
+        }
+    }
+
+    /**
+     * @return a direct buffer holding a whole number of snapshots
+     */
+    private static ByteBuffer newBuffer() {
+        return ByteBuffer.allocateDirect(
+            POSITIONS_PER_BUFFER * ChessBoard.SNAPSHOT_BYTES);
+    }
+
+    /**
+     * Writes out everything staged in buf and empties it for reuse.
+     *
+     * @param channel the channel to write to
+     * @param buf     the buffer, in write mode
+     * @throws IOException if the channel cannot be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+}
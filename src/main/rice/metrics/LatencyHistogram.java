@@ -0,0 +1,109 @@
+package main.rice.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies with power-of-two buckets: bucket b counts the
+ * latencies from 2^(b-1) up to 2^b - 1 nanoseconds (bucket 0 counts zeros). Recording
+ * is a couple of LongAdder increments, so it stays cheap under contention; percentiles
+ * are accurate to within a factor of two, which is enough to spot regressions.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of buckets: one per possible bit length of a non-negative long.
+     */
+    public static final int BUCKETS = Long.SIZE;
+
+    /**
+     * The count of each bucket.
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    /**
+     * The sum of all recorded latencies, in nanoseconds.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Constructor for a LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency, in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        this.buckets[BUCKETS - Long.numberOfLeadingZeros(value)].increment();
+        this.total.add(value);
+    }
+
+    /**
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : this.buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the mean recorded latency in nanoseconds, or 0 if there are none
+     */
+    public double getMean() {
+        long count = this.getCount();
+        return count == 0 ? 0 : (double) this.total.sum() / count;
+    }
+
+    /**
+     * @param fraction the fraction of latencies to cover, between 0 and 1; e.g. 0.99
+     * @return an upper bound (in nanoseconds) on the given fraction of the recorded
+     * latencies, or 0 if there are none
+     */
+    public long getPercentile(double fraction) {
+        long[] counts = this.getBuckets();
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank && seen > 0) {
+                return b == 0 ? 0 : (1L << b) - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the count of each bucket (see the class comment)
+     */
+    public long[] getBuckets() {
+        long[] counts = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = this.buckets[b].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Forgets every recorded latency.
+     */
+    public void reset() {
+        for (LongAdder bucket : this.buckets) {
+            bucket.reset();
+        }
+        this.total.reset();
+    }
+}
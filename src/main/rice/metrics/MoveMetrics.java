@@ -0,0 +1,251 @@
+package main.rice.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide instrumentation of the move path: counts of accepted moves and of
+ * rejected moves by reason, and latency histograms of ChessBoard.move() and
+ * AChessPiece.validateMove().
+ *
+ * <p>Instrumentation is off unless the JVM is started with -Dmain.rice.metrics=true.
+ * ENABLED is a static final flag, so when it is false the JIT folds every
+ * "if (MoveMetrics.ENABLED)" guard away and the move path runs exactly as it would
+ * without instrumentation. When it is true, the metrics are exported over JMX as
+ * main.rice:type=MoveMetrics (see MoveMetricsMBean).
+ */
+public final class MoveMetrics implements MoveMetricsMBean {
+
+    /**
+     * Name of the system property that enables instrumentation.
+     */
+    public static final String PROPERTY = "main.rice.metrics";
+
+    /**
+     * True if instrumentation is enabled; fixed when this class is initialized.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /**
+     * The JMX name the metrics are registered under.
+     */
+    public static final String OBJECT_NAME = "main.rice:type=MoveMetrics";
+
+    /**
+     * The number of moves accepted.
+     */
+    private static final LongAdder ACCEPTED = new LongAdder();
+
+    /**
+     * The number of moves rejected, indexed by MoveRejection ordinal.
+     */
+    private static final LongAdder[] REJECTED = new LongAdder[MoveRejection.COUNT];
+
+    /**
+     * Latencies of ChessBoard.move().
+     */
+    private static final LatencyHistogram MOVE_LATENCY = new LatencyHistogram();
+
+    /**
+     * Latencies of AChessPiece.validateMove().
+     */
+    private static final LatencyHistogram VALIDATE_LATENCY = new LatencyHistogram();
+
+    /**
+     * The instance exported over JMX; all state is static, so this is just a view.
+     */
+    private static final MoveMetrics INSTANCE = new MoveMetrics();
+
+    static {
+        for (int i = 0; i < MoveRejection.COUNT; i++) {
+            REJECTED[i] = new LongAdder();
+        }
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    /**
+     * Private constructor; use getInstance().
+     */
+    private MoveMetrics() {
+    }
+
+    /**
+     * @return the (single) view of the metrics
+     */
+    public static MoveMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, unless they already are.
+     * Done automatically when instrumentation is enabled.
+     *
+     * @return true if the metrics are registered
+     */
+    public static synchronized boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the outcome and latency of a move.
+     *
+     * @param rejection the reason the move was rejected, or null if it was accepted
+     * @param nanos     the time taken, in nanoseconds
+     */
+    public static void recordMove(MoveRejection rejection, long nanos) {
+        if (rejection == null) {
+            ACCEPTED.increment();
+        } else {
+            REJECTED[rejection.ordinal()].increment();
+        }
+        MOVE_LATENCY.record(nanos);
+    }
+
+    /**
+     * Records a move that was rejected before any work was timed.
+     *
+     * @param rejection the reason the move was rejected
+     */
+    public static void recordRejected(MoveRejection rejection) {
+        REJECTED[rejection.ordinal()].increment();
+    }
+
+    /**
+     * Records the latency of a validateMove() call.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public static void recordValidateMove(long nanos) {
+        VALIDATE_LATENCY.record(nanos);
+    }
+
+    /**
+     * @param rejection a reason
+     * @return the number of moves rejected for that reason
+     */
+    public long getRejected(MoveRejection rejection) {
+        return REJECTED[rejection.ordinal()].sum();
+    }
+
+    /**
+     * @return the latencies of ChessBoard.move()
+     */
+    public LatencyHistogram getMoveLatency() {
+        return MOVE_LATENCY;
+    }
+
+    /**
+     * @return the latencies of AChessPiece.validateMove()
+     */
+    public LatencyHistogram getValidateMoveLatency() {
+        return VALIDATE_LATENCY;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public long getAcceptedMoves() {
+        return ACCEPTED.sum();
+    }
+
+    @Override
+    public long getRejectedMoves() {
+        long rejected = 0;
+        for (LongAdder counter : REJECTED) {
+            rejected += counter.sum();
+        }
+        return rejected;
+    }
+
+    @Override
+    public long getRejectedOutOfBounds() {
+        return this.getRejected(MoveRejection.OUT_OF_BOUNDS);
+    }
+
+    @Override
+    public long getRejectedEmptyStart() {
+        return this.getRejected(MoveRejection.EMPTY_START);
+    }
+
+    @Override
+    public long getRejectedInvalidPattern() {
+        return this.getRejected(MoveRejection.INVALID_PATTERN);
+    }
+
+    @Override
+    public long getRejectedBlockedPath() {
+        return this.getRejected(MoveRejection.BLOCKED_PATH);
+    }
+
+    @Override
+    public long getRejectedFriendlyCapture() {
+        return this.getRejected(MoveRejection.FRIENDLY_CAPTURE);
+    }
+
+    @Override
+    public double getMoveLatencyMean() {
+        return MOVE_LATENCY.getMean();
+    }
+
+    @Override
+    public long getMoveLatencyP50() {
+        return MOVE_LATENCY.getPercentile(0.5);
+    }
+
+    @Override
+    public long getMoveLatencyP99() {
+        return MOVE_LATENCY.getPercentile(0.99);
+    }
+
+    @Override
+    public long[] getMoveLatencyHistogram() {
+        return MOVE_LATENCY.getBuckets();
+    }
+
+    @Override
+    public double getValidateMoveLatencyMean() {
+        return VALIDATE_LATENCY.getMean();
+    }
+
+    @Override
+    public long getValidateMoveLatencyP50() {
+        return VALIDATE_LATENCY.getPercentile(0.5);
+    }
+
+    @Override
+    public long getValidateMoveLatencyP99() {
+        return VALIDATE_LATENCY.getPercentile(0.99);
+    }
+
+    @Override
+    public long[] getValidateMoveLatencyHistogram() {
+        return VALIDATE_LATENCY.getBuckets();
+    }
+
+    @Override
+    public void reset() {
+        ACCEPTED.reset();
+        for (LongAdder counter : REJECTED) {
+            counter.reset();
+        }
+        MOVE_LATENCY.reset();
+        VALIDATE_LATENCY.reset();
+    }
+}
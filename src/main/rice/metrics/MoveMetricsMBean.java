@@ -0,0 +1,95 @@
+package main.rice.metrics;
+
+/**
+ * The JMX view of MoveMetrics, registered as main.rice:type=MoveMetrics. Latencies are
+ * in nanoseconds; percentiles are upper bounds accurate to within a factor of two (see
+ * LatencyHistogram).
+ */
+public interface MoveMetricsMBean {
+
+    /**
+     * @return true if instrumentation is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * @return the number of moves accepted
+     */
+    long getAcceptedMoves();
+
+    /**
+     * @return the number of moves rejected for any reason
+     */
+    long getRejectedMoves();
+
+    /**
+     * @return the number of moves rejected because a position was off the board
+     */
+    long getRejectedOutOfBounds();
+
+    /**
+     * @return the number of moves rejected because the start square was empty
+     */
+    long getRejectedEmptyStart();
+
+    /**
+     * @return the number of moves rejected because they did not match the pattern
+     */
+    long getRejectedInvalidPattern();
+
+    /**
+     * @return the number of moves rejected because the path was blocked
+     */
+    long getRejectedBlockedPath();
+
+    /**
+     * @return the number of moves rejected because they would capture a friendly piece
+     */
+    long getRejectedFriendlyCapture();
+
+    /**
+     * @return the mean latency of ChessBoard.move()
+     */
+    double getMoveLatencyMean();
+
+    /**
+     * @return the median latency of ChessBoard.move()
+     */
+    long getMoveLatencyP50();
+
+    /**
+     * @return the 99th percentile latency of ChessBoard.move()
+     */
+    long getMoveLatencyP99();
+
+    /**
+     * @return the latency histogram of ChessBoard.move() (see LatencyHistogram)
+     */
+    long[] getMoveLatencyHistogram();
+
+    /**
+     * @return the mean latency of AChessPiece.validateMove()
+     */
+    double getValidateMoveLatencyMean();
+
+    /**
+     * @return the median latency of AChessPiece.validateMove()
+     */
+    long getValidateMoveLatencyP50();
+
+    /**
+     * @return the 99th percentile latency of AChessPiece.validateMove()
+     */
+    long getValidateMoveLatencyP99();
+
+    /**
+     * @return the latency histogram of AChessPiece.validateMove() (see
+     * LatencyHistogram)
+     */
+    long[] getValidateMoveLatencyHistogram();
+
+    /**
+     * Resets every counter and histogram.
+     */
+    void reset();
+}
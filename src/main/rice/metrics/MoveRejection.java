@@ -0,0 +1,37 @@
+package main.rice.metrics;
+
+/**
+ * The reasons a ChessBoard can reject a move, in the order they are checked.
+ */
+public enum MoveRejection {
+
+    /**
+     * The start or end position lies off the board.
+     */
+    OUT_OF_BOUNDS,
+
+    /**
+     * There is no piece at the start position.
+     */
+    EMPTY_START,
+
+    /**
+     * The move does not match the piece's movement pattern.
+     */
+    INVALID_PATTERN,
+
+    /**
+     * A piece stands between the start and end positions.
+     */
+    BLOCKED_PATH,
+
+    /**
+     * The end position holds a piece of the mover's own color.
+     */
+    FRIENDLY_CAPTURE;
+
+    /**
+     * The number of reasons; avoids allocating values() on hot paths.
+     */
+    public static final int COUNT = values().length;
+}
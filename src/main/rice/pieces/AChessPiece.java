@@ -1,31 +1,70 @@
 package main.rice.pieces;
 
 import main.rice.Coordinate;
+import main.rice.metrics.MoveMetrics;
 
 /**
  * An abstract representation of an individual chess piece.
  */
 public abstract class AChessPiece {
 
-    // TODO: decide whether any of the following methods ought to be implemented here 
-    // rather than being left abstract
+    /**
+     * The color of this chess piece.
+     */
+    private final Color color;
+
+    /**
+     * The type of this chess piece.
+     */
+    private final PieceType type;
+
+    /**
+     * The current position of this chess piece.
+     */
+    private Coordinate position;
+
+    /**
+     * Constructor for an AChessPiece; stores the color, type and start position.
+     *
+     * @param color    the color of this piece
+     * @param type     the type of this piece
+     * @param startPos the start position of this piece
+     */
+    protected AChessPiece(Color color, PieceType type, Coordinate startPos) {
+        this.color = color;
+        this.type = type;
+        this.position = startPos;
+    }
 
     /**
      * @return the color of this chess piece
      */
-    public abstract String getColor();
+    public Color getColor() {
+        return this.color;
+    }
+
+    /**
+     * @return the type of this chess piece
+     */
+    public PieceType getType() {
+        return this.type;
+    }
 
     /**
      * @return the current position of this chess piece
      */
-    public abstract Coordinate getPosition();
+    public Coordinate getPosition() {
+        return this.position;
+    }
 
     /**
      * Moves this piece by updating its position to be newPos.
      *
      * @param newPos the new position for this piece
      */
-    public abstract void move(Coordinate newPos);
+    public void move(Coordinate newPos) {
+        this.position = newPos;
+    }
 
     /**
      * Checks whether the move to endPos is a valid move. If it's invalid, returns null;
@@ -33,9 +72,139 @@ public abstract class AChessPiece {
      * points along the path from this chess piece's current position to endPos that the
      * will need to be checked for collisions.
      *
+     * <p>This is a compatibility wrapper around validateMoveMask(int), which should be
+     * preferred on hot paths since it allocates nothing. Calls are timed by MoveMetrics
+     * when instrumentation is enabled.
+     *
      * @param endPos the prospective destination of this piece
      * @return null if endPos is an invalid move; an array of intermediate coordinates
      * between this chess piece's current position and endPos otherwise
      */
-    public abstract Coordinate[] validateMove(Coordinate endPos);
+    public Coordinate[] validateMove(Coordinate endPos) {
+        if (!MoveMetrics.ENABLED) {
+            return this.validateMoveUntimed(endPos);
+        }
+        long start = System.nanoTime();
+        Coordinate[] path = this.validateMoveUntimed(endPos);
+        MoveMetrics.recordValidateMove(System.nanoTime() - start);
+        return path;
+    }
+
+    /**
+     * Implementation of validateMove(Coordinate), without instrumentation.
+     *
+     * @param endPos the prospective destination of this piece
+     * @return null if endPos is an invalid move; an array of intermediate coordinates
+     * between this chess piece's current position and endPos otherwise
+     */
+    private Coordinate[] validateMoveUntimed(Coordinate endPos) {
+        int startRow = this.position.getRow();
+        int startCol = this.position.getCol();
+        int endRow = endPos.getRow();
+        int endCol = endPos.getCol();
+
+        // Fast path: both squares are covered by the precomputed tables
+        if (Coordinate.isOnBoard(startRow, startCol)
+            && Coordinate.isOnBoard(endRow, endCol)) {
+            int endSquare = endPos.getSquare();
+            long path = this.validateMoveMask(endSquare);
+            return path == MoveTables.INVALID ? null
+                : MoveTables.toCoordinates(path, this.position.getSquare(), endSquare);
+        }
+
+        // Otherwise, fall back to checking the pattern directly
+        if (!this.matchesPattern(endRow - startRow, endCol - startCol)) {
+            return null;
+        }
+        return this.stepsTo(endPos);
+    }
+
+    /**
+     * Allocation-free counterpart of validateMove(Coordinate) for pieces on the standard
+     * 8x8 board. Squares are numbered row * 8 + col.
+     *
+     * @param endSquare the prospective destination of this piece
+     * @return MoveTables.INVALID if endSquare is off the board or an invalid move;
+     * otherwise, a mask of the squares between this piece's current position and
+     * endSquare that will need to be checked for collisions
+     */
+    public long validateMoveMask(int endSquare) {
+        if (endSquare < 0 || endSquare >= MoveTables.SQUARES) {
+            return MoveTables.INVALID;
+        }
+        int startSquare = this.position.getSquare();
+        return this.getPathTable()[startSquare * MoveTables.SQUARES + endSquare];
+    }
+
+    /**
+     * Returns the squares that this piece could move to from its current position on an
+     * otherwise empty 8x8 board; candidates for move generation, which still need to be
+     * checked with validateMoveMask(int).
+     *
+     * @return a mask of the candidate destination squares
+     */
+    public long getTargetMask() {
+        return this.getTargetTable()[this.position.getSquare()];
+    }
+
+    /**
+     * Checks whether a move to endPos matches this piece's movement pattern, ignoring
+     * any collisions along the way. Unlike validateMove(), this works on boards of any
+     * size and allocates nothing.
+     *
+     * @param endPos the prospective destination of this piece
+     * @return true if the move matches the pattern; false otherwise
+     */
+    public boolean matchesMove(Coordinate endPos) {
+        return this.matchesPattern(endPos.getRow() - this.position.getRow(),
+            endPos.getCol() - this.position.getCol());
+    }
+
+    /**
+     * @return the precomputed path table (see MoveTables) for this type of piece
+     */
+    protected abstract long[] getPathTable();
+
+    /**
+     * @return the precomputed target table (see MoveTables) for this type of piece
+     */
+    protected abstract long[] getTargetTable();
+
+    /**
+     * Checks whether a move with the given deltas matches this piece's movement pattern,
+     * ignoring any collisions along the way.
+     *
+     * @param rowDelta the signed number of rows moved
+     * @param colDelta the signed number of columns moved
+     * @return true if the move matches the pattern; false otherwise
+     */
+    protected abstract boolean matchesPattern(int rowDelta, int colDelta);
+
+    /**
+     * Builds the array of intermediate coordinates along a straight (horizontal,
+     * vertical, or diagonal) line from this piece's position to endPos, excluding both
+     * endpoints. If endPos does not lie on such a line (e.g. for a Knight's move), there
+     * are no intermediate coordinates.
+     *
+     * @param endPos the destination at the far end of the line
+     * @return the coordinates strictly between this piece's position and endPos
+     */
+    protected Coordinate[] stepsTo(Coordinate endPos) {
+        int rowDelta = endPos.getRow() - this.position.getRow();
+        int colDelta = endPos.getCol() - this.position.getCol();
+        if (rowDelta != 0 && colDelta != 0 && Math.abs(rowDelta) != Math.abs(colDelta)) {
+            return new Coordinate[0];
+        }
+
+        int rowStep = Integer.signum(rowDelta);
+        int colStep = Integer.signum(colDelta);
+        int numSteps = Math.max(Math.abs(rowDelta), Math.abs(colDelta));
+
+        Coordinate[] path = new Coordinate[numSteps - 1];
+        for (int i = 1; i < numSteps; i++) {
+            path[i - 1] = Coordinate.of(this.position.getRow() + i * rowStep,
+                this.position.getCol() + i * colStep);
+        }
+        return path;
+    }
 }
@@ -11,14 +11,65 @@ import main.rice.Coordinate;
 public class Bishop extends AChessPiece {
 
     /**
-     * Constructor for a Bishop.
+     * Path table for Bishops, built once when the class is loaded.
+     */
+    static final long[] PATHS = MoveTables.build(Bishop::isValidPattern);
+
+    /**
+     * Destination squares on an empty board for Bishops, derived from PATHS.
+     */
+    static final long[] TARGETS = MoveTables.targets(PATHS);
+
+    /**
+     * Move counts between squares on an empty board for Bishops, derived from TARGETS.
+     */
+    static final byte[] DISTANCES = MoveTables.distances(TARGETS);
+
+    /**
+     * Constructor for a Bishop; delegates to the super constructor to initialize fields.
+     *
+     * @param color    the color of this piece
+     * @param startPos the start position of this piece
+     */
+    public Bishop(Color color, Coordinate startPos) {
+        super(color, PieceType.BISHOP, startPos);
+    }
+
+    /**
+     * Constructor for a Bishop; adapter for callers that name the color as a String.
      *
      * @param color    the color of this piece ("black" or "white")
      * @param startPos the start position of this piece
      */
     public Bishop(String color, Coordinate startPos) {
-        // TODO: implement this constructor
+        this(Color.fromName(color), startPos);
+    }
+
+    @Override
+    protected long[] getPathTable() {
+        return PATHS;
+    }
+
+    @Override
+    protected long[] getTargetTable() {
+        return TARGETS;
     }
 
-    // TODO: override any methods left abstract in the superclass (AChessPiece)
+    @Override
+    protected boolean matchesPattern(int rowDelta, int colDelta) {
+        return isValidPattern(rowDelta, colDelta);
+    }
+
+    /**
+     * Checks whether a move with the given deltas is a valid (diagonal) move for a
+     * Bishop.
+     *
+     * @param rowDelta the signed number of rows moved
+     * @param colDelta the signed number of columns moved
+     * @return true if the move matches the pattern; false otherwise
+     */
+    private static boolean isValidPattern(int rowDelta, int colDelta) {
+        // A Bishop must move the same (non-zero) distance along both axes
+        return rowDelta != 0 && Math.abs(rowDelta) == Math.abs(colDelta);
+    }
 }
@@ -0,0 +1,81 @@
+package main.rice.pieces;
+
+/**
+ * The color of a chess piece. Colors are compared by identity, and their ordinals (0 for
+ * black, 1 for white) can be used to index per-color lookup tables.
+ */
+public enum Color {
+
+    /**
+     * The color of the pieces that start in row 0.
+     */
+    BLACK("black", 'B'),
+
+    /**
+     * The color of the pieces that start in the last row.
+     */
+    WHITE("white", 'W');
+
+    /**
+     * The number of colors; the size of tables indexed by ordinal.
+     */
+    public static final int COUNT = values().length;
+
+    /**
+     * The lower-case name of this color, as used by the String-based constructors.
+     */
+    private final String name;
+
+    /**
+     * The one-character designator of this color, as displayed on the board.
+     */
+    private final char designator;
+
+    /**
+     * Constructor for a Color.
+     *
+     * @param name       the lower-case name of this color
+     * @param designator the one-character designator of this color
+     */
+    Color(String name, char designator) {
+        this.name = name;
+        this.designator = designator;
+    }
+
+    /**
+     * @return the lower-case name of this color ("black" or "white")
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the one-character designator of this color ('B' or 'W')
+     */
+    public char getDesignator() {
+        return this.designator;
+    }
+
+    /**
+     * @return the opposing color
+     */
+    public Color opposite() {
+        return this == BLACK ? WHITE : BLACK;
+    }
+
+    /**
+     * Looks up a color by name; adapter for the String-based piece constructors.
+     *
+     * @param name the name of the color ("black" or "white", ignoring case)
+     * @return the color with the given name
+     * @throws IllegalArgumentException if name does not name a color
+     */
+    public static Color fromName(String name) {
+        for (Color color : values()) {
+            if (color.name.equalsIgnoreCase(name)) {
+                return color;
+            }
+        }
+        throw new IllegalArgumentException("Unknown color: " + name);
+    }
+}
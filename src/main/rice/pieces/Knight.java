@@ -10,14 +10,65 @@ import main.rice.Coordinate;
 public class Knight extends AChessPiece {
 
     /**
-     * Constructor for a Bishop; delegates to the super constructor to initialize fields.
+     * Path table for Knights, built once when the class is loaded.
+     */
+    static final long[] PATHS = MoveTables.build(Knight::isValidPattern);
+
+    /**
+     * Destination squares on an empty board for Knights, derived from PATHS.
+     */
+    static final long[] TARGETS = MoveTables.targets(PATHS);
+
+    /**
+     * Move counts between squares on an empty board for Knights, derived from TARGETS.
+     */
+    static final byte[] DISTANCES = MoveTables.distances(TARGETS);
+
+    /**
+     * Constructor for a Knight; delegates to the super constructor to initialize fields.
      *
-     * @param color the color of this piece ("black" or "white")
+     * @param color    the color of this piece
+     * @param startPos the start position of this piece
+     */
+    public Knight(Color color, Coordinate startPos) {
+        super(color, PieceType.KNIGHT, startPos);
+    }
+
+    /**
+     * Constructor for a Knight; adapter for callers that name the color as a String.
+     *
+     * @param color    the color of this piece ("black" or "white")
      * @param startPos the start position of this piece
      */
     public Knight(String color, Coordinate startPos) {
-        // TODO: implement this constructor
+        this(Color.fromName(color), startPos);
+    }
+
+    @Override
+    protected long[] getPathTable() {
+        return PATHS;
+    }
+
+    @Override
+    protected long[] getTargetTable() {
+        return TARGETS;
     }
 
-    // TODO: override any methods left abstract in the superclass (AChessPiece)
+    @Override
+    protected boolean matchesPattern(int rowDelta, int colDelta) {
+        return isValidPattern(rowDelta, colDelta);
+    }
+
+    /**
+     * Checks whether a move with the given deltas is a valid (L-shaped) move for a
+     * Knight.
+     *
+     * @param rowDelta the signed number of rows moved
+     * @param colDelta the signed number of columns moved
+     * @return true if the move matches the pattern; false otherwise
+     */
+    private static boolean isValidPattern(int rowDelta, int colDelta) {
+        // A Knight must move two steps along one axis and one along the other
+        return Math.abs((long) rowDelta * colDelta) == 2;
+    }
 }
@@ -0,0 +1,172 @@
+package main.rice.pieces;
+
+import main.rice.Coordinate;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed move geometry for the standard 8x8 board. Squares are numbered
+ * row * 8 + col, and each table holds one entry per (from, to) pair at index
+ * from * 64 + to. An entry is either INVALID, if the move does not match the piece's
+ * pattern, or a 64-bit mask of the squares strictly between from and to that must be
+ * empty for the move to go through. The tables are built once, when the piece classes
+ * are loaded, so that validating a move is a single array lookup that allocates
+ * nothing.
+ */
+public final class MoveTables {
+
+    /**
+     * The number of rows/columns covered by the tables.
+     */
+    public static final int DIM = 8;
+
+    /**
+     * The number of squares covered by the tables.
+     */
+    public static final int SQUARES = DIM * DIM;
+
+    /**
+     * Table entry for a move that does not match the piece's pattern. No real path can
+     * include every square, so this value can never be mistaken for a path mask.
+     */
+    public static final long INVALID = -1L;
+
+    /**
+     * Distance table entry (see distances()) for a square that cannot be reached at all.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * A movement pattern, expressed in terms of the signed row and column deltas of a
+     * move.
+     */
+    interface IPattern {
+
+        /**
+         * @param rowDelta the signed number of rows moved
+         * @param colDelta the signed number of columns moved
+         * @return true if a move with the given deltas matches the pattern
+         */
+        boolean matches(int rowDelta, int colDelta);
+    }
+
+    /**
+     * Private constructor; this class only holds static tables.
+     */
+    private MoveTables() {
+    }
+
+    /**
+     * Builds the path table for a movement pattern.
+     *
+     * @param pattern the pattern that a valid move must match
+     * @return a table with one entry per (from, to) pair, as described above
+     */
+    static long[] build(IPattern pattern) {
+        long[] table = new long[SQUARES * SQUARES];
+        for (int from = 0; from < SQUARES; from++) {
+            for (int to = 0; to < SQUARES; to++) {
+                int rowDelta = to / DIM - from / DIM;
+                int colDelta = to % DIM - from % DIM;
+                table[from * SQUARES + to] = pattern.matches(rowDelta, colDelta)
+                    ? between(from, to) : INVALID;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Derives, from a path table, the mask of squares that each square's moves can
+     * reach on an empty board.
+     *
+     * @param paths a path table produced by build()
+     * @return a table with one mask per from square
+     */
+    static long[] targets(long[] paths) {
+        long[] table = new long[SQUARES];
+        for (int from = 0; from < SQUARES; from++) {
+            for (int to = 0; to < SQUARES; to++) {
+                if (paths[from * SQUARES + to] != INVALID) {
+                    table[from] |= 1L << to;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Derives, from a target table, the number of moves needed to get from each square
+     * to each other square on an empty board, by a breadth-first search from every
+     * square.
+     *
+     * @param targets a target table produced by targets()
+     * @return a table with one entry per (from, to) pair at index from * 64 + to: the
+     * least number of moves, or UNREACHABLE
+     */
+    static byte[] distances(long[] targets) {
+        byte[] table = new byte[SQUARES * SQUARES];
+        Arrays.fill(table, (byte) UNREACHABLE);
+        for (int from = 0; from < SQUARES; from++) {
+            long reached = 1L << from;
+            long frontier = reached;
+            for (int distance = 0; frontier != 0; distance++) {
+                long next = 0;
+                while (frontier != 0) {
+                    int sq = Long.numberOfTrailingZeros(frontier);
+                    frontier &= frontier - 1;
+                    table[from * SQUARES + sq] = (byte) distance;
+                    next |= targets[sq];
+                }
+                frontier = next & ~reached;
+                reached |= next;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Computes the mask of squares strictly between two squares that lie on a common
+     * horizontal, vertical, or diagonal line; for any other pair there are no squares in
+     * between, so the mask is empty.
+     *
+     * @param from the start square
+     * @param to   the end square
+     * @return the mask of squares strictly between from and to
+     */
+    private static long between(int from, int to) {
+        int rowDelta = to / DIM - from / DIM;
+        int colDelta = to % DIM - from % DIM;
+        if (rowDelta != 0 && colDelta != 0 && Math.abs(rowDelta) != Math.abs(colDelta)) {
+            return 0;
+        }
+
+        int step = Integer.signum(rowDelta) * DIM + Integer.signum(colDelta);
+        long mask = 0;
+        for (int sq = from + step; sq != to; sq += step) {
+            mask |= 1L << sq;
+        }
+        return mask;
+    }
+
+    /**
+     * Expands a path mask into the array of coordinates it covers, ordered from the
+     * square next to from towards to.
+     *
+     * @param path the mask of squares strictly between from and to
+     * @param from the start square
+     * @param to   the end square
+     * @return the coordinates in the path, in the order they would be traversed
+     */
+    static Coordinate[] toCoordinates(long path, int from, int to) {
+        Coordinate[] coords = new Coordinate[Long.bitCount(path)];
+        for (int i = 0; path != 0; i++) {
+            // Walk upwards from the lowest bit when moving to a higher square, and
+            // downwards from the highest bit otherwise
+            int sq = to > from ? Long.numberOfTrailingZeros(path)
+                : 63 - Long.numberOfLeadingZeros(path);
+            path &= ~(1L << sq);
+            coords[i] = Coordinate.ofSquare(sq);
+        }
+        return coords;
+    }
+}
@@ -0,0 +1,85 @@
+package main.rice.pieces;
+
+/**
+ * Small integer codes for the contents of a square, used wherever a position has to be
+ * stored compactly (e.g. four bits per square in a board snapshot). Code 0 stands for an
+ * empty square, and codes 1 to 6 for a piece of a given color and type.
+ */
+public final class PieceCode {
+
+    /**
+     * The code of an empty square.
+     */
+    public static final int EMPTY = 0;
+
+    /**
+     * The number of distinct codes, including EMPTY.
+     */
+    public static final int COUNT = 1 + Color.COUNT * PieceType.COUNT;
+
+    /**
+     * Colors of the codes, indexed by code (null for EMPTY).
+     */
+    private static final Color[] COLORS = new Color[COUNT];
+
+    /**
+     * Types of the codes, indexed by code (null for EMPTY).
+     */
+    private static final PieceType[] TYPES = new PieceType[COUNT];
+
+    static {
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                COLORS[of(color, type)] = color;
+                TYPES[of(color, type)] = type;
+            }
+        }
+    }
+
+    /**
+     * Private constructor; this class only holds static methods.
+     */
+    private PieceCode() {
+    }
+
+    /**
+     * @param color the color of the piece
+     * @param type  the type of the piece
+     * @return the code of a piece of the given color and type
+     */
+    public static int of(Color color, PieceType type) {
+        return 1 + color.ordinal() * PieceType.COUNT + type.ordinal();
+    }
+
+    /**
+     * @param piece the piece to encode, or null
+     * @return the code of the piece, or EMPTY if piece is null
+     */
+    public static int of(AChessPiece piece) {
+        return piece == null ? EMPTY : of(piece.getColor(), piece.getType());
+    }
+
+    /**
+     * @param code a code
+     * @return true if code is EMPTY or the code of a piece
+     */
+    public static boolean isValid(int code) {
+        return code >= 0 && code < COUNT;
+    }
+
+    /**
+     * @param code the code of a piece (not EMPTY)
+     * @return the color of the piece
+     */
+    public static Color colorOf(int code) {
+        return COLORS[code];
+    }
+
+    /**
+     * @param code the code of a piece (not EMPTY)
+     * @return the type of the piece
+     */
+    public static PieceType typeOf(int code) {
+        return TYPES[code];
+    }
+}
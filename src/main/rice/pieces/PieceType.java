@@ -0,0 +1,156 @@
+package main.rice.pieces;
+
+import main.rice.Coordinate;
+
+/**
+ * The type of a chess piece. Types are compared by identity, and their ordinals can be
+ * used to index per-type lookup tables.
+ */
+public enum PieceType {
+
+    /**
+     * See Rook.
+     */
+    ROOK('R', 5),
+
+    /**
+     * See Knight.
+     */
+    KNIGHT('K', 3),
+
+    /**
+     * See Bishop.
+     */
+    BISHOP('B', 3);
+
+    /**
+     * The number of piece types; the size of tables indexed by ordinal.
+     */
+    public static final int COUNT = values().length;
+
+    /**
+     * The one-character designator of this type, as displayed on the board.
+     */
+    private final char designator;
+
+    /**
+     * The conventional material value of this type, in pawns.
+     */
+    private final int value;
+
+    /**
+     * Constructor for a PieceType.
+     *
+     * @param designator the one-character designator of this type
+     * @param value      the material value of this type
+     */
+    PieceType(char designator, int value) {
+        this.designator = designator;
+        this.value = value;
+    }
+
+    /**
+     * @return the one-character designator of this type ('R', 'K', or 'B')
+     */
+    public char getDesignator() {
+        return this.designator;
+    }
+
+    /**
+     * @return the conventional material value of this type, in pawns (5 for a Rook, 3
+     * for a Knight or Bishop)
+     */
+    public int getValue() {
+        return this.value;
+    }
+
+    /**
+     * Looks up a move for a piece of this type on the standard 8x8 board, without needing
+     * a piece instance (see AChessPiece.validateMoveMask()). Squares are numbered
+     * row * 8 + col.
+     *
+     * @param startSquare the square the piece moves from
+     * @param endSquare   the square the piece moves to
+     * @return MoveTables.INVALID if the move does not match this type's pattern;
+     * otherwise, a mask of the squares in between
+     */
+    public long getPath(int startSquare, int endSquare) {
+        long[] paths;
+        switch (this) {
+            case KNIGHT:
+                paths = Knight.PATHS;
+                break;
+            case BISHOP:
+                paths = Bishop.PATHS;
+                break;
+            default:
+                paths = Rook.PATHS;
+                break;
+        }
+        return paths[startSquare * MoveTables.SQUARES + endSquare];
+    }
+
+    /**
+     * Returns the squares that a piece of this type on the given square could move to on
+     * an otherwise empty 8x8 board (see AChessPiece.getTargetMask()), without needing a
+     * piece instance.
+     *
+     * @param square the square the piece stands on (row * 8 + col)
+     * @return a mask of the candidate destination squares
+     */
+    public long getTargetMask(int square) {
+        switch (this) {
+            case KNIGHT:
+                return Knight.TARGETS[square];
+            case BISHOP:
+                return Bishop.TARGETS[square];
+            default:
+                return Rook.TARGETS[square];
+        }
+    }
+
+    /**
+     * Returns the least number of moves a piece of this type needs to get from one square
+     * to another on an otherwise empty 8x8 board; a lower bound on the number needed
+     * on any board (see ChessBoard.distance()). Runs in constant time.
+     *
+     * @param startSquare the square the piece starts on (row * 8 + col)
+     * @param endSquare   the square the piece should reach
+     * @return the number of moves (0 if the squares are the same), or
+     * MoveTables.UNREACHABLE if no sequence of moves gets there (e.g. a Bishop changing
+     * square color)
+     */
+    public int getDistance(int startSquare, int endSquare) {
+        byte[] distances;
+        switch (this) {
+            case KNIGHT:
+                distances = Knight.DISTANCES;
+                break;
+            case BISHOP:
+                distances = Bishop.DISTANCES;
+                break;
+            default:
+                distances = Rook.DISTANCES;
+                break;
+        }
+        return distances[startSquare * MoveTables.SQUARES + endSquare];
+    }
+
+    /**
+     * Creates a new piece of this type.
+     *
+     * @param color    the color of the new piece
+     * @param startPos the start position of the new piece
+     * @return a new Rook, Knight, or Bishop
+     */
+    public AChessPiece create(Color color, Coordinate startPos) {
+        switch (this) {
+            case KNIGHT:
+                return new Knight(color, startPos);
+            case BISHOP:
+                return new Bishop(color, startPos);
+            default:
+                return new Rook(color, startPos);
+        }
+    }
+}
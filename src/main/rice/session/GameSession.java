@@ -0,0 +1,330 @@
+package main.rice.session;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.io.MoveJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * One hosted game: a ChessBoard plus everything needed to share it safely between
+ * threads. Direct calls are serialized by a lock that belongs to this game alone, and
+ * asynchronous requests are queued and drained by at most one task at a time, so each
+ * game has a single writer while different games never contend with each other.
+ *
+ * <p>If the game is journaled, every accepted move is logged (and on disk) before it is
+ * applied to the board, all while holding the game's lock.
+ */
+public class GameSession {
+
+    /**
+     * The id of this game.
+     */
+    private final long id;
+
+    /**
+     * The board; only touched while holding lock.
+     */
+    private final ChessBoard board;
+
+    /**
+     * The journal that accepted moves are logged to, or null.
+     */
+    private final MoveJournal journal;
+
+    /**
+     * Serializes access to board.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Asynchronous requests waiting to be applied, in arrival order.
+     */
+    private final Queue<Request> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True while a drain task for pending is scheduled or running.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * The number of moves accepted by the board.
+     */
+    private final LongAdder accepted = new LongAdder();
+
+    /**
+     * The number of moves rejected by the board.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The System.nanoTime() at which this session was created.
+     */
+    private final long createdAt = System.nanoTime();
+
+    /**
+     * The LSN of the last journal record written for this game, or 0 if none; only
+     * touched while holding lock.
+     */
+    private long lastLsn;
+
+    /**
+     * Constructor for a GameSession.
+     *
+     * @param id      the id of the game
+     * @param board   the board of the game; must not be shared with anything else
+     * @param journal the journal to log accepted moves to, or null
+     */
+    GameSession(long id, ChessBoard board, MoveJournal journal) {
+        this.id = id;
+        this.board = board;
+        this.journal = journal;
+    }
+
+    /**
+     * @return the id of this game
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Performs a move on this game's board (see ChessBoard.move()), waiting for any
+     * other thread that is using the board. If the game is journaled, a valid move is
+     * logged before it is applied.
+     *
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move was completed; false otherwise
+     * @throws UncheckedIOException if the move cannot be journaled; the board is then
+     *                              unchanged
+     */
+    public boolean move(Coordinate startPos, Coordinate endPos) {
+        boolean result;
+        this.lock.lock();
+        try {
+            if (this.journal != null && this.board.isValidMove(startPos, endPos)) {
+                this.lastLsn = this.log(() -> this.journal.logMove(this.id,
+                    startPos.getSquare(), endPos.getSquare()));
+            }
+            result = this.board.move(startPos, endPos);
+        } finally {
+            this.lock.unlock();
+        }
+        (result ? this.accepted : this.rejected).increment();
+        return result;
+    }
+
+    /**
+     * Runs a read-only function against this game's board while no move can be applied;
+     * e.g. session.read(ChessBoard::toString).
+     *
+     * @param reader the function to run; must not keep a reference to the board
+     * @param <T>    the type of the function's result
+     * @return the function's result
+     */
+    public <T> T read(Function<ChessBoard, T> reader) {
+        this.lock.lock();
+        try {
+            return reader.apply(this.board);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of moves accepted so far
+     */
+    public long getAcceptedMoves() {
+        return this.accepted.sum();
+    }
+
+    /**
+     * @return the number of moves rejected so far
+     */
+    public long getRejectedMoves() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * @return the average number of move requests (accepted or rejected) handled per
+     * second since this session was created
+     */
+    public double getMovesPerSecond() {
+        long nanos = System.nanoTime() - this.createdAt;
+        return nanos == 0 ? 0
+            : (this.accepted.sum() + this.rejected.sum()) * 1e9 / nanos;
+    }
+
+    /**
+     * Logs a new board for this game (see MoveJournal.logBoard()); a no-op if the game is
+     * not journaled.
+     *
+     * @throws UncheckedIOException if the board cannot be journaled
+     */
+    void logStart() {
+        if (this.journal != null) {
+            this.lock.lock();
+            try {
+                this.lastLsn = this.log(() -> this.journal.logBoard(this.id, this.board));
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Logs the end of this game (see MoveJournal.logEnd()); a no-op if the game is not
+     * journaled.
+     *
+     * @throws UncheckedIOException if the end cannot be journaled
+     */
+    void logEnd() {
+        if (this.journal != null) {
+            this.lock.lock();
+            try {
+                this.lastLsn = this.log(() -> this.journal.logEnd(this.id));
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds this game to a snapshot being taken by MoveJournal.compact().
+     *
+     * @param snapshot the snapshot to add to
+     */
+    void addTo(MoveJournal.SnapshotWriter snapshot) {
+        this.lock.lock();
+        try {
+            snapshot.add(this.id, this.lastLsn, this.board);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a request to run against this game in arrival order. If no drain task is
+     * active, one is started on the given executor; it applies requests until the queue
+     * is empty, so at most one thread works on this game's queue at a time. If the
+     * executor rejects the drain task (e.g. it has been shut down), every queued request
+     * is dropped and its future completed with the RejectedExecutionException.
+     *
+     * @param request  the request to queue; must complete future when run
+     * @param future   the future of the request
+     * @param executor the executor to start a drain task on
+     */
+    void enqueue(Runnable request, CompletableFuture<?> future, Executor executor) {
+        this.pending.add(new Request(request, future));
+        if (this.draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                this.reject(e);
+            }
+        }
+    }
+
+    /**
+     * Runs a journal call.
+     *
+     * @param call the call to run
+     * @return the LSN returned by the call
+     * @throws UncheckedIOException if the call fails
+     */
+    private long log(JournalCall call) {
+        try {
+            return call.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal game " + this.id, e);
+        }
+    }
+
+    /**
+     * A call to the journal, returning the LSN of the record it wrote.
+     */
+    private interface JournalCall {
+
+        /**
+         * @return the LSN of the record written
+         * @throws IOException if the record cannot be written
+         */
+        long run() throws IOException;
+    }
+
+    /**
+     * A queued request and its future.
+     */
+    private static final class Request {
+
+        /**
+         * The request to run.
+         */
+        private final Runnable action;
+
+        /**
+         * The future that action completes.
+         */
+        private final CompletableFuture<?> future;
+
+        /**
+         * Constructor for a Request.
+         *
+         * @param action the request to run
+         * @param future the future that action completes
+         */
+        private Request(Runnable action, CompletableFuture<?> future) {
+            this.action = action;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Applies queued requests until the queue is empty.
+     */
+    private void drain() {
+        while (true) {
+            Request request;
+            while ((request = this.pending.poll()) != null) {
+                request.action.run();
+            }
+
+            // Stop, unless a request arrived after the last poll but before the flag was
+            // cleared (its enqueue() saw draining == true and started nothing)
+            this.draining.set(false);
+            if (this.pending.isEmpty() || !this.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fails every queued request after the executor rejected a drain task. Called in
+     * place of drain(), so it clears the draining flag the same way.
+     *
+     * @param error the rejection
+     */
+    private void reject(RejectedExecutionException error) {
+        while (true) {
+            Request request;
+            while ((request = this.pending.poll()) != null) {
+                request.future.completeExceptionally(error);
+            }
+            this.draining.set(false);
+            if (this.pending.isEmpty() || !this.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package main.rice.session;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.io.MoveJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts many simultaneous games, each a GameSession keyed by a numeric game id. Moves for
+ * different games never contend: each session has its own lock and its own queue of
+ * asynchronous requests. Asynchronous requests run on virtual threads when the runtime
+ * supports them (Java 21 and later), and on a cached pool of platform threads otherwise.
+ *
+ * <p>A manager may be backed by a MoveJournal, so that its games survive a crash: it
+ * starts out hosting the games recovered from the journal, logs every new game, accepted
+ * move and removed game, and compacts the journal in the background once it grows past
+ * its threshold.
+ */
+public class GameSessionManager implements AutoCloseable {
+
+    /**
+     * The hosted games, by id.
+     */
+    private final ConcurrentMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Source of ids for newGame().
+     */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * The executor that runs asynchronous requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * True if executor was created by this manager (and so must be shut down by it).
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * The journal that games are logged to, or null.
+     */
+    private final MoveJournal journal;
+
+    /**
+     * True while a background compaction is scheduled or running.
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * The number of moves accepted across all games, including removed ones.
+     */
+    private final LongAdder accepted = new LongAdder();
+
+    /**
+     * The number of moves rejected across all games, including removed ones.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The System.nanoTime() at which this manager was created.
+     */
+    private final long createdAt = System.nanoTime();
+
+    /**
+     * Constructor for a GameSessionManager; asynchronous requests run on virtual threads
+     * if available.
+     */
+    public GameSessionManager() {
+        this(newDefaultExecutor(), true, null);
+    }
+
+    /**
+     * Constructor for a GameSessionManager that runs asynchronous requests on the given
+     * executor. The executor is not shut down by close().
+     *
+     * @param executor the executor to run asynchronous requests on
+     */
+    public GameSessionManager(ExecutorService executor) {
+        this(executor, false, null);
+    }
+
+    /**
+     * Constructor for a GameSessionManager backed by a journal; it hosts the games
+     * recovered from the journal (see MoveJournal.getRecoveredGames()), under their ids.
+     * The journal must not be used directly afterwards, and is not closed by close().
+     *
+     * @param executor the executor to run asynchronous requests (and compactions) on
+     * @param journal  the journal to recover from and log to
+     */
+    public GameSessionManager(ExecutorService executor, MoveJournal journal) {
+        this(executor, false, journal);
+    }
+
+    /**
+     * Constructor for a GameSessionManager.
+     *
+     * @param executor     the executor to run asynchronous requests on
+     * @param ownsExecutor true if close() should shut the executor down
+     * @param journal      the journal to recover from and log to, or null
+     */
+    private GameSessionManager(ExecutorService executor, boolean ownsExecutor,
+        MoveJournal journal) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.journal = journal;
+        if (journal != null) {
+            Map<Long, ChessBoard> games = journal.getRecoveredGames();
+            for (Map.Entry<Long, ChessBoard> game : games.entrySet()) {
+                long id = game.getKey();
+                this.sessions.put(id, new GameSession(id, game.getValue(), journal));
+                if (id >= this.nextId.get()) {
+                    this.nextId.set(id + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new game from the initial position under a fresh id.
+     *
+     * @return the id of the new game
+     * @throws UncheckedIOException if the game cannot be journaled; it is then not hosted
+     */
+    public long newGame() {
+        long id = this.nextId.getAndIncrement();
+        GameSession session = new GameSession(id, new ChessBoard(), this.journal);
+        while (this.sessions.putIfAbsent(id, session) != null) {
+            id = this.nextId.getAndIncrement();
+            session = new GameSession(id, new ChessBoard(), this.journal);
+        }
+        this.logStart(session);
+        return id;
+    }
+
+    /**
+     * Hosts an existing board under the given id. The board must not be used directly
+     * afterwards.
+     *
+     * @param id    the id of the game
+     * @param board the board of the game
+     * @return the new session
+     * @throws IllegalArgumentException if a game with the given id already exists
+     * @throws UncheckedIOException     if the game cannot be journaled; it is then not
+     *                                  hosted
+     */
+    public GameSession addGame(long id, ChessBoard board) {
+        GameSession session = new GameSession(id, board, this.journal);
+        if (this.sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Game already exists: " + id);
+        }
+        this.logStart(session);
+        return session;
+    }
+
+    /**
+     * Stops hosting a game. Its moves remain in the global counters.
+     *
+     * @param id the id of the game
+     * @return the removed session, or null if there was no such game
+     * @throws UncheckedIOException if the end of the game cannot be journaled; it is
+     *                              then no longer hosted, but will be recovered
+     */
+    public GameSession removeGame(long id) {
+        GameSession session = this.sessions.remove(id);
+        if (session != null) {
+            session.logEnd();
+        }
+        return session;
+    }
+
+    /**
+     * @param id the id of the game
+     * @return the session of the game
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public GameSession getSession(long id) {
+        GameSession session = this.sessions.get(id);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown game: " + id);
+        }
+        return session;
+    }
+
+    /**
+     * @return the number of hosted games
+     */
+    public int getGameCount() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Performs a move in a game on the calling thread.
+     *
+     * @param id       the id of the game
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return true if the move was completed; false otherwise
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public boolean move(long id, Coordinate startPos, Coordinate endPos) {
+        boolean result = this.getSession(id).move(startPos, endPos);
+        this.countMove(result);
+        return result;
+    }
+
+    /**
+     * Queues a move in a game. Moves submitted for the same game are applied one at a
+     * time in submission order; moves for different games run independently.
+     *
+     * @param id       the id of the game
+     * @param startPos the current location of the piece to be moved
+     * @param endPos   the prospective destination of the piece to be moved
+     * @return a future that completes with true if the move was completed, false if it
+     * was rejected, or exceptionally if it could not be applied (with a
+     * RejectedExecutionException once the manager is closed)
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public CompletableFuture<Boolean> submitMove(long id, Coordinate startPos,
+        Coordinate endPos) {
+        GameSession session = this.getSession(id);
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        session.enqueue(() -> {
+            try {
+                boolean result = session.move(startPos, endPos);
+                this.countMove(result);
+                future.complete(result);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, future, this.executor);
+        return future;
+    }
+
+    /**
+     * @return the number of moves accepted across all games
+     */
+    public long getAcceptedMoves() {
+        return this.accepted.sum();
+    }
+
+    /**
+     * @return the number of moves rejected across all games
+     */
+    public long getRejectedMoves() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * @return the average number of move requests (accepted or rejected) handled per
+     * second across all games since this manager was created
+     */
+    public double getMovesPerSecond() {
+        long nanos = System.nanoTime() - this.createdAt;
+        return nanos == 0 ? 0
+            : (this.accepted.sum() + this.rejected.sum()) * 1e9 / nanos;
+    }
+
+    /**
+     * Compacts the journal (see MoveJournal.compact()) into a snapshot of the hosted
+     * games; a no-op without a journal.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void compact() throws IOException {
+        if (this.journal != null) {
+            this.journal.compact(snapshot -> {
+                for (GameSession session : this.sessions.values()) {
+                    session.addTo(snapshot);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops accepting asynchronous requests and, if this manager created its executor,
+     * waits briefly for queued requests to finish.
+     */
+    @Override
+    public void close() {
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+            try {
+                this.executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Counts a move request, and starts a background compaction if the journal has grown
+     * past its threshold.
+     *
+     * @param accepted true if the move was accepted
+     */
+    private void countMove(boolean accepted) {
+        (accepted ? this.accepted : this.rejected).increment();
+        if (accepted && this.journal != null && this.journal.needsCompaction()
+            && this.compacting.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(() -> {
+                    try {
+                        this.compact();
+                    } catch (IOException e) {
+                        // Nothing is lost: the journal keeps its old segments, and the
+                        // next accepted move tries again
+                    } finally {
+                        this.compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Logs the start of a new game, unhosting it if that fails.
+     *
+     * @param session the session of the game
+     * @throws UncheckedIOException if the game cannot be journaled
+     */
+    private void logStart(GameSession session) {
+        try {
+            session.logStart();
+        } catch (UncheckedIOException e) {
+            this.sessions.remove(session.getId(), session);
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if asynchronous requests run on virtual threads
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return virtualThreadFactory() != null;
+    }
+
+    /**
+     * Creates the default executor: one virtual thread per task when the runtime has
+     * them (looked up reflectively, since this code targets Java 11), and a cached pool
+     * of daemon platform threads otherwise.
+     *
+     * @return a new executor
+     */
+    private static ExecutorService newDefaultExecutor() {
+        Method factory = virtualThreadFactory();
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // Fall through to platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "game-session");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return Executors.newVirtualThreadPerTaskExecutor(), or null if the runtime does
+     * not have it
+     */
+    private static Method virtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
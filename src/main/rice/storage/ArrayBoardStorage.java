@@ -0,0 +1,53 @@
+package main.rice.storage;
+
+import main.rice.pieces.AChessPiece;
+
+/**
+ * A storage engine that keeps the board as a dense 2D array of pieces, where each
+ * square contains an AChessPiece or null (if empty).
+ */
+public class ArrayBoardStorage implements IBoardStorage {
+
+    /**
+     * Representation of the board; each square contains an AChessPiece or null (if
+     * empty).
+     */
+    private AChessPiece[][] board;
+
+    /**
+     * Constructor for an ArrayBoardStorage; creates an empty dim x dim board.
+     *
+     * @param dim the number of rows/columns
+     */
+    public ArrayBoardStorage(int dim) {
+        this.board = new AChessPiece[dim][dim];
+    }
+
+    @Override
+    public AChessPiece get(int row, int col) {
+        return this.board[row][col];
+    }
+
+    @Override
+    public void put(int row, int col, AChessPiece piece) {
+        this.board[row][col] = piece;
+    }
+
+    @Override
+    public void remove(int row, int col) {
+        this.board[row][col] = null;
+    }
+
+    @Override
+    public boolean isAnyOccupied(long squares) {
+        // Visit each set bit, lowest first
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            if (this.board[square >>> 3][square & 7] != null) {
+                return true;
+            }
+            squares &= squares - 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package main.rice.storage;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+
+/**
+ * A storage engine for 8x8 boards that keeps one 64-bit occupancy mask per color and
+ * per piece type, where bit (row * 8 + col) is set iff that square is occupied. The
+ * pieces themselves live in a flat 64-entry array indexed the same way, so getPiece
+ * still returns the original objects. Collision checks along a path reduce to a single
+ * AND against the combined occupancy mask.
+ */
+public class BitboardStorage implements IBoardStorage {
+
+    /**
+     * The number of rows/columns supported by this engine.
+     */
+    public static final int DIM = 8;
+
+    /**
+     * Occupancy masks indexed by color ordinal.
+     */
+    private final long[] colorMasks = new long[Color.COUNT];
+
+    /**
+     * Occupancy masks indexed by piece type ordinal.
+     */
+    private final long[] typeMasks = new long[PieceType.COUNT];
+
+    /**
+     * Occupancy mask of all pieces, regardless of color or type.
+     */
+    private long occupied;
+
+    /**
+     * The piece on each square, indexed by row * 8 + col.
+     */
+    private final AChessPiece[] pieces = new AChessPiece[DIM * DIM];
+
+    @Override
+    public AChessPiece get(int row, int col) {
+        return this.pieces[row * DIM + col];
+    }
+
+    @Override
+    public void put(int row, int col, AChessPiece piece) {
+        this.remove(row, col);
+
+        int square = row * DIM + col;
+        long bit = 1L << square;
+        this.pieces[square] = piece;
+        this.occupied |= bit;
+        this.colorMasks[piece.getColor().ordinal()] |= bit;
+        this.typeMasks[piece.getType().ordinal()] |= bit;
+    }
+
+    @Override
+    public void remove(int row, int col) {
+        int square = row * DIM + col;
+        AChessPiece piece = this.pieces[square];
+        if (piece == null) {
+            return;
+        }
+
+        long bit = ~(1L << square);
+        this.pieces[square] = null;
+        this.occupied &= bit;
+        this.colorMasks[piece.getColor().ordinal()] &= bit;
+        this.typeMasks[piece.getType().ordinal()] &= bit;
+    }
+
+    @Override
+    public boolean isAnyOccupied(long squares) {
+        return (squares & this.occupied) != 0;
+    }
+
+    /**
+     * @return the mask of all occupied squares
+     */
+    public long getOccupied() {
+        return this.occupied;
+    }
+
+    /**
+     * @param color the color to get the mask of
+     * @return the mask of squares occupied by pieces of the given color
+     */
+    public long getColorMask(Color color) {
+        return this.colorMasks[color.ordinal()];
+    }
+
+    /**
+     * @param type the piece type to get the mask of
+     * @return the mask of squares occupied by pieces of the given type
+     */
+    public long getTypeMask(PieceType type) {
+        return this.typeMasks[type.ordinal()];
+    }
+}
@@ -0,0 +1,49 @@
+package main.rice.storage;
+
+import main.rice.pieces.AChessPiece;
+
+/**
+ * A storage engine for the contents of a ChessBoard. Implementations decide how the
+ * pieces are laid out in memory; ChessBoard only talks to them through this interface,
+ * so engines can be swapped at construction time without changing the board's API.
+ */
+public interface IBoardStorage {
+
+    /**
+     * Returns the piece (or null) stored at the given square.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     * @return the piece located at (row, col), or null if the square is empty
+     */
+    AChessPiece get(int row, int col);
+
+    /**
+     * Stores a piece at the given square, replacing whatever was there.
+     *
+     * @param row   the row of the square
+     * @param col   the column of the square
+     * @param piece the (non-null) piece to store
+     */
+    void put(int row, int col, AChessPiece piece);
+
+    /**
+     * Empties the given square.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     */
+    void remove(int row, int col);
+
+    /**
+     * Returns true if any of the given squares is occupied; false otherwise. A mask can
+     * only name the squares of an 8x8 board, so engines of any other size refuse it
+     * (see SparseBoardStorage.isPathClear() for those).
+     *
+     * @param squares a mask of the squares to check, where bit (row * 8 + col) stands
+     *                for the square (row, col)
+     * @return true if at least one of the squares contains a piece
+     * @throws IllegalStateException if this engine's board is not 8x8
+     */
+    boolean isAnyOccupied(long squares);
+}
@@ -0,0 +1,160 @@
+package main.rice.storage;
+
+import java.util.Arrays;
+
+/**
+ * A minimal open-addressing hash map from non-negative long keys to objects, with linear
+ * probing and backward-shift deletion, so lookups box nothing and removals leave no
+ * tombstones behind.
+ *
+ * @param <V> the type of the values
+ */
+class LongHashMap<V> {
+
+    /**
+     * Key marking an unused slot.
+     */
+    private static final long FREE = -1;
+
+    /**
+     * The key in each slot, or FREE.
+     */
+    private long[] keys;
+
+    /**
+     * The value in each slot; null for FREE slots.
+     */
+    private Object[] values;
+
+    /**
+     * The number of entries.
+     */
+    private int size;
+
+    /**
+     * Constructor for a LongHashMap.
+     */
+    LongHashMap() {
+        this.allocate(16);
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value stored for the key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long k = this.keys[slot];
+            if (k == key) {
+                return (V) this.values[slot];
+            }
+            if (k == FREE) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     *
+     * @param key   the key, which must not be negative
+     * @param value the (non-null) value to store
+     */
+    void put(long key, V value) {
+        int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != FREE && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.keys[slot] == FREE) {
+            this.size++;
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+
+        // Keep the table at most half full
+        if (this.size * 2 > this.keys.length) {
+            this.rehash(this.keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the value stored for a key, if any.
+     *
+     * @param key the key to remove
+     */
+    void remove(long key) {
+        int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != key) {
+            if (this.keys[slot] == FREE) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Shift later entries of the probe run back, so that no lookup stops early
+        int hole = slot;
+        for (int next = (hole + 1) & mask; this.keys[next] != FREE;
+            next = (next + 1) & mask) {
+            int home = slotOf(this.keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.keys[hole] = this.keys[next];
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+        }
+        this.keys[hole] = FREE;
+        this.values[hole] = null;
+        this.size--;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Replaces the table with an empty one of the given capacity.
+     *
+     * @param capacity the number of slots; a power of two
+     */
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, FREE);
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Moves every entry into a table of the given capacity.
+     *
+     * @param capacity the number of slots; a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.allocate(capacity);
+        this.size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                this.put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * @param key  a key
+     * @param mask the table size minus one
+     * @return the slot where the key's probe run starts
+     */
+    private static int slotOf(long key, int mask) {
+        // Spread the bits, so that keys on the same row or column do not cluster
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
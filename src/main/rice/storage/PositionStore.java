@@ -0,0 +1,389 @@
+package main.rice.storage;
+
+import main.rice.BoardRenderer;
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.IBoardView;
+import main.rice.Zobrist;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.MoveTables;
+import main.rice.pieces.PieceCode;
+import main.rice.pieces.PieceType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * A compact, append-only store for large numbers of positions (e.g. for batch
+ * analysis), kept outside the Java heap so that millions of positions cost the garbage
+ * collector nothing to trace. A ChessBoard holds a storage engine, a piece object and
+ * a Coordinate per piece; here, a position is just 56 bytes and no objects.
+ *
+ * <p>Positions are stored by column: one direct buffer per PieceCode, holding each
+ * position's occupancy mask for that kind of piece (bit row * 8 + col), plus one
+ * holding each position's Zobrist key. A scan that only looks at some kinds of pieces
+ * therefore only reads those columns, one sequential long per position.
+ *
+ * <p>Positions are read through a Cursor, a reusable view of one position that
+ * implements IBoardView without creating any piece objects (except on request, through
+ * getPiece()). Not thread-safe for adding; once filled, any number of threads can read
+ * the store, each through its own cursors.
+ */
+public final class PositionStore {
+
+    /**
+     * The number of bytes each position takes.
+     */
+    public static final int BYTES_PER_POSITION = PieceCode.COUNT * Long.BYTES;
+
+    /**
+     * The most positions a store can hold: the number of longs that fit in one buffer.
+     */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / Long.BYTES;
+
+    /**
+     * The column holding the Zobrist keys; the columns before it hold the occupancy
+     * masks of PieceCodes 1 to 6.
+     */
+    private static final int KEY_COLUMN = PieceCode.COUNT - 1;
+
+    /**
+     * The columns, each holding one long per position (capacity in total).
+     */
+    private final LongBuffer[] columns = new LongBuffer[PieceCode.COUNT];
+
+    /**
+     * Occupancy masks of the position being added, indexed by PieceCode - 1.
+     */
+    private final long[] scratch = new long[KEY_COLUMN];
+
+    /**
+     * The number of positions the columns have room for.
+     */
+    private int capacity;
+
+    /**
+     * The number of positions stored.
+     */
+    private int size;
+
+    /**
+     * Constructor for a PositionStore; the store grows as needed, but each time it does
+     * every column is copied.
+     *
+     * @param initialCapacity the number of positions to make room for up front
+     * @throws IllegalArgumentException if initialCapacity is not between 1 and
+     *                                  MAX_CAPACITY
+     */
+    public PositionStore(int initialCapacity) {
+        if (initialCapacity < 1 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid capacity: " + initialCapacity);
+        }
+        this.resize(initialCapacity);
+    }
+
+    /**
+     * @return the number of positions stored
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Appends a position. Reads every square of the board once and creates no objects.
+     *
+     * @param board the position to add
+     * @return the index of the position in this store
+     * @throws IllegalStateException if the store already holds MAX_CAPACITY positions
+     */
+    public int add(IBoardView board) {
+        if (this.size == this.capacity) {
+            if (this.capacity == MAX_CAPACITY) {
+                throw new IllegalStateException("Position store is full");
+            }
+            this.resize((int) Math.min((long) this.capacity * 2, MAX_CAPACITY));
+        }
+
+        long key = 0;
+        for (int square = 0; square < MoveTables.SQUARES; square++) {
+            int code = board.getPieceCode(square);
+            if (code != PieceCode.EMPTY) {
+                this.scratch[code - 1] |= 1L << square;
+                key ^= Zobrist.key(PieceCode.colorOf(code), PieceCode.typeOf(code),
+                    square);
+            }
+        }
+        for (int column = 0; column < KEY_COLUMN; column++) {
+            this.columns[column].put(this.size, this.scratch[column]);
+            this.scratch[column] = 0;
+        }
+        this.columns[KEY_COLUMN].put(this.size, key);
+        return this.size++;
+    }
+
+    /**
+     * Removes every position, keeping the memory for reuse.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Reads one cell of a piece column.
+     *
+     * @param index the index of the position
+     * @param code  the PieceCode of the pieces to look for (not EMPTY)
+     * @return a mask with bit (row * 8 + col) set for each square holding such a piece
+     */
+    public long getPieces(int index, int code) {
+        return this.columns[code - 1].get(this.checkIndex(index));
+    }
+
+    /**
+     * @param index the index of the position
+     * @return the Zobrist key of the position (see ChessBoard.getZobristKey())
+     */
+    public long getZobristKey(int index) {
+        return this.columns[KEY_COLUMN].get(this.checkIndex(index));
+    }
+
+    /**
+     * Counts the pieces of one kind over all positions, reading nothing but that kind's
+     * column.
+     *
+     * @param code the PieceCode of the pieces to count (not EMPTY)
+     * @return the total number of such pieces
+     */
+    public long countPieces(int code) {
+        LongBuffer column = this.columns[code - 1];
+        long count = 0;
+        for (int index = 0; index < this.size; index++) {
+            count += Long.bitCount(column.get(index));
+        }
+        return count;
+    }
+
+    /**
+     * @return a new cursor; point it at a position with moveTo() before reading
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Counts the positions that pass a filter, moving one cursor over the whole store.
+     *
+     * @param filter the filter to apply
+     * @return the number of positions that pass
+     */
+    public int count(IFilter filter) {
+        int[] count = new int[1];
+        this.scan(filter, index -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Runs an action on the index of every position that passes a filter, in order,
+     * moving one cursor over the whole store.
+     *
+     * @param filter the filter to apply
+     * @param action the action to run for each passing position
+     */
+    public void scan(IFilter filter, IntConsumer action) {
+        Cursor cursor = new Cursor();
+        for (int index = 0; index < this.size; index++) {
+            if (filter.test(cursor.moveTo(index))) {
+                action.accept(index);
+            }
+        }
+    }
+
+    /**
+     * A test applied to each position during a scan.
+     */
+    public interface IFilter {
+
+        /**
+         * @param position the position to test; the cursor is reused for the next
+         *                 position, so it must not be kept
+         * @return true if the position passes
+         */
+        boolean test(Cursor position);
+    }
+
+    /**
+     * A flyweight, read-only view of one position in the store; moveTo() repoints it at
+     * another position without creating anything.
+     */
+    public final class Cursor implements IBoardView {
+
+        /**
+         * The index of the position viewed.
+         */
+        private int index;
+
+        /**
+         * Constructor for a Cursor; use PositionStore.cursor().
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Points this cursor at another position.
+         *
+         * @param index the index of the position to view
+         * @return this cursor
+         * @throws IndexOutOfBoundsException if there is no position with that index
+         */
+        public Cursor moveTo(int index) {
+            this.index = PositionStore.this.checkIndex(index);
+            return this;
+        }
+
+        /**
+         * @return the index of the position viewed
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Returns a new piece equal to the one located at the specified position. The
+         * piece is not connected to the store.
+         *
+         * @param pos the position to get the contents of
+         * @return a new piece, or null if the position is empty or off the board
+         */
+        @Override
+        public AChessPiece getPiece(Coordinate pos) {
+            if (!Coordinate.isOnBoard(pos.getRow(), pos.getCol())) {
+                return null;
+            }
+            int code = this.getPieceCode(pos.getSquare());
+            return code == PieceCode.EMPTY ? null
+                : PieceCode.typeOf(code).create(PieceCode.colorOf(code), pos);
+        }
+
+        @Override
+        public int getPieceCode(int square) {
+            for (int column = 0; column < KEY_COLUMN; column++) {
+                if (((this.getPieces(column + 1) >>> square) & 1) != 0) {
+                    return column + 1;
+                }
+            }
+            return PieceCode.EMPTY;
+        }
+
+        /**
+         * @param code the PieceCode of the pieces to look for (not EMPTY)
+         * @return a mask with bit (row * 8 + col) set for each square holding such a
+         * piece
+         */
+        public long getPieces(int code) {
+            return PositionStore.this.columns[code - 1].get(this.index);
+        }
+
+        /**
+         * @param color the color of the pieces
+         * @return a mask with bit (row * 8 + col) set for each square holding a piece of
+         * the given color
+         */
+        public long getPieces(Color color) {
+            long pieces = 0;
+            for (PieceType type : PieceType.values()) {
+                pieces |= this.getPieces(PieceCode.of(color, type));
+            }
+            return pieces;
+        }
+
+        /**
+         * @return the number of pieces on the board
+         */
+        public int getPieceCount() {
+            int count = 0;
+            for (int code = 1; code < PieceCode.COUNT; code++) {
+                count += Long.bitCount(this.getPieces(code));
+            }
+            return count;
+        }
+
+        /**
+         * @param color the color to total the material of
+         * @return the summed material value (see PieceType.getValue()) of the given
+         * color's pieces
+         */
+        public int getMaterial(Color color) {
+            int material = 0;
+            for (PieceType type : PieceType.values()) {
+                material += type.getValue()
+                    * Long.bitCount(this.getPieces(PieceCode.of(color, type)));
+            }
+            return material;
+        }
+
+        /**
+         * @return the Zobrist key of the position (see ChessBoard.getZobristKey())
+         */
+        public long getZobristKey() {
+            return PositionStore.this.columns[KEY_COLUMN].get(this.index);
+        }
+
+        /**
+         * @return a new mutable board holding the position
+         */
+        public ChessBoard toChessBoard() {
+            ByteBuffer snapshot = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+            for (int square = 0; square < MoveTables.SQUARES; square += 2) {
+                snapshot.put((byte) (this.getPieceCode(square)
+                    | this.getPieceCode(square + 1) << 4));
+            }
+            snapshot.flip();
+            ChessBoard board = ChessBoard.empty();
+            board.readFrom(snapshot);
+            return board;
+        }
+
+        /**
+         * @return the position, rendered like ChessBoard.toString()
+         */
+        @Override
+        public String toString() {
+            return BoardRenderer.render(this);
+        }
+    }
+
+    /**
+     * @param index a position index
+     * @return index
+     * @throws IndexOutOfBoundsException if there is no position with that index
+     */
+    private int checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("No position " + index + " in a store of "
+                + this.size);
+        }
+        return index;
+    }
+
+    /**
+     * Replaces every column with a larger one, copying the stored positions.
+     *
+     * @param newCapacity the number of positions to make room for
+     */
+    private void resize(int newCapacity) {
+        for (int column = 0; column < this.columns.length; column++) {
+            LongBuffer fresh = ByteBuffer.allocateDirect(newCapacity * Long.BYTES)
+                .order(ByteOrder.nativeOrder()).asLongBuffer();
+            if (this.columns[column] != null) {
+                LongBuffer old = this.columns[column].duplicate();
+                old.position(0).limit(this.size);
+                fresh.put(old);
+            }
+            this.columns[column] = fresh;
+        }
+        this.capacity = newCapacity;
+    }
+}
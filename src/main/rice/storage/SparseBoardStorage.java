@@ -0,0 +1,283 @@
+package main.rice.storage;
+
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.MoveTables;
+
+import java.util.Arrays;
+
+/**
+ * A storage engine for boards of any size (e.g. 1,000 x 1,000 and larger) holding few
+ * pieces. Memory grows with the number of pieces rather than the number of squares:
+ * pieces are kept in a primitive-keyed hash map, and every row, column and diagonal
+ * that holds a piece keeps a sorted array of the occupied positions along it. Checking
+ * whether a straight path is clear is then a binary search on one line, whose cost
+ * depends on the number of pieces on that line rather than on the length of the path.
+ */
+public class SparseBoardStorage implements IBoardStorage {
+
+    /**
+     * Line kind of rows; positions along them are columns.
+     */
+    private static final int ROW = 0;
+
+    /**
+     * Line kind of columns; positions along them are rows.
+     */
+    private static final int COLUMN = 1;
+
+    /**
+     * Line kind of diagonals (constant row - col); positions along them are rows.
+     */
+    private static final int DIAGONAL = 2;
+
+    /**
+     * Line kind of anti-diagonals (constant row + col); positions along them are rows.
+     */
+    private static final int ANTI_DIAGONAL = 3;
+
+    /**
+     * The number of line kinds.
+     */
+    private static final int LINE_KINDS = 4;
+
+    /**
+     * The number of rows/columns.
+     */
+    private final int dim;
+
+    /**
+     * The pieces, keyed by row * dim + col.
+     */
+    private final LongHashMap<AChessPiece> pieces = new LongHashMap<>();
+
+    /**
+     * The occupied lines, keyed by lineKey().
+     */
+    private final LongHashMap<Line> lines = new LongHashMap<>();
+
+    /**
+     * Constructor for a SparseBoardStorage; creates an empty dim x dim board.
+     *
+     * @param dim the number of rows/columns
+     * @throws IllegalArgumentException if dim is not positive
+     */
+    public SparseBoardStorage(int dim) {
+        if (dim <= 0) {
+            throw new IllegalArgumentException("Invalid dimension: " + dim);
+        }
+        this.dim = dim;
+    }
+
+    /**
+     * @return the number of rows/columns
+     */
+    public int getDim() {
+        return this.dim;
+    }
+
+    /**
+     * @return the number of pieces stored
+     */
+    public int size() {
+        return this.pieces.size();
+    }
+
+    @Override
+    public AChessPiece get(int row, int col) {
+        return this.pieces.get(this.squareKey(row, col));
+    }
+
+    @Override
+    public void put(int row, int col, AChessPiece piece) {
+        long key = this.squareKey(row, col);
+        if (this.pieces.get(key) == null) {
+            this.addToLine(ROW, row, col);
+            this.addToLine(COLUMN, col, row);
+            this.addToLine(DIAGONAL, row - col + this.dim, row);
+            this.addToLine(ANTI_DIAGONAL, row + col, row);
+        }
+        this.pieces.put(key, piece);
+    }
+
+    @Override
+    public void remove(int row, int col) {
+        long key = this.squareKey(row, col);
+        if (this.pieces.get(key) != null) {
+            this.pieces.remove(key);
+            this.removeFromLine(ROW, row, col);
+            this.removeFromLine(COLUMN, col, row);
+            this.removeFromLine(DIAGONAL, row - col + this.dim, row);
+            this.removeFromLine(ANTI_DIAGONAL, row + col, row);
+        }
+    }
+
+    /**
+     * Returns true if any of the given squares is occupied; false otherwise. A mask can
+     * only name the squares of an 8x8 board, so boards of any other size must use
+     * isPathClear() instead.
+     *
+     * @param squares a mask of the squares to check, where bit (row * 8 + col) stands
+     *                for the square (row, col)
+     * @return true if at least one of the squares contains a piece
+     * @throws IllegalStateException if this board is not 8x8
+     */
+    @Override
+    public boolean isAnyOccupied(long squares) {
+        if (this.dim != MoveTables.DIM) {
+            throw new IllegalStateException("Square masks need an 8x8 board, not "
+                + this.dim + "x" + this.dim);
+        }
+
+        // Visit each set bit, lowest first
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            if (this.get(square / MoveTables.DIM, square % MoveTables.DIM) != null) {
+                return true;
+            }
+            squares &= squares - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether every square strictly between two squares is empty. The squares
+     * must share a row, column or diagonal; otherwise there is nothing in between (as
+     * for a Knight's move) and the path is clear.
+     *
+     * @param startRow the row of the first square
+     * @param startCol the column of the first square
+     * @param endRow   the row of the second square
+     * @param endCol   the column of the second square
+     * @return true if no piece stands between the two squares
+     */
+    public boolean isPathClear(int startRow, int startCol, int endRow, int endCol) {
+        int rowDelta = endRow - startRow;
+        int colDelta = endCol - startCol;
+        Line line;
+        int from;
+        int to;
+        if (rowDelta == 0) {
+            line = this.lines.get(lineKey(ROW, startRow));
+            from = startCol;
+            to = endCol;
+        } else if (colDelta == 0) {
+            line = this.lines.get(lineKey(COLUMN, startCol));
+            from = startRow;
+            to = endRow;
+        } else if (rowDelta == colDelta) {
+            line = this.lines.get(lineKey(DIAGONAL, startRow - startCol + this.dim));
+            from = startRow;
+            to = endRow;
+        } else if (rowDelta == -colDelta) {
+            line = this.lines.get(lineKey(ANTI_DIAGONAL, startRow + startCol));
+            from = startRow;
+            to = endRow;
+        } else {
+            return true;
+        }
+        return line == null || !line.anyBetween(Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * @param row the row of a square
+     * @param col the column of a square
+     * @return the key of the square in pieces
+     */
+    private long squareKey(int row, int col) {
+        return (long) row * this.dim + col;
+    }
+
+    /**
+     * @param kind  the line kind (ROW, COLUMN, DIAGONAL or ANTI_DIAGONAL)
+     * @param index the non-negative index of the line among lines of its kind
+     * @return the key of the line in lines
+     */
+    private static long lineKey(int kind, int index) {
+        return (long) index * LINE_KINDS + kind;
+    }
+
+    /**
+     * Records an occupied position on a line.
+     *
+     * @param kind     the line kind
+     * @param index    the index of the line
+     * @param position the position along the line
+     */
+    private void addToLine(int kind, int index, int position) {
+        long key = lineKey(kind, index);
+        Line line = this.lines.get(key);
+        if (line == null) {
+            line = new Line();
+            this.lines.put(key, line);
+        }
+        line.add(position);
+    }
+
+    /**
+     * Forgets an occupied position on a line, dropping the line once it is empty.
+     *
+     * @param kind     the line kind
+     * @param index    the index of the line
+     * @param position the position along the line
+     */
+    private void removeFromLine(int kind, int index, int position) {
+        long key = lineKey(kind, index);
+        Line line = this.lines.get(key);
+        line.remove(position);
+        if (line.size == 0) {
+            this.lines.remove(key);
+        }
+    }
+
+    /**
+     * The sorted, occupied positions along one row, column or diagonal.
+     */
+    private static final class Line {
+
+        /**
+         * The occupied positions; the first size entries are in use, in ascending order.
+         */
+        private int[] positions = new int[4];
+
+        /**
+         * The number of occupied positions.
+         */
+        private int size;
+
+        /**
+         * @param position a position that is not yet recorded
+         */
+        void add(int position) {
+            int index = -Arrays.binarySearch(this.positions, 0, this.size, position) - 1;
+            if (this.size == this.positions.length) {
+                this.positions = Arrays.copyOf(this.positions, this.size * 2);
+            }
+            System.arraycopy(this.positions, index, this.positions, index + 1,
+                this.size - index);
+            this.positions[index] = position;
+            this.size++;
+        }
+
+        /**
+         * @param position a recorded position
+         */
+        void remove(int position) {
+            int index = Arrays.binarySearch(this.positions, 0, this.size, position);
+            System.arraycopy(this.positions, index + 1, this.positions, index,
+                this.size - index - 1);
+            this.size--;
+        }
+
+        /**
+         * @param low  the lower bound, exclusive
+         * @param high the upper bound, exclusive
+         * @return true if some occupied position lies strictly between low and high
+         */
+        boolean anyBetween(int low, int high) {
+            // Find the first position above low
+            int index = Arrays.binarySearch(this.positions, 0, this.size, low);
+            index = index >= 0 ? index + 1 : -index - 1;
+            return index < this.size && this.positions[index] < high;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package main.rice.storage;
+
+/**
+ * The storage engines that a ChessBoard can be backed by.
+ */
+public enum StorageType {
+
+    /**
+     * A dense 2D array of pieces (see ArrayBoardStorage).
+     */
+    ARRAY,
+
+    /**
+     * A flat array of pieces plus 64-bit occupancy masks for all pieces, each color and
+     * each piece type (see BitboardStorage).
+     */
+    BITBOARD,
+
+    /**
+     * A primitive-keyed hash map plus sorted per-line indexes, for large boards with few
+     * pieces (see SparseBoardStorage).
+     */
+    SPARSE;
+
+    /**
+     * Name of the system property that selects the engine used by the no-arg ChessBoard
+     * constructor; lets an unchanged test suite or workload run against either engine.
+     */
+    public static final String PROPERTY = "main.rice.storage";
+
+    /**
+     * @return the engine named by the main.rice.storage system property, or ARRAY if the
+     * property is unset
+     */
+    public static StorageType fromSystemProperty() {
+        String name = System.getProperty(PROPERTY);
+        return name == null ? ARRAY : StorageType.valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * Creates a new, empty storage engine of this type.
+     *
+     * @param dim the number of rows/columns of the board
+     * @return a new storage engine
+     */
+    public IBoardStorage create(int dim) {
+        switch (this) {
+            case BITBOARD:
+                return new BitboardStorage();
+            case SPARSE:
+                return new SparseBoardStorage(dim);
+            default:
+                return new ArrayBoardStorage(dim);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package test.rice;
+
+import main.rice.BoardPool;
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.storage.StorageType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the BoardPool class.
+ */
+public class BoardPoolTest {
+
+    /**
+     * The number of threads sharing a pool in the concurrency test.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * The number of games each thread plays in the concurrency test.
+     */
+    private static final int GAMES = 500;
+
+    /**
+     * Tests that a released board is handed out again, reset to the initial position.
+     */
+    @Test
+    void testReuse() {
+        BoardPool pool = new BoardPool(2, StorageType.ARRAY);
+        ChessBoard board = pool.acquire();
+        assertEquals(1, pool.getCreatedCount());
+        assertTrue(board.move(new Coordinate(7, 1), new Coordinate(5, 2)));
+
+        assertTrue(pool.release(board));
+        assertEquals(1, pool.getIdleCount());
+        ChessBoard again = pool.acquire();
+        assertSame(board, again);
+        assertEquals(new ChessBoard(StorageType.ARRAY), again);
+        assertEquals(new ChessBoard(StorageType.ARRAY).getZobristKey(),
+            again.getZobristKey());
+        assertEquals(0, again.getUndoDepth());
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getReusedCount());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    /**
+     * Tests that the pool keeps no more than maxIdle boards, and rejects boards with
+     * another type of storage and invalid bounds.
+     */
+    @Test
+    void testBounds() {
+        BoardPool pool = new BoardPool(2, StorageType.BITBOARD);
+        List<ChessBoard> boards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            boards.add(pool.acquire());
+        }
+        assertTrue(pool.release(boards.get(0)));
+        assertTrue(pool.release(boards.get(1)));
+        assertFalse(pool.release(boards.get(2)));
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(StorageType.BITBOARD, pool.acquire().getStorageType());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> pool.release(new ChessBoard(StorageType.SPARSE)));
+        assertThrows(IllegalArgumentException.class, () -> new BoardPool(0));
+    }
+
+    /**
+     * Tests that threads sharing a pool never receive the same board at once, and that
+     * every board they receive is in the initial position.
+     */
+    @Test
+    void testConcurrentUse() throws InterruptedException {
+        BoardPool pool = new BoardPool(THREADS, StorageType.ARRAY);
+        ChessBoard initial = new ChessBoard(StorageType.ARRAY);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < GAMES; i++) {
+                        ChessBoard board = pool.acquire();
+                        assertEquals(initial, board);
+
+                        // Another holder of this board would see or undo these moves
+                        Coordinate home = new Coordinate(7, 1);
+                        Coordinate out = new Coordinate(5, 2);
+                        assertTrue(board.move(home, out));
+                        Thread.yield();
+                        assertTrue(board.move(out, home));
+                        assertEquals(initial, board);
+                        pool.release(board);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertEquals(THREADS * GAMES, pool.getCreatedCount() + pool.getReusedCount());
+        assertTrue(pool.getCreatedCount() <= THREADS);
+    }
+}
@@ -0,0 +1,87 @@
+package test.rice;
+
+import main.rice.BoardRenderer;
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the BoardRenderer class.
+ */
+public class BoardRendererTest {
+
+    /**
+     * Tests that the initial position renders in the original toString() format, to
+     * both a String and a ByteBuffer.
+     */
+    @Test
+    void testRenderInitial() {
+        String separator = "-----------------------------------------\n";
+        String empty = "|    |    |    |    |    |    |    |    |\n";
+        StringBuilder expected = new StringBuilder(separator);
+        expected.append("| BR | BK | BB |    |    | BB | BK | BR |\n").append(separator);
+        for (int row = 1; row < 7; row++) {
+            expected.append(empty).append(separator);
+        }
+        expected.append("| WR | WK | WB |    |    | WB | WK | WR |\n").append(separator);
+
+        ChessBoard board = new ChessBoard();
+        assertEquals(expected.toString(), BoardRenderer.render(board));
+        assertEquals(expected.toString(), board.toString());
+        assertEquals(BoardRenderer.RENDERED_CHARS, expected.length());
+
+        ByteBuffer buf = ByteBuffer.allocate(BoardRenderer.RENDERED_CHARS);
+        BoardRenderer.render(board, buf);
+        assertFalse(buf.hasRemaining());
+        assertEquals(expected.toString(),
+            new String(buf.array(), StandardCharsets.US_ASCII));
+        assertThrows(BufferOverflowException.class,
+            () -> BoardRenderer.render(board, ByteBuffer.allocate(10)));
+    }
+
+    /**
+     * Tests that diff mode emits every row first, then only the rows a move changed, and
+     * that the emitted rows patch a full rendering into the new one.
+     */
+    @Test
+    void testRenderChanges() throws Exception {
+        ChessBoard board = new ChessBoard();
+        BoardRenderer renderer = new BoardRenderer();
+        StringBuilder sb = new StringBuilder();
+        assertEquals(8, renderer.renderChanges(board, sb));
+        assertEquals(8 * BoardRenderer.CHANGED_ROW_CHARS, sb.length());
+
+        sb.setLength(0);
+        assertEquals(0, renderer.renderChanges(board, sb));
+        assertEquals(0, sb.length());
+
+        String before = board.toString();
+        board.move(Coordinate.of(7, 1), Coordinate.of(5, 2));
+        ByteBuffer buf = ByteBuffer.allocate(2 * BoardRenderer.CHANGED_ROW_CHARS);
+        assertThrows(BufferOverflowException.class,
+            () -> renderer.renderChanges(board, ByteBuffer.allocate(10)));
+        assertEquals(2, renderer.renderChanges(board, buf));
+        assertFalse(buf.hasRemaining());
+
+        // Apply the emitted rows to the old rendering
+        StringBuilder patched = new StringBuilder(before);
+        String diff = new String(buf.array(), StandardCharsets.US_ASCII);
+        for (int i = 0; i < diff.length(); i += BoardRenderer.CHANGED_ROW_CHARS) {
+            int row = diff.charAt(i) - '0';
+            int offset = BoardRenderer.SEPARATOR_CHARS
+                + row * (BoardRenderer.LINE_CHARS + BoardRenderer.SEPARATOR_CHARS);
+            patched.replace(offset, offset + BoardRenderer.LINE_CHARS,
+                diff.substring(i + 1, i + BoardRenderer.CHANGED_ROW_CHARS));
+        }
+        assertEquals(board.toString(), patched.toString());
+
+        renderer.reset();
+        assertEquals(8, renderer.renderChanges(board, new StringBuilder()));
+    }
+}
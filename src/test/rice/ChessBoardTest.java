@@ -2,9 +2,19 @@ package test.rice;
 
 import main.rice.ChessBoard;
 import main.rice.Coordinate;
+import main.rice.MoveBuffer;
 import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.Knight;
+import main.rice.pieces.MoveTables;
+import main.rice.pieces.PieceType;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -54,6 +64,25 @@ public class ChessBoardTest {
         assertEquals(blackRook.getPosition(), new Coordinate(0, 0));
     }
 
+    /**
+     * Tests that the packed-square API rejects squares off the board, like the Coordinate
+     * API, instead of throwing.
+     */
+    @Test
+    void testSquareOutOfBounds() {
+        ChessBoard board = new ChessBoard();
+        ChessBoard expected = new ChessBoard();
+
+        assertNull(board.getPiece(-1));
+        assertNull(board.getPiece(64));
+        assertFalse(board.isValidMove(64, 0));
+        assertFalse(board.isValidMove(0, -1));
+        assertFalse(board.move(64, 0));
+        assertFalse(board.move(0, 64));
+        assertFalse(board.move(-8, 0));
+        assertEquals(expected, board);
+    }
+
     /**
      * Tests that a move from an empty start position is not accepted.
      */
@@ -308,4 +337,368 @@ public class ChessBoardTest {
         assertEquals(blackRook, board.getPiece(new Coordinate(0, 0)));
         assertEquals(blackRook.getPosition(), new Coordinate(0, 0));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that generating moves for the initial position finds every valid move
+     * (including the two Rook captures) and leaves the board unchanged.
+     */
+    @Test
+    void testGenerateMovesInitial() {
+        // Initialize the board
+        ChessBoard board = new ChessBoard();
+        String before = board.toString();
+
+        // Generate Black's moves and check the count
+        MoveBuffer buffer = new MoveBuffer();
+        int numMoves = board.generateMoves(Color.BLACK, buffer);
+        assertEquals(34, numMoves);
+
+        // Check that every generated move is valid and count the captures
+        int numCaptures = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            int move = buffer.get(i);
+            assertTrue(board.isValidMove(MoveBuffer.from(move), MoveBuffer.to(move)));
+            if (MoveBuffer.isCapture(move)) {
+                numCaptures++;
+            }
+        }
+        assertEquals(2, numCaptures);
+
+        // Check that the state is unchanged, and that the buffer is reusable
+        assertEquals(before, board.toString());
+        assertEquals(34, board.generateMoves(Color.WHITE, buffer));
+    }
+
+    /**
+     * Tests that unmaking each move (including captures) restores both the board and the
+     * position of every piece.
+     */
+    @Test
+    void testMakeUnmakeMove() {
+        // Initialize the board
+        ChessBoard board = new ChessBoard();
+        String before = board.toString();
+        AChessPiece blackRook = board.getPiece(new Coordinate(0, 0));
+        AChessPiece whiteRook = board.getPiece(new Coordinate(7, 0));
+
+        // Make and unmake every move for Black, including a reply by White to each
+        MoveBuffer moves = new MoveBuffer();
+        MoveBuffer replies = new MoveBuffer();
+        board.generateMoves(Color.BLACK, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            board.generateMoves(Color.WHITE, replies);
+            for (int j = 0; j < replies.size(); j++) {
+                board.makeMove(replies.get(j));
+                board.unmakeMove();
+            }
+            board.unmakeMove();
+        }
+
+        // Check that the state is unchanged, including after the capture 0,0 -> 7,0
+        assertEquals(0, board.getUndoDepth());
+        assertEquals(before, board.toString());
+        assertEquals(blackRook, board.getPiece(new Coordinate(0, 0)));
+        assertEquals(whiteRook, board.getPiece(new Coordinate(7, 0)));
+        assertEquals(blackRook.getPosition(), new Coordinate(0, 0));
+        assertEquals(whiteRook.getPosition(), new Coordinate(7, 0));
+    }
+
+    /**
+     * Tests that two move orders reaching the same position produce equal boards with
+     * equal Zobrist keys, and that unmaking a move restores the key.
+     */
+    @Test
+    void testZobristTransposition() {
+        // Reach the same position by moving the two black Knights in either order
+        ChessBoard board1 = new ChessBoard();
+        board1.move(new Coordinate(0, 1), new Coordinate(2, 0));
+        board1.move(new Coordinate(0, 6), new Coordinate(2, 7));
+        ChessBoard board2 = new ChessBoard();
+        board2.move(new Coordinate(0, 6), new Coordinate(2, 7));
+        board2.move(new Coordinate(0, 1), new Coordinate(2, 0));
+
+        assertEquals(board1.getZobristKey(), board2.getZobristKey());
+        assertEquals(board1, board2);
+        assertEquals(board1.hashCode(), board2.hashCode());
+        assertNotEquals(new ChessBoard(), board1);
+
+        // Check that make/unmake restores the key
+        long key = board1.getZobristKey();
+        MoveBuffer buffer = new MoveBuffer();
+        board1.generateMoves(Color.WHITE, buffer);
+        board1.makeMove(buffer.get(0));
+        assertNotEquals(key, board1.getZobristKey());
+        board1.unmakeMove();
+        assertEquals(key, board1.getZobristKey());
+    }
+
+    /**
+     * Tests that the incrementally maintained attack maps agree with a brute-force check
+     * through validateMove after every move of a pseudo-random game, and after unmaking
+     * every move again.
+     */
+    @Test
+    void testAttackMaps() {
+        // Initialize the board
+        ChessBoard board = new ChessBoard();
+        assertAttackMapsMatch(board);
+
+        // Play random moves (with a fixed seed) until someone runs out, then take them
+        // all back
+        Random random = new Random(215);
+        MoveBuffer buffer = new MoveBuffer();
+        Color toMove = Color.WHITE;
+        for (int i = 0; i < 200 && board.generateMoves(toMove, buffer) > 0; i++) {
+            board.makeMove(buffer.get(random.nextInt(buffer.size())));
+            assertAttackMapsMatch(board);
+            toMove = toMove.opposite();
+        }
+        while (board.getUndoDepth() > 0) {
+            board.unmakeMove();
+            assertAttackMapsMatch(board);
+        }
+    }
+
+    /**
+     * Tests that copy() and resetToInitial(), which copy their source in bulk, leave the
+     * same pieces, key, material and attack maps as building the position move by move.
+     */
+    @Test
+    void testCopyAndReset() {
+        ChessBoard board = new ChessBoard();
+        Random random = new Random(25);
+        MoveBuffer buffer = new MoveBuffer();
+        Color toMove = Color.WHITE;
+        for (int i = 0; i < 30 && board.generateMoves(toMove, buffer) > 0; i++) {
+            board.makeMove(buffer.get(random.nextInt(buffer.size())));
+            toMove = toMove.opposite();
+        }
+
+        // The copy matches, and moves on it leave the original alone
+        ChessBoard copy = board.copy();
+        assertEquals(board, copy);
+        assertEquals(board.getZobristKey(), copy.getZobristKey());
+        assertEquals(board.getMaterial(Color.BLACK), copy.getMaterial(Color.BLACK));
+        assertEquals(0, copy.getUndoDepth());
+        assertAttackMapsMatch(copy);
+        copy.generateMoves(toMove, buffer);
+        copy.makeMove(buffer.get(0));
+        assertNotEquals(board, copy);
+        assertAttackMapsMatch(board);
+
+        // A reset board matches a new one, and no longer holds its old pieces
+        AChessPiece old = null;
+        for (int square = 0; old == null; square++) {
+            old = board.getPiece(square);
+        }
+        board.resetToInitial();
+        ChessBoard fresh = new ChessBoard();
+        assertEquals(fresh, board);
+        assertEquals(fresh.toString(), board.toString());
+        assertEquals(fresh.getZobristKey(), board.getZobristKey());
+        assertEquals(fresh.getMaterial(Color.WHITE), board.getMaterial(Color.WHITE));
+        assertEquals(0, board.getUndoDepth());
+        assertAttackMapsMatch(board);
+        for (int square = 0; square < 64; square++) {
+            assertNotSame(old, board.getPiece(square));
+        }
+
+        // Moves on a reset board leave the boards created later alone
+        assertTrue(board.move(new Coordinate(7, 1), new Coordinate(5, 2)));
+        assertEquals(fresh, new ChessBoard());
+    }
+
+    /**
+     * Checks every square's attackers against a brute-force computation: a piece attacks
+     * a square if its pattern reaches the square and the path there is empty.
+     *
+     * @param board the board to check
+     */
+    private static void assertAttackMapsMatch(ChessBoard board) {
+        for (int square = 0; square < 64; square++) {
+            for (Color color : Color.values()) {
+                long expected = 0;
+                for (int from = 0; from < 64; from++) {
+                    AChessPiece piece = board.getPiece(from);
+                    if (piece == null || piece.getColor() != color || from == square) {
+                        continue;
+                    }
+                    Coordinate[] path = piece.validateMove(Coordinate.ofSquare(square));
+                    if (path != null && isEmpty(board, path)) {
+                        expected |= 1L << from;
+                    }
+                }
+                assertEquals(expected, board.getAttackers(square, color));
+                assertEquals(expected != 0,
+                    board.isAttacked(Coordinate.ofSquare(square), color));
+            }
+        }
+    }
+
+    /**
+     * @param board the board to check
+     * @param path  the squares to check
+     * @return true if none of the squares holds a piece
+     */
+    private static boolean isEmpty(ChessBoard board, Coordinate[] path) {
+        for (Coordinate pos : path) {
+            if (board.getPiece(pos) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests that a 32-byte snapshot restores the same position (pieces, key and attack
+     * maps) into another board, and that a corrupt snapshot is rejected untouched.
+     */
+    @Test
+    void testSnapshotRoundTrip() {
+        // Reach a position with a capture in it
+        ChessBoard board = new ChessBoard();
+        board.move(new Coordinate(0, 0), new Coordinate(7, 0));
+        board.move(new Coordinate(7, 2), new Coordinate(4, 5));
+
+        // Write the snapshot and read it back into a fresh board
+        ByteBuffer buf = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        board.writeTo(buf);
+        assertFalse(buf.hasRemaining());
+        buf.flip();
+        ChessBoard restored = new ChessBoard();
+        restored.readFrom(buf);
+
+        assertFalse(buf.hasRemaining());
+        assertEquals(board, restored);
+        assertEquals(board.toString(), restored.toString());
+        assertEquals(board.getZobristKey(), restored.getZobristKey());
+        assertEquals(board.getAttackers(0, Color.WHITE),
+            restored.getAttackers(0, Color.WHITE));
+        assertEquals(new Coordinate(4, 5), restored.getPiece(new Coordinate(4, 5))
+            .getPosition());
+
+        // Corrupt the last square's code and check that nothing changes
+        buf.put(ChessBoard.SNAPSHOT_BYTES - 1, (byte) 0xF0);
+        buf.flip();
+        assertThrows(IllegalArgumentException.class, () -> restored.readFrom(buf));
+        assertEquals(0, buf.position());
+        assertEquals(board, restored);
+    }
+
+    /**
+     * Tests that validateMoveMask rejects squares off the board rather than reading
+     * another start square's entries from the path tables.
+     */
+    @Test
+    void testValidateMoveMaskOffBoard() {
+        ChessBoard board = new ChessBoard();
+        AChessPiece whiteRook = board.getPiece(new Coordinate(7, 0));
+        AChessPiece blackRook = board.getPiece(new Coordinate(0, 0));
+        assertEquals(MoveTables.INVALID, whiteRook.validateMoveMask(-1));
+        assertEquals(MoveTables.INVALID, whiteRook.validateMoveMask(64));
+        assertEquals(MoveTables.INVALID, blackRook.validateMoveMask(-8));
+        assertEquals(MoveTables.INVALID, blackRook.validateMoveMask(Integer.MIN_VALUE));
+        assertNotEquals(MoveTables.INVALID, whiteRook.validateMoveMask(0));
+    }
+
+    /**
+     * Tests the empty-board distance tables on a few known cases, including the Knight's
+     * four moves to the diagonal neighbour of a corner.
+     */
+    @Test
+    void testDistanceEmptyBoard() {
+        assertEquals(0, PieceType.KNIGHT.getDistance(27, 27));
+        assertEquals(6, PieceType.KNIGHT.getDistance(0, 63));
+        assertEquals(4, PieceType.KNIGHT.getDistance(0, 9));
+        assertEquals(2, PieceType.ROOK.getDistance(0, 63));
+        assertEquals(1, PieceType.BISHOP.getDistance(0, 63));
+        assertEquals(2, PieceType.BISHOP.getDistance(0, 2));
+        assertEquals(MoveTables.UNREACHABLE, PieceType.BISHOP.getDistance(0, 1));
+    }
+
+    /**
+     * Tests distance() and reachableSquares() against a brute-force search through
+     * validateMove for every piece, after every move of a pseudo-random game.
+     */
+    @Test
+    void testDistanceMatchesSearch() {
+        ChessBoard board = new ChessBoard();
+        Random random = new Random(23);
+        MoveBuffer buffer = new MoveBuffer();
+        Color toMove = Color.WHITE;
+        for (int i = 0; i < 60 && board.generateMoves(toMove, buffer) > 0; i++) {
+            for (int from = 0; from < 64; from++) {
+                AChessPiece piece = board.getPiece(from);
+                if (piece == null) {
+                    assertEquals(MoveTables.UNREACHABLE, board.distance(from, 0));
+                    continue;
+                }
+                int[] expected = searchDistances(board, piece);
+                long within = 0;
+                for (int maxMoves = 1; maxMoves <= 4; maxMoves++) {
+                    for (int to = 0; to < 64; to++) {
+                        if (expected[to] == maxMoves) {
+                            within |= 1L << to;
+                        }
+                    }
+                    assertEquals(within, board.reachableSquares(piece, maxMoves));
+                }
+                for (int to = 0; to < 64; to++) {
+                    assertEquals(expected[to], board.distance(from, to));
+                }
+            }
+            board.makeMove(buffer.get(random.nextInt(buffer.size())));
+            toMove = toMove.opposite();
+        }
+
+        // Pieces that are not on the board are rejected
+        AChessPiece stray = new Knight(Color.WHITE, new Coordinate(4, 4));
+        assertThrows(IllegalArgumentException.class,
+            () -> board.reachableSquares(stray, 1));
+        assertEquals(MoveTables.UNREACHABLE,
+            board.distance(new Coordinate(-1, 0), new Coordinate(0, 0)));
+    }
+
+    /**
+     * Breadth-first search for the number of moves a piece needs to reach each square,
+     * using validateMove() on fresh pieces; the piece's own square counts as empty, and
+     * a capture ends the way.
+     *
+     * @param board the board holding the piece
+     * @param piece the piece to move
+     * @return the number of moves to reach each square, or -1 if it cannot be reached
+     */
+    private static int[] searchDistances(ChessBoard board, AChessPiece piece) {
+        int[] distances = new int[64];
+        Arrays.fill(distances, MoveTables.UNREACHABLE);
+        int start = piece.getPosition().getSquare();
+        distances[start] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int from = queue.poll();
+            AChessPiece mover = piece.getType().create(piece.getColor(),
+                Coordinate.ofSquare(from));
+            for (int to = 0; to < 64; to++) {
+                Coordinate[] path = mover.validateMove(Coordinate.ofSquare(to));
+                AChessPiece target = board.getPiece(to);
+                if (distances[to] != MoveTables.UNREACHABLE || path == null
+                    || (target != null && target.getColor() == piece.getColor())) {
+                    continue;
+                }
+                boolean blocked = false;
+                for (Coordinate pos : path) {
+                    blocked |= board.getPiece(pos) != null && pos.getSquare() != start;
+                }
+                if (!blocked) {
+                    distances[to] = distances[from] + 1;
+                    if (target == null) {
+                        queue.add(to);
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,145 @@
+package test.rice;
+
+import main.rice.BoardRenderer;
+import main.rice.ChessBoard;
+import main.rice.ConcurrentChessBoard;
+import main.rice.Coordinate;
+import main.rice.IBoardView;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the ConcurrentChessBoard class.
+ */
+public class ConcurrentChessBoardTest {
+
+    /**
+     * The number of moves made by the writer in the stress test.
+     */
+    private static final int MOVES = 50_000;
+
+    /**
+     * The number of reader threads in the stress test.
+     */
+    private static final int READERS = 4;
+
+    /**
+     * Tests that moves are published to readers, and that readers get detached copies of
+     * the pieces.
+     */
+    @Test
+    void testMovePublished() {
+        ConcurrentChessBoard board = new ConcurrentChessBoard(new ChessBoard());
+        assertEquals(new ChessBoard().toString(), board.toString());
+        assertEquals(0, board.getVersion());
+
+        assertTrue(board.move(Coordinate.of(7, 1), Coordinate.of(5, 2)));
+        assertFalse(board.move(Coordinate.of(7, 0), Coordinate.of(7, 2)));
+        assertEquals(1, board.getVersion());
+        assertNull(board.getPiece(Coordinate.of(7, 1)));
+
+        AChessPiece knight = board.getPiece(Coordinate.of(5, 2));
+        assertEquals(Color.WHITE, knight.getColor());
+        assertEquals(PieceType.KNIGHT, knight.getType());
+        knight.move(Coordinate.of(4, 4));
+        assertNotNull(board.getPiece(Coordinate.of(5, 2)));
+
+        ChessBoard expected = new ChessBoard();
+        expected.move(Coordinate.of(7, 1), Coordinate.of(5, 2));
+        assertEquals(expected, board.snapshot());
+
+        // The board can be read through IBoardView, like any other position
+        IBoardView view = board;
+        assertEquals(expected.toString(), BoardRenderer.render(view));
+        assertEquals(expected.toString(), board.toString());
+    }
+
+    /**
+     * Tests that reading an off-board coordinate returns null instead of wrapping onto
+     * another square.
+     */
+    @Test
+    void testOffBoardReadsReturnNull() {
+        ConcurrentChessBoard board = new ConcurrentChessBoard(new ChessBoard());
+        assertNull(board.getPiece(Coordinate.of(-1, 8)));
+        assertNull(board.getPiece(Coordinate.of(1, -1)));
+        assertNull(board.getPiece(Coordinate.of(8, 0)));
+        assertNull(board.getPiece(Coordinate.of(0, 8)));
+        assertNotNull(board.getPiece(Coordinate.of(0, 0)));
+    }
+
+    /**
+     * Stress test: one writer shuffles a Knight between two squares (held in different
+     * packed words) while several readers take snapshots. Every snapshot must show the
+     * Knight on exactly one of the two squares, with the version of that position, and
+     * versions must never go backwards.
+     */
+    @Test
+    void testReadersNeverSeeTornPosition() throws InterruptedException {
+        ConcurrentChessBoard board = new ConcurrentChessBoard(new ChessBoard());
+        Coordinate home = Coordinate.of(7, 1);
+        Coordinate away = Coordinate.of(5, 2);
+        String homeString = new ChessBoard().toString();
+        ChessBoard awayBoard = new ChessBoard();
+        awayBoard.move(home, away);
+        String awayString = awayBoard.toString();
+        ByteBuffer homeBytes = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        new ChessBoard().writeTo(homeBytes);
+        homeBytes.flip();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                ByteBuffer buf = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+                long lastVersion = 0;
+                while (!done.get() && failure.get() == null) {
+                    long version = board.getVersion();
+                    String text = board.toString();
+                    if (version < lastVersion) {
+                        failure.set("version went from " + lastVersion + " to "
+                            + version);
+                    } else if (!text.equals(homeString) && !text.equals(awayString)) {
+                        failure.set("torn position:\n" + text);
+                    }
+
+                    // A snapshot's version must match its position
+                    buf.clear();
+                    long snapshotVersion = board.writeTo(buf);
+                    buf.flip();
+                    if (buf.equals(homeBytes) != (snapshotVersion % 2 == 0)) {
+                        failure.set("version " + snapshotVersion + " with the wrong "
+                            + "position");
+                    }
+                    lastVersion = version;
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 0; i < MOVES; i++) {
+            boolean out = i % 2 == 0;
+            assertTrue(board.move(out ? home : away, out ? away : home));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(MOVES, board.getVersion());
+        assertEquals(homeString, board.toString());
+    }
+}
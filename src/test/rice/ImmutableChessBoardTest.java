@@ -0,0 +1,116 @@
+package test.rice;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.ImmutableChessBoard;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the ImmutableChessBoard class.
+ */
+public class ImmutableChessBoardTest {
+
+    /**
+     * The number of random moves tried in the cross-check against ChessBoard.
+     */
+    private static final int RANDOM_MOVES = 20_000;
+
+    /**
+     * Tests that the initial position matches a new ChessBoard.
+     */
+    @Test
+    void testInitial() {
+        ImmutableChessBoard board = ImmutableChessBoard.initial();
+        ChessBoard expected = new ChessBoard();
+        assertEquals(expected.toString(), board.toString());
+        assertEquals(expected.getZobristKey(), board.getZobristKey());
+        assertEquals(expected, board.toChessBoard());
+        assertEquals(board, ImmutableChessBoard.of(expected));
+    }
+
+    /**
+     * Tests that branching from one board leaves it, and every other branch, unchanged.
+     */
+    @Test
+    void testBranchesLeaveParentUnchanged() {
+        ImmutableChessBoard root = ImmutableChessBoard.initial();
+        String rootString = root.toString();
+
+        ImmutableChessBoard left = root.move(Coordinate.of(7, 1), Coordinate.of(5, 2));
+        ImmutableChessBoard right = root.move(Coordinate.of(7, 1), Coordinate.of(5, 0));
+        ImmutableChessBoard leftLeft =
+            left.move(Coordinate.of(5, 2), Coordinate.of(3, 3));
+
+        assertEquals(rootString, root.toString());
+        assertNotNull(root.getPiece(Coordinate.of(7, 1)));
+        assertNull(root.getPiece(Coordinate.of(5, 2)));
+
+        assertNotNull(left.getPiece(Coordinate.of(5, 2)));
+        assertNull(left.getPiece(Coordinate.of(3, 3)));
+        assertNotNull(right.getPiece(Coordinate.of(5, 0)));
+        assertNull(right.getPiece(Coordinate.of(5, 2)));
+        assertNotNull(leftLeft.getPiece(Coordinate.of(3, 3)));
+        assertNotEquals(left, right);
+        assertNotEquals(left.getZobristKey(), leftLeft.getZobristKey());
+    }
+
+    /**
+     * Tests that pieces handed out are detached copies.
+     */
+    @Test
+    void testGetPieceDetached() {
+        ImmutableChessBoard board = ImmutableChessBoard.initial();
+        AChessPiece rook = board.getPiece(Coordinate.of(0, 0));
+        assertEquals(Color.BLACK, rook.getColor());
+        assertEquals(PieceType.ROOK, rook.getType());
+        rook.move(Coordinate.of(4, 4));
+        assertNotNull(board.getPiece(Coordinate.of(0, 0)));
+        assertNull(board.getPiece(Coordinate.of(4, 4)));
+        assertNull(board.getPiece(Coordinate.of(8, 0)));
+    }
+
+    /**
+     * Tests that invalid moves return the same board.
+     */
+    @Test
+    void testInvalidMoveReturnsSameBoard() {
+        ImmutableChessBoard board = ImmutableChessBoard.initial();
+        assertSame(board, board.move(Coordinate.of(4, 4), Coordinate.of(3, 4)));
+        assertSame(board, board.move(Coordinate.of(7, 0), Coordinate.of(7, 2)));
+        assertSame(board, board.move(Coordinate.of(7, 1), Coordinate.of(6, 1)));
+        assertSame(board, board.move(Coordinate.of(7, 1), Coordinate.of(5, 1)));
+        assertSame(board, board.move(Coordinate.of(7, 1), Coordinate.of(9, 2)));
+    }
+
+    /**
+     * Cross-checks random moves (valid or not) against a ChessBoard making the same
+     * moves: validity, position, key and rendering must always agree.
+     */
+    @Test
+    void testMatchesChessBoard() {
+        Random random = new Random(20);
+        ChessBoard expected = new ChessBoard();
+        ImmutableChessBoard board = ImmutableChessBoard.initial();
+        for (int i = 0; i < RANDOM_MOVES; i++) {
+            int from = random.nextInt(64);
+            int to = random.nextInt(64);
+            boolean valid = expected.isValidMove(from, to);
+            assertEquals(valid, board.isValidMove(from, to));
+            ImmutableChessBoard next = board.move(from, to);
+            assertEquals(valid, expected.move(from, to));
+            assertEquals(valid, next != board);
+            board = next;
+            assertEquals(expected.getZobristKey(), board.getZobristKey());
+        }
+        assertEquals(expected.toString(), board.toString());
+        assertEquals(expected, board.toChessBoard());
+        assertEquals(board, ImmutableChessBoard.of(expected));
+    }
+}
@@ -0,0 +1,124 @@
+package test.rice;
+
+import main.rice.Coordinate;
+import main.rice.SparseChessBoard;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+import main.rice.storage.SparseBoardStorage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the SparseChessBoard class.
+ */
+public class SparseChessBoardTest {
+
+    /**
+     * The dimension of the boards under test.
+     */
+    private static final int DIM = 1000;
+
+    /**
+     * Tests moves and captures at the far corners of a large board.
+     */
+    @Test
+    void testMoveOnLargeBoard() {
+        SparseChessBoard board = new SparseChessBoard(DIM);
+        AChessPiece rook = PieceType.ROOK.create(Color.WHITE, Coordinate.of(DIM - 1, 0));
+        board.addPiece(rook);
+        board.addPiece(PieceType.BISHOP.create(Color.BLACK, Coordinate.of(0, 0)));
+        board.addPiece(PieceType.KNIGHT.create(Color.WHITE, Coordinate.of(500, 0)));
+        assertThrows(IllegalArgumentException.class, () -> board.addPiece(
+            PieceType.ROOK.create(Color.BLACK, Coordinate.of(0, 0))));
+        assertThrows(IllegalArgumentException.class, () -> board.addPiece(
+            PieceType.ROOK.create(Color.BLACK, Coordinate.of(DIM, 0))));
+
+        // The Knight blocks the file, until it jumps away
+        assertFalse(board.move(Coordinate.of(DIM - 1, 0), Coordinate.of(0, 0)));
+        assertTrue(board.move(Coordinate.of(500, 0), Coordinate.of(502, 1)));
+        assertTrue(board.move(Coordinate.of(DIM - 1, 0), Coordinate.of(0, 0)));
+        assertSame(rook, board.getPiece(Coordinate.of(0, 0)));
+        assertEquals(Coordinate.of(0, 0), rook.getPosition());
+        assertEquals(2, board.getPieceCount());
+
+        // The Rook cannot leave the board or capture its own pieces
+        assertFalse(board.move(Coordinate.of(0, 0), Coordinate.of(0, DIM)));
+        assertFalse(board.move(Coordinate.of(502, 1), Coordinate.of(0, 0)));
+        assertSame(rook, board.removePiece(Coordinate.of(0, 0)));
+        assertNull(board.getPiece(Coordinate.of(0, 0)));
+    }
+
+    /**
+     * Tests that square masks are read as 8x8 squares, and refused on other sizes rather
+     * than misread.
+     */
+    @Test
+    void testOccupancyMaskNeeds8x8() {
+        SparseBoardStorage small = new SparseBoardStorage(8);
+        small.put(2, 5, PieceType.ROOK.create(Color.WHITE, Coordinate.of(2, 5)));
+        assertTrue(small.isAnyOccupied(1L << 21));
+        assertFalse(small.isAnyOccupied(~(1L << 21)));
+
+        SparseBoardStorage large = new SparseBoardStorage(DIM);
+        large.put(2, 5, PieceType.ROOK.create(Color.WHITE, Coordinate.of(2, 5)));
+        assertThrows(IllegalStateException.class, () -> large.isAnyOccupied(1L << 21));
+    }
+
+    /**
+     * Tests isValidMove() on a randomly populated large board against a brute-force walk
+     * along each path.
+     */
+    @Test
+    void testIsValidMoveMatchesBruteForce() {
+        Random random = new Random(15);
+        SparseChessBoard board = new SparseChessBoard(DIM);
+        int span = 40;
+        while (board.getPieceCount() < 300) {
+            Coordinate pos = Coordinate.of(random.nextInt(span), random.nextInt(span));
+            if (board.getPiece(pos) == null) {
+                PieceType type = PieceType.values()[random.nextInt(PieceType.COUNT)];
+                board.addPiece(type.create(Color.values()[random.nextInt(2)], pos));
+            }
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            Coordinate from = Coordinate.of(random.nextInt(span), random.nextInt(span));
+            Coordinate to = Coordinate.of(random.nextInt(span), random.nextInt(span));
+            assertEquals(isValidMoveBruteForce(board, from, to),
+                board.isValidMove(from, to));
+        }
+    }
+
+    /**
+     * @param board the board to check
+     * @param from  the start of the move
+     * @param to    the end of the move
+     * @return true if the move is valid, checking every square along the path
+     */
+    private static boolean isValidMoveBruteForce(SparseChessBoard board, Coordinate from,
+        Coordinate to) {
+        AChessPiece piece = board.getPiece(from);
+        if (piece == null || !piece.matchesMove(to)) {
+            return false;
+        }
+        if (piece.getType() != PieceType.KNIGHT) {
+            int rowStep = Integer.signum(to.getRow() - from.getRow());
+            int colStep = Integer.signum(to.getCol() - from.getCol());
+            int row = from.getRow() + rowStep;
+            int col = from.getCol() + colStep;
+            while (row != to.getRow() || col != to.getCol()) {
+                if (board.getPiece(Coordinate.of(row, col)) != null) {
+                    return false;
+                }
+                row += rowStep;
+                col += colStep;
+            }
+        }
+        AChessPiece target = board.getPiece(to);
+        return target == null || target.getColor() != piece.getColor();
+    }
+}
@@ -0,0 +1,178 @@
+package test.rice;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.MoveBuffer;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.Knight;
+import main.rice.pieces.PieceType;
+import main.rice.pieces.Rook;
+import main.rice.storage.BitboardStorage;
+import main.rice.storage.StorageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the core move rules of ChessBoardTest against a board backed by every storage
+ * engine, so that a regression in any engine fails the default test run (ChessBoardTest
+ * itself only covers the engine named by the main.rice.storage property).
+ */
+public class StorageEngineTest {
+
+    /**
+     * Tests that moves off the board, from empty squares, onto the start square and
+     * onto friendly pieces are rejected without changing anything.
+     */
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void testRejectedMoves(StorageType type) {
+        // Initialize the board
+        ChessBoard board = new ChessBoard(type);
+        String before = board.toString();
+        AChessPiece blackRook = board.getPiece(new Coordinate(0, 0));
+
+        // Check each kind of invalid move
+        assertFalse(board.move(new Coordinate(-1, 0), new Coordinate(0, 0)));
+        assertFalse(board.move(new Coordinate(0, 0), new Coordinate(-1, 0)));
+        assertFalse(board.move(new Coordinate(3, 3), new Coordinate(4, 3)));
+        assertFalse(board.move(new Coordinate(0, 0), new Coordinate(0, 0)));
+        assertFalse(board.move(new Coordinate(0, 0), new Coordinate(0, 1)));
+
+        // Check that the state is unchanged
+        assertEquals(before, board.toString());
+        assertSame(blackRook, board.getPiece(new Coordinate(0, 0)));
+        assertEquals(new Coordinate(0, 0), blackRook.getPosition());
+    }
+
+    /**
+     * Tests valid and invalid patterns for each type of piece.
+     */
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void testPiecePatterns(StorageType type) {
+        // Initialize the board
+        ChessBoard board = new ChessBoard(type);
+        AChessPiece blackBishop = board.getPiece(new Coordinate(0, 2));
+        AChessPiece blackKnight = board.getPiece(new Coordinate(0, 1));
+        AChessPiece blackRook = board.getPiece(new Coordinate(0, 0));
+
+        // Bishops move diagonally only
+        assertFalse(board.move(new Coordinate(0, 2), new Coordinate(1, 2)));
+        assertTrue(board.move(new Coordinate(0, 2), new Coordinate(2, 0)));
+        assertNull(board.getPiece(new Coordinate(0, 2)));
+        assertSame(blackBishop, board.getPiece(new Coordinate(2, 0)));
+        assertEquals(new Coordinate(2, 0), blackBishop.getPosition());
+
+        // Knights move in an L, both ways round
+        assertFalse(board.move(new Coordinate(0, 1), new Coordinate(2, 1)));
+        assertTrue(board.move(new Coordinate(0, 1), new Coordinate(1, 3)));
+        assertTrue(board.move(new Coordinate(1, 3), new Coordinate(3, 4)));
+        assertSame(blackKnight, board.getPiece(new Coordinate(3, 4)));
+
+        // Rooks move along one axis only
+        assertFalse(board.move(new Coordinate(0, 0), new Coordinate(1, 1)));
+        assertTrue(board.move(new Coordinate(0, 0), new Coordinate(0, 2)));
+        assertTrue(board.move(new Coordinate(0, 2), new Coordinate(4, 2)));
+        assertSame(blackRook, board.getPiece(new Coordinate(4, 2)));
+        assertEquals(new Coordinate(4, 2), blackRook.getPosition());
+    }
+
+    /**
+     * Tests that sliding pieces cannot pass through other pieces, but can capture the
+     * first opposing piece in their way.
+     */
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void testCollisionsAndCaptures(StorageType type) {
+        // Initialize the board
+        ChessBoard board = new ChessBoard(type);
+        AChessPiece blackRook = board.getPiece(new Coordinate(0, 0));
+        AChessPiece whiteBishop = board.getPiece(new Coordinate(7, 2));
+
+        // Set up two pieces belonging to the opponent in a row
+        assertTrue(board.move(new Coordinate(7, 0), new Coordinate(3, 0)));
+        assertTrue(board.move(new Coordinate(7, 2), new Coordinate(5, 0)));
+
+        // The Rook cannot jump the first piece, but can capture it
+        assertFalse(board.move(new Coordinate(0, 0), new Coordinate(5, 0)));
+        assertSame(whiteBishop, board.getPiece(new Coordinate(5, 0)));
+        assertTrue(board.move(new Coordinate(0, 0), new Coordinate(3, 0)));
+        assertSame(blackRook, board.getPiece(new Coordinate(3, 0)));
+        assertEquals(2 * (5 + 3 + 3) - 5, board.getMaterial(Color.WHITE));
+    }
+
+    /**
+     * Tests that a pseudo-random game, with every move taken back again, gives the same
+     * moves and positions as on the array engine.
+     */
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void testMatchesArrayEngine(StorageType type) {
+        ChessBoard board = new ChessBoard(type);
+        ChessBoard reference = new ChessBoard(StorageType.ARRAY);
+        MoveBuffer moves = new MoveBuffer();
+        MoveBuffer expected = new MoveBuffer();
+        Random random = new Random(1);
+        Color toMove = Color.WHITE;
+        for (int i = 0; i < 200; i++) {
+            int count = board.generateMoves(toMove, moves);
+            assertEquals(reference.generateMoves(toMove, expected), count);
+            for (int j = 0; j < count; j++) {
+                assertEquals(expected.get(j), moves.get(j));
+            }
+            if (count == 0) {
+                break;
+            }
+            int move = moves.get(random.nextInt(count));
+            board.makeMove(move);
+            reference.makeMove(move);
+            assertEquals(reference, board);
+            assertEquals(reference.getZobristKey(), board.getZobristKey());
+            toMove = toMove.opposite();
+        }
+        while (board.getUndoDepth() > 0) {
+            board.unmakeMove();
+            reference.unmakeMove();
+            assertEquals(reference.toString(), board.toString());
+        }
+        assertEquals(new ChessBoard(StorageType.ARRAY), board);
+    }
+
+    /**
+     * Tests that the bitboard engine's occupancy, color and type masks follow puts,
+     * replacements and removals.
+     */
+    @Test
+    void testBitboardMasks() {
+        BitboardStorage storage = new BitboardStorage();
+        storage.put(0, 0, new Rook(Color.BLACK, Coordinate.of(0, 0)));
+        storage.put(7, 6, new Knight(Color.WHITE, Coordinate.of(7, 6)));
+        assertEquals(1L | 1L << 62, storage.getOccupied());
+        assertEquals(1L, storage.getColorMask(Color.BLACK));
+        assertEquals(1L << 62, storage.getColorMask(Color.WHITE));
+        assertEquals(1L, storage.getTypeMask(PieceType.ROOK));
+        assertEquals(1L << 62, storage.getTypeMask(PieceType.KNIGHT));
+        assertEquals(0L, storage.getTypeMask(PieceType.BISHOP));
+
+        // Replacing a piece clears the old piece's color and type bits
+        storage.put(0, 0, new Knight(Color.WHITE, Coordinate.of(0, 0)));
+        assertEquals(0L, storage.getColorMask(Color.BLACK));
+        assertEquals(0L, storage.getTypeMask(PieceType.ROOK));
+        assertEquals(1L | 1L << 62, storage.getColorMask(Color.WHITE));
+        assertEquals(1L | 1L << 62, storage.getTypeMask(PieceType.KNIGHT));
+
+        // Removing pieces clears every mask
+        storage.remove(0, 0);
+        storage.remove(7, 6);
+        storage.remove(3, 3);
+        assertEquals(0L, storage.getOccupied());
+        assertEquals(0L, storage.getColorMask(Color.WHITE));
+        assertEquals(0L, storage.getTypeMask(PieceType.KNIGHT));
+    }
+}
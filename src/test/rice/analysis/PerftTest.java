@@ -0,0 +1,102 @@
+package test.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.analysis.Perft;
+import main.rice.analysis.TranspositionTable;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the Perft class.
+ */
+public class PerftTest {
+
+    /**
+     * Tests that perft agrees with a brute-force count that tries every (start, end) pair
+     * with ChessBoard.move on a fresh copy of the board.
+     */
+    @Test
+    void testCountMatchesBruteForce() {
+        ChessBoard board = new ChessBoard();
+        assertEquals(bruteForce(board, Color.WHITE, 1),
+            Perft.count(board, Color.WHITE, 1));
+        assertEquals(bruteForce(board, Color.WHITE, 2),
+            Perft.count(board, Color.WHITE, 2));
+    }
+
+    /**
+     * Tests that the fork-join mode counts the same positions as the single-threaded
+     * mode, and that neither changes the board.
+     */
+    @Test
+    void testCountParallel() {
+        ChessBoard board = new ChessBoard();
+        String before = board.toString();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long expected = Perft.count(board, Color.BLACK, 3);
+            assertEquals(expected, Perft.countParallel(board, Color.BLACK, 3, pool));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(before, board.toString());
+    }
+
+    /**
+     * Tests that sharing a transposition table (even a tiny one that has to replace
+     * entries constantly) does not change the counts, in either mode.
+     */
+    @Test
+    void testCountWithTable() {
+        ChessBoard board = new ChessBoard();
+        long expected = Perft.count(board, Color.WHITE, 4);
+        assertEquals(expected, Perft.count(board, Color.WHITE, 4,
+            new TranspositionTable(1 << 20)));
+        assertEquals(expected, Perft.count(board, Color.WHITE, 4,
+            new TranspositionTable(1 << 10)));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, Perft.countParallel(board, Color.WHITE, 4, pool,
+                new TranspositionTable(1 << 16)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts positions the slow way, as a reference for perft.
+     *
+     * @param board  the position to start from
+     * @param toMove the color to make the first move
+     * @param depth  the number of plies to look ahead
+     * @return the number of positions reached
+     */
+    private static long bruteForce(ChessBoard board, Color toMove, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        long nodes = 0;
+        for (int from = 0; from < 64; from++) {
+            AChessPiece piece = board.getPiece(from);
+            if (piece == null || piece.getColor() != toMove) {
+                continue;
+            }
+            for (int to = 0; to < 64; to++) {
+                ChessBoard next = board.copy();
+                if (next.move(Coordinate.ofSquare(from), Coordinate.ofSquare(to))) {
+                    nodes += bruteForce(next, toMove.opposite(), depth - 1);
+                }
+            }
+        }
+        return nodes;
+    }
+}
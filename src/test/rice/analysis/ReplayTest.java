@@ -0,0 +1,162 @@
+package test.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.MoveBuffer;
+import main.rice.analysis.Replay;
+import main.rice.io.GameLogReader;
+import main.rice.io.GameLogWriter;
+import main.rice.pieces.Color;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the Replay class and the game log format.
+ */
+public class ReplayTest {
+
+    /**
+     * The number of games in the test log.
+     */
+    private static final int GAMES = 2000;
+
+    /**
+     * Every game whose id is a multiple of this gets an illegal move.
+     */
+    private static final int ILLEGAL_EVERY = 97;
+
+    /**
+     * Tests that a replay counts every game and move, and reports exactly the first
+     * illegal move of each corrupted game, on several threads.
+     */
+    @Test
+    void testReplayFindsIllegalMoves() throws IOException {
+        Path log = Files.createTempFile("replay", ".rgl");
+        try {
+            long moves = writeLog(log);
+            Replay.Result result = Replay.run(log, 3);
+
+            assertEquals(GAMES, result.getGames());
+            assertEquals(moves, result.getMoves());
+            assertEquals((GAMES - 1) / ILLEGAL_EVERY + 1,
+                result.getIllegalMoves().size());
+            for (int i = 0; i < result.getIllegalMoves().size(); i++) {
+                Replay.IllegalMove illegal = result.getIllegalMoves().get(i);
+                assertEquals((long) i * ILLEGAL_EVERY, illegal.getGameId());
+                assertEquals(10, illegal.getMoveIndex());
+                assertEquals(illegal.getFrom(), illegal.getTo());
+            }
+            assertTrue(result.getMovesPerSecond() > 0);
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    /**
+     * Tests that a replay whose only worker fails (with more batches left than the queue
+     * holds) returns with the failure, rather than the reader waiting forever for room in
+     * the queue.
+     */
+    @Test
+    void testWorkerFailureStopsReplay() throws IOException {
+        Path log = Files.createTempFile("replay", ".rgl");
+        try {
+            writeLog(log);
+            AtomicInteger boards = new AtomicInteger();
+            Supplier<ChessBoard> failing = () -> {
+                if (boards.incrementAndGet() > 100) {
+                    throw new IllegalArgumentException("no more boards");
+                }
+                return new ChessBoard();
+            };
+
+            IllegalStateException e = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(IllegalStateException.class,
+                    () -> Replay.run(log, 1, failing)));
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+            assertEquals("no more boards", e.getCause().getMessage());
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    /**
+     * Tests that a reader with a small window remaps as it goes and still sees every
+     * game, and that a truncated log is reported.
+     */
+    @Test
+    void testReaderWindowsAndTruncation() throws IOException {
+        Path log = Files.createTempFile("replay", ".rgl");
+        try {
+            writeLog(log);
+            int games = 0;
+            try (GameLogReader reader = new GameLogReader(log, 4096)) {
+                ByteBuffer batch;
+                while ((batch = reader.nextBatch(100)) != null) {
+                    while (batch.hasRemaining()) {
+                        assertEquals(games++, GameLogReader.gameId(batch));
+                        GameLogReader.skipGame(batch);
+                    }
+                }
+            }
+            assertEquals(GAMES, games);
+
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+            assertThrows(IOException.class, () -> Replay.run(log, 2));
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    /**
+     * Writes GAMES random games of 20 to 60 legal moves. In every ILLEGAL_EVERY-th game,
+     * move 10 is replaced by a null move (from and to the same square).
+     *
+     * @param log the file to write
+     * @return the number of moves a replay should count: every move of each legal game,
+     * and the first 11 moves of each illegal one
+     * @throws IOException if the file cannot be written
+     */
+    private static long writeLog(Path log) throws IOException {
+        Random random = new Random(19);
+        long expectedMoves = 0;
+        try (GameLogWriter writer = new GameLogWriter(log)) {
+            MoveBuffer game = new MoveBuffer();
+            MoveBuffer moves = new MoveBuffer();
+            for (int id = 0; id < GAMES; id++) {
+                ChessBoard board = new ChessBoard();
+                game.clear();
+                Color toMove = Color.WHITE;
+                int length = 20 + random.nextInt(41);
+                while (game.size() < length && board.generateMoves(toMove, moves) > 0) {
+                    int move = moves.get(random.nextInt(moves.size()));
+                    board.makeMove(move);
+                    game.add(move);
+                    toMove = toMove.opposite();
+                }
+                if (id % ILLEGAL_EVERY == 0) {
+                    int from = MoveBuffer.from(game.get(10));
+                    game.set(10, MoveBuffer.encode(from, from, false));
+                    expectedMoves += 11;
+                } else {
+                    expectedMoves += game.size();
+                }
+                writer.writeGame(id, game);
+            }
+        }
+        return expectedMoves;
+    }
+}
@@ -0,0 +1,288 @@
+package test.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.MoveBuffer;
+import main.rice.analysis.Search;
+import main.rice.analysis.TranspositionTable;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceCode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the Search class.
+ */
+public class SearchTest {
+
+    /**
+     * The number of random positions compared against plain negamax.
+     */
+    private static final int POSITIONS = 150;
+
+    /**
+     * The number of threads of the multi-threaded searches.
+     */
+    private static final int THREADS = 3;
+
+    /**
+     * A time budget no test search comes near, so that every search runs to its depth.
+     */
+    private static final long NO_LIMIT = 60_000;
+
+    /**
+     * Tests that a one-ply search grabs a free Rook: from the initial position, each side
+     * can capture an opposing Rook down an open file.
+     */
+    @Test
+    void testSearchFindsCapture() {
+        ChessBoard board = new ChessBoard();
+        Search search = new Search(new TranspositionTable(1 << 20), 1);
+        Search.Result result = search.findBestMove(board, Color.WHITE, 1, 10_000);
+
+        assertEquals(1, result.getDepth());
+        assertEquals(5, result.getScore());
+        assertTrue(MoveBuffer.isCapture(result.getBestMove()));
+        assertTrue(board.isValidMove(MoveBuffer.from(result.getBestMove()),
+            MoveBuffer.to(result.getBestMove())));
+    }
+
+    /**
+     * Tests that a multi-threaded search under a short time budget returns a valid move,
+     * reports its statistics, and leaves the board unchanged.
+     */
+    @Test
+    void testSearchLazySmpTimeBudget() {
+        ChessBoard board = new ChessBoard();
+        String before = board.toString();
+        Search search = new Search(new TranspositionTable(1 << 20), 3);
+        Search.Result result = search.findBestMove(board, Color.BLACK, Search.MAX_DEPTH,
+            200);
+
+        assertTrue(result.getDepth() >= 1);
+        assertTrue(result.getNodes() > 0);
+        assertTrue(result.getNanos() < 5_000_000_000L);
+        assertTrue(board.isValidMove(MoveBuffer.from(result.getBestMove()),
+            MoveBuffer.to(result.getBestMove())));
+        assertEquals(before, board.toString());
+        assertEquals(0, board.getUndoDepth());
+    }
+
+    /**
+     * Tests that alpha-beta returns exactly the plain negamax score at depths 2 and 3 on
+     * random positions: with a table too small to hold more than a bucket (so it rarely
+     * helps) and with a large one, with 1 and THREADS threads, and again on a table
+     * warmed up by searching below the root (so that stored bounds cut off the search).
+     */
+    @Test
+    void testScoresMatchNegamax() {
+        Random random = new Random(9);
+        for (int i = 0; i < POSITIONS; i++) {
+            ChessBoard board = randomBoard(random, 4 + random.nextInt(5));
+            Color toMove = random.nextBoolean() ? Color.WHITE : Color.BLACK;
+            int depth = 2 + (i & 1);
+            int expected = negamaxRoot(board, toMove, depth);
+            String message = toMove + " to move, depth " + depth + "\n" + board;
+
+            for (long tableBytes : new long[] {32, 1 << 20}) {
+                for (int threads : new int[] {1, THREADS}) {
+                    Search search = new Search(new TranspositionTable(tableBytes),
+                        threads);
+                    Search.Result result = search.findBestMove(board, toMove, depth,
+                        NO_LIMIT);
+                    assertEquals(expected, result.getScore(), message);
+                    checkBestMove(board, toMove, depth, result);
+
+                    warmUp(search, board, toMove, depth);
+                    result = search.findBestMove(board, toMove, depth, NO_LIMIT);
+                    assertEquals(expected, result.getScore(), "warm table, " + message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a forced win is scored by its distance in plies, and that the distance
+     * stays right when the win is read from table entries stored at a different ply:
+     * the position after the winning move is searched first, so the root search reuses
+     * its entries one ply deeper.
+     */
+    @Test
+    void testForcedWinDistance() {
+        Random random = new Random(5);
+        ChessBoard board;
+        int winningMove;
+        do {
+            board = randomBoard(random, 3);
+            winningMove = findWinIn3(board);
+        } while (winningMove == Search.NO_MOVE);
+
+        for (int threads : new int[] {1, THREADS}) {
+            TranspositionTable table = new TranspositionTable(1 << 20);
+            Search search = new Search(table, threads);
+            board.makeMove(winningMove);
+            Search.Result reply = search.findBestMove(board, Color.BLACK, 2, NO_LIMIT);
+            board.unmakeMove();
+            assertEquals(-Search.WIN + 2, reply.getScore(), board.toString());
+
+            Search.Result result = search.findBestMove(board, Color.WHITE,
+                Search.MAX_DEPTH, NO_LIMIT);
+            assertEquals(Search.WIN - 3, result.getScore(), board.toString());
+            checkBestMove(board, Color.WHITE, 3, result);
+        }
+    }
+
+    /**
+     * Fills a search's table from below the root: searches the position after each root
+     * move, so that the next root search finds those entries one ply deeper and probes
+     * them with other search windows than they were stored with.
+     *
+     * @param search the search whose table to fill
+     * @param board  the root position; left unchanged
+     * @param toMove the color to move at the root
+     * @param depth  the depth the root will be searched to
+     */
+    private static void warmUp(Search search, ChessBoard board, Color toMove, int depth) {
+        MoveBuffer moves = new MoveBuffer();
+        int count = board.generateMoves(toMove, moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves.get(i));
+            search.findBestMove(board, toMove.opposite(), depth - 1, NO_LIMIT);
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Checks that a search result's best move is valid and achieves its score.
+     *
+     * @param board  the searched position; left unchanged
+     * @param toMove the color that was searched for
+     * @param depth  the depth that was searched
+     * @param result the result of the search
+     */
+    private static void checkBestMove(ChessBoard board, Color toMove, int depth,
+        Search.Result result) {
+        int move = result.getBestMove();
+        if (move == Search.NO_MOVE) {
+            assertEquals(0, board.generateMoves(toMove, new MoveBuffer()));
+            return;
+        }
+        assertTrue(board.isValidMove(MoveBuffer.from(move), MoveBuffer.to(move)));
+        board.makeMove(move);
+        int score = -negamax(board, toMove.opposite(), depth - 1, 1);
+        board.unmakeMove();
+        assertEquals(result.getScore(), score, board.toString());
+    }
+
+    /**
+     * @param board a position with White to move
+     * @return a move with which White captures Black's last piece on its second move
+     * (and no sooner) whatever Black does, or NO_MOVE if there is none
+     */
+    private static int findWinIn3(ChessBoard board) {
+        if (negamaxRoot(board, Color.WHITE, 3) != Search.WIN - 3) {
+            return Search.NO_MOVE;
+        }
+        MoveBuffer moves = new MoveBuffer();
+        int count = board.generateMoves(Color.WHITE, moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves.get(i));
+            int score = -negamax(board, Color.BLACK, 2, 1);
+            board.unmakeMove();
+            if (score == Search.WIN - 3) {
+                return moves.get(i);
+            }
+        }
+        return Search.NO_MOVE;
+    }
+
+    /**
+     * Plain negamax at the root, scoring like Search.findBestMove(): without alpha-beta,
+     * move ordering or a transposition table.
+     *
+     * @param board  the position
+     * @param toMove the color to move
+     * @param depth  the number of plies to search
+     * @return the score of the position for toMove
+     */
+    private static int negamaxRoot(ChessBoard board, Color toMove, int depth) {
+        MoveBuffer moves = new MoveBuffer();
+        int count = board.generateMoves(toMove, moves);
+        if (count == 0) {
+            return board.getMaterial(toMove) == 0 ? -Search.WIN : 0;
+        }
+        int best = -Search.WIN - 1;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves.get(i));
+            best = Math.max(best, -negamax(board, toMove.opposite(), depth - 1, 1));
+            board.unmakeMove();
+        }
+        return best;
+    }
+
+    /**
+     * Plain negamax below the root: material at the horizon, -WIN + ply for a side with
+     * no pieces left, and 0 for a side with pieces but no valid move.
+     *
+     * @param board  the position
+     * @param toMove the color to move
+     * @param depth  the number of plies left to search
+     * @param ply    the distance from the root
+     * @return the score of the position for toMove
+     */
+    private static int negamax(ChessBoard board, Color toMove, int depth, int ply) {
+        int ours = board.getMaterial(toMove);
+        if (ours == 0) {
+            return -Search.WIN + ply;
+        }
+        if (depth == 0) {
+            return ours - board.getMaterial(toMove.opposite());
+        }
+        MoveBuffer moves = new MoveBuffer();
+        int count = board.generateMoves(toMove, moves);
+        if (count == 0) {
+            return 0;
+        }
+        int best = -Search.WIN - 1;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves.get(i));
+            best = Math.max(best, -negamax(board, toMove.opposite(), depth - 1, ply + 1));
+            board.unmakeMove();
+        }
+        return best;
+    }
+
+    /**
+     * @param random the source of randomness
+     * @param pieces the number of pieces, at least one of each color
+     * @return a board with the given number of random pieces on random squares
+     */
+    private static ChessBoard randomBoard(Random random, int pieces) {
+        int[] codes = new int[64];
+        for (int i = 0; i < pieces; i++) {
+            int square;
+            do {
+                square = random.nextInt(64);
+            } while (codes[square] != PieceCode.EMPTY);
+            int code = 1 + random.nextInt(PieceCode.COUNT - 1);
+            if (i < 2) {
+                // One piece of each color
+                code = PieceCode.of(i == 0 ? Color.WHITE : Color.BLACK,
+                    PieceCode.typeOf(code));
+            }
+            codes[square] = code;
+        }
+
+        ByteBuffer snapshot = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        for (int square = 0; square < 64; square += 2) {
+            snapshot.put((byte) (codes[square] | (codes[square + 1] << 4)));
+        }
+        snapshot.flip();
+        ChessBoard board = ChessBoard.empty();
+        board.readFrom(snapshot);
+        return board;
+    }
+}
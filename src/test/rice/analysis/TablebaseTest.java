@@ -0,0 +1,235 @@
+package test.rice.analysis;
+
+import main.rice.ChessBoard;
+import main.rice.MoveBuffer;
+import main.rice.analysis.Search;
+import main.rice.analysis.Tablebase;
+import main.rice.analysis.TablebaseGenerator;
+import main.rice.analysis.TranspositionTable;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceCode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the Tablebase and TablebaseGenerator classes.
+ */
+public class TablebaseTest {
+
+    /**
+     * The depth of the exhaustive search that probes are checked against, in plies.
+     */
+    private static final int CHECK_DEPTH = 3;
+
+    /**
+     * The number of random positions checked.
+     */
+    private static final int POSITIONS = 300;
+
+    /**
+     * The tablebase file, built once for all tests.
+     */
+    private static Path file;
+
+    /**
+     * The tablebase, covering up to three pieces.
+     */
+    private static Tablebase tablebase;
+
+    /**
+     * Builds the tablebase.
+     */
+    @BeforeAll
+    static void build() throws IOException {
+        file = Files.createTempFile("tablebase", ".rtb");
+        TablebaseGenerator.generate(3, file);
+        tablebase = new Tablebase(file);
+    }
+
+    /**
+     * Deletes the tablebase file.
+     */
+    @AfterAll
+    static void delete() throws IOException {
+        tablebase = null;
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that probes agree with an exhaustive search wherever the search can see the
+     * end of the game: every result within CHECK_DEPTH plies must be found with exactly
+     * the same distance, and no other position may be decided within that horizon.
+     */
+    @Test
+    void testProbeMatchesExhaustiveSearch() {
+        Random random = new Random(22);
+        int decided = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            ChessBoard board = randomBoard(random, 2 + random.nextInt(2));
+            Color toMove = random.nextBoolean() ? Color.WHITE : Color.BLACK;
+            int result = tablebase.probe(board, toMove);
+            assertNotEquals(Tablebase.MISSING, result);
+
+            int expected = result == 0 || Math.abs(result) > CHECK_DEPTH ? 0
+                : result > 0 ? Search.WIN - result : -Search.WIN - result;
+            assertEquals(expected, solve(board, toMove, CHECK_DEPTH), board.toString());
+            if (expected != 0) {
+                decided++;
+            }
+        }
+        assertTrue(decided > 0);
+    }
+
+    /**
+     * Tests that a probe does not depend on which color holds which material: swapping
+     * the colors of every piece and of the side to move gives the same result.
+     */
+    @Test
+    void testColorSymmetry() {
+        Random random = new Random(7);
+        for (int i = 0; i < POSITIONS; i++) {
+            int[] codes = new int[64];
+            ChessBoard board = randomBoard(random, 3, codes);
+            int[] swapped = new int[64];
+            for (int square = 0; square < 64; square++) {
+                swapped[square] = codes[square] == PieceCode.EMPTY ? PieceCode.EMPTY
+                    : PieceCode.of(PieceCode.colorOf(codes[square]).opposite(),
+                    PieceCode.typeOf(codes[square]));
+            }
+            assertEquals(tablebase.probe(board, Color.WHITE),
+                tablebase.probe(toBoard(swapped), Color.BLACK));
+        }
+    }
+
+    /**
+     * Tests that a search using the tablebase scores a long forced win exactly, and
+     * plays a move that keeps it.
+     */
+    @Test
+    void testSearchUsesTablebase() {
+        Random random = new Random(3);
+        ChessBoard board;
+        int result;
+        do {
+            board = randomBoard(random, 3);
+            result = tablebase.probe(board, Color.WHITE);
+        } while (result < 7);
+
+        Search search = new Search(new TranspositionTable(1 << 10), 1);
+        search.setTablebase(tablebase);
+        Search.Result found = search.findBestMove(board, Color.WHITE, 1, 10_000);
+        assertEquals(Search.WIN - result, found.getScore());
+
+        board.makeMove(found.getBestMove());
+        assertEquals(-(result - 1), tablebase.probe(board, Color.BLACK));
+    }
+
+    /**
+     * Tests that positions outside the tablebase are reported as missing, and that other
+     * files are rejected.
+     */
+    @Test
+    void testMissing() throws IOException {
+        assertEquals(Tablebase.MISSING, tablebase.probe(new ChessBoard(), Color.WHITE));
+        assertEquals(Tablebase.MISSING, tablebase.probe(ChessBoard.empty(), Color.WHITE));
+        assertEquals(24, tablebase.getTableCount());
+        assertEquals(3, tablebase.getMaxPieces());
+
+        Path other = Files.createTempFile("tablebase", ".rtb");
+        try {
+            Files.write(other, new byte[32]);
+            assertThrows(IOException.class, () -> new Tablebase(other));
+        } finally {
+            Files.delete(other);
+        }
+    }
+
+    /**
+     * Exhaustive search to a fixed depth, scoring like Search: WIN - n for a win in n
+     * plies, -WIN + n for a loss in n plies, and 0 if the game does not end within the
+     * depth on best play (or ends in a draw).
+     *
+     * @param board  the position
+     * @param toMove the color to move
+     * @param depth  the number of plies to search
+     * @return the score of the position for toMove
+     */
+    private static int solve(ChessBoard board, Color toMove, int depth) {
+        if (board.getMaterial(toMove) == 0) {
+            return -Search.WIN;
+        }
+        if (depth == 0) {
+            return 0;
+        }
+        MoveBuffer moves = new MoveBuffer();
+        int count = board.generateMoves(toMove, moves);
+        if (count == 0) {
+            return 0;
+        }
+        int best = -Search.WIN - 1;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves.get(i));
+            int score = -solve(board, toMove.opposite(), depth - 1);
+            board.unmakeMove();
+            score += score > 0 ? -1 : score < 0 ? 1 : 0;
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * @param random the source of randomness
+     * @param pieces the number of pieces, at least one of each color
+     * @return a board with the given number of random pieces on random squares
+     */
+    private static ChessBoard randomBoard(Random random, int pieces) {
+        return randomBoard(random, pieces, new int[64]);
+    }
+
+    /**
+     * @param random the source of randomness
+     * @param pieces the number of pieces, at least one of each color
+     * @param codes  receives the PieceCode of every square
+     * @return a board with the given number of random pieces on random squares
+     */
+    private static ChessBoard randomBoard(Random random, int pieces, int[] codes) {
+        for (int i = 0; i < pieces; i++) {
+            int square;
+            do {
+                square = random.nextInt(64);
+            } while (codes[square] != PieceCode.EMPTY);
+            int code = 1 + random.nextInt(PieceCode.COUNT - 1);
+            if (i < 2) {
+                // One piece of each color
+                code = PieceCode.of(i == 0 ? Color.WHITE : Color.BLACK,
+                    PieceCode.typeOf(code));
+            }
+            codes[square] = code;
+        }
+        return toBoard(codes);
+    }
+
+    /**
+     * @param codes the PieceCode of every square
+     * @return a board holding the given pieces
+     */
+    private static ChessBoard toBoard(int[] codes) {
+        ByteBuffer snapshot = ByteBuffer.allocate(ChessBoard.SNAPSHOT_BYTES);
+        for (int square = 0; square < 64; square += 2) {
+            snapshot.put((byte) (codes[square] | (codes[square + 1] << 4)));
+        }
+        snapshot.flip();
+        ChessBoard board = ChessBoard.empty();
+        board.readFrom(snapshot);
+        return board;
+    }
+}
@@ -0,0 +1,195 @@
+package test.rice.events;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.events.MoveEvent;
+import main.rice.events.MoveEventPublisher;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the MoveEventPublisher class.
+ */
+public class MoveEventPublisherTest {
+
+    /**
+     * Subscriber that records every event it receives, requesting either without limit
+     * or just once.
+     */
+    private static class Recorder implements Flow.Subscriber<List<MoveEvent>> {
+
+        /**
+         * The events received, in order.
+         */
+        final List<MoveEvent> events = new ArrayList<>();
+
+        /**
+         * Counted down on onComplete().
+         */
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        /**
+         * The number of batches to request up front.
+         */
+        private final long demand;
+
+        /**
+         * Constructor for a Recorder.
+         *
+         * @param demand the number of batches to request up front
+         */
+        Recorder(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(this.demand);
+        }
+
+        @Override
+        public synchronized void onNext(List<MoveEvent> batch) {
+            this.events.addAll(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed.countDown();
+        }
+
+        /**
+         * @return true if the sequence numbers received are strictly increasing
+         */
+        synchronized boolean isOrdered() {
+            for (int i = 1; i < this.events.size(); i++) {
+                long previous = this.events.get(i - 1).getSequence();
+                if (this.events.get(i).getSequence() <= previous) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Tests that every move made through move() is delivered, in order and with the
+     * right contents, and that closing completes the subscribers.
+     */
+    @Test
+    void testEventsDelivered() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            MoveEventPublisher publisher = new MoveEventPublisher(pool, 1024, 16, 64);
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            publisher.subscribe(recorder);
+
+            ChessBoard board = new ChessBoard();
+            board.setMoveEvents(publisher);
+            assertTrue(board.move(Coordinate.of(7, 0), Coordinate.of(0, 0)));
+            assertFalse(board.move(Coordinate.of(4, 4), Coordinate.of(3, 4)));
+            for (int i = 0; i < 100; i++) {
+                boolean out = i % 2 == 0;
+                assertTrue(board.move(Coordinate.of(out ? 7 : 5, out ? 1 : 2),
+                    Coordinate.of(out ? 5 : 7, out ? 2 : 1)));
+            }
+            publisher.close();
+            assertTrue(recorder.completed.await(10, TimeUnit.SECONDS));
+
+            assertEquals(101, recorder.events.size());
+            assertTrue(recorder.isOrdered());
+            MoveEvent capture = recorder.events.get(0);
+            assertEquals(0, capture.getSequence());
+            assertEquals(Color.WHITE, capture.getColor());
+            assertEquals(PieceType.ROOK, capture.getType());
+            assertEquals(Coordinate.of(7, 0), capture.getFrom());
+            assertEquals(Coordinate.of(0, 0), capture.getTo());
+            assertEquals(PieceType.ROOK, capture.getCaptured());
+            assertNull(recorder.events.get(1).getCaptured());
+            assertEquals(100, recorder.events.get(100).getSequence());
+            assertFalse(publisher.publish(board.getPiece(Coordinate.of(0, 0)),
+                Coordinate.of(0, 0), Coordinate.of(1, 0), null));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a subscriber that stops requesting neither stalls the move path nor the
+     * other subscribers: its batches are dropped instead.
+     */
+    @Test
+    void testSlowSubscriberDoesNotStallMoves() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            MoveEventPublisher publisher = new MoveEventPublisher(pool, 256, 8, 4);
+            Recorder slow = new Recorder(1);
+            Recorder fast = new Recorder(Long.MAX_VALUE);
+            publisher.subscribe(slow);
+            publisher.subscribe(fast);
+
+            ChessBoard board = new ChessBoard();
+            board.setMoveEvents(publisher);
+            for (int i = 0; i < 20_000; i++) {
+                boolean out = i % 2 == 0;
+                assertTrue(board.move(Coordinate.of(out ? 7 : 5, out ? 1 : 2),
+                    Coordinate.of(out ? 5 : 7, out ? 2 : 1)));
+                if (i % 64 == 0) {
+                    Thread.yield();
+                }
+            }
+            publisher.close();
+            assertTrue(fast.completed.await(10, TimeUnit.SECONDS));
+
+            assertTrue(publisher.getDroppedBatches() > 0);
+            assertTrue(slow.events.size() <= 8);
+            assertTrue(fast.events.size() > slow.events.size());
+            assertTrue(fast.isOrdered());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that moves still complete once the executor stops accepting tasks: events
+     * are dropped and counted, and the publisher keeps working without throwing.
+     */
+    @Test
+    void testRejectingExecutorDoesNotBreakMoves() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        MoveEventPublisher publisher = new MoveEventPublisher(pool, 1024, 16, 64);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(recorder);
+        assertEquals(1, publisher.getSubscriberCount());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        ChessBoard board = new ChessBoard();
+        board.setMoveEvents(publisher);
+        assertTrue(board.move(Coordinate.of(7, 1), Coordinate.of(5, 2)));
+        assertTrue(board.move(Coordinate.of(5, 2), Coordinate.of(7, 1)));
+        assertEquals(2, publisher.getDroppedEvents());
+        assertFalse(publisher.publish(board.getPiece(Coordinate.of(7, 1)),
+            Coordinate.of(7, 1), Coordinate.of(5, 2), null));
+        assertEquals(3, publisher.getDroppedEvents());
+
+        publisher.close();
+        assertFalse(publisher.publish(board.getPiece(Coordinate.of(7, 1)),
+            Coordinate.of(7, 1), Coordinate.of(5, 2), null));
+        assertTrue(recorder.events.isEmpty());
+    }
+}
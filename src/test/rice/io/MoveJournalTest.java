@@ -0,0 +1,272 @@
+package test.rice.io;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.io.MoveJournal;
+import main.rice.session.GameSessionManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the MoveJournal class.
+ */
+public class MoveJournalTest {
+
+    /**
+     * The number of games logged concurrently in the group commit test.
+     */
+    private static final int GAMES = 8;
+
+    /**
+     * The number of moves logged per game in the group commit test.
+     */
+    private static final int MOVES = 200;
+
+    /**
+     * Tests that reopening a journal recovers each game's board: started, moved, ended.
+     */
+    @Test
+    void testRecoverAfterReopen() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        try {
+            ChessBoard expected = new ChessBoard();
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                assertTrue(journal.getRecoveredGames().isEmpty());
+                journal.logBoard(1, new ChessBoard());
+                journal.logBoard(2, new ChessBoard());
+                logMove(journal, 1, expected, 7, 1, 5, 2);
+                logMove(journal, 1, expected, 5, 2, 3, 3);
+                journal.logEnd(2);
+            }
+
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                Map<Long, ChessBoard> games = journal.getRecoveredGames();
+                assertEquals(1, games.size());
+                assertEquals(expected, games.get(1L));
+                assertEquals(expected.toString(), games.get(1L).toString());
+            }
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Tests that a record torn by a crash is dropped on open, and that the journal stays
+     * usable afterwards.
+     */
+    @Test
+    void testTornTailDiscarded() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        try {
+            ChessBoard expected = new ChessBoard();
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                journal.logBoard(7, new ChessBoard());
+                logMove(journal, 7, expected, 7, 6, 5, 5);
+            }
+
+            // Simulate a crash halfway through writing a record
+            Path segment = dir.resolve("journal-0.log");
+            try (FileChannel out = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+                out.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0, 0, 0, 0, 9, 0, 0, 0}));
+            }
+            long size = Files.size(segment);
+
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                assertEquals(expected, journal.getRecoveredGames().get(7L));
+                assertEquals(size - 11, Files.size(segment));
+                logMove(journal, 7, expected, 5, 5, 3, 4);
+            }
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                assertEquals(expected, journal.getRecoveredGames().get(7L));
+            }
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Tests that compaction replaces the old segments with a snapshot, and that games
+     * logged before and after it are recovered.
+     */
+    @Test
+    void testCompaction() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            String firstBoard;
+            String secondBoard;
+            long first;
+            long second;
+            try (MoveJournal journal = new MoveJournal(dir);
+                 GameSessionManager manager = new GameSessionManager(pool, journal)) {
+                first = manager.newGame();
+                second = manager.newGame();
+                long ended = manager.newGame();
+                Coordinate knight = Coordinate.of(5, 2);
+                assertTrue(manager.move(first, Coordinate.of(7, 1), knight));
+                assertFalse(manager.move(first, Coordinate.of(7, 0), knight));
+                assertNotNull(manager.removeGame(ended));
+
+                manager.compact();
+                assertFalse(Files.exists(dir.resolve("journal-0.log")));
+                assertTrue(Files.exists(dir.resolve("journal-1.log")));
+                assertTrue(Files.exists(dir.resolve("snapshot.bin")));
+
+                assertTrue(manager.move(first, knight, Coordinate.of(3, 3)));
+                assertTrue(manager.move(second, Coordinate.of(0, 1),
+                    Coordinate.of(2, 2)));
+                firstBoard = manager.getSession(first).read(ChessBoard::toString);
+                secondBoard = manager.getSession(second).read(ChessBoard::toString);
+            }
+
+            try (MoveJournal journal = new MoveJournal(dir);
+                 GameSessionManager manager = new GameSessionManager(pool, journal)) {
+                assertEquals(2, manager.getGameCount());
+                assertEquals(firstBoard,
+                    manager.getSession(first).read(ChessBoard::toString));
+                assertEquals(secondBoard,
+                    manager.getSession(second).read(ChessBoard::toString));
+                assertTrue(manager.newGame() > second);
+            }
+        } finally {
+            pool.shutdown();
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Tests that a journal reopens after compaction has deleted the old segments, and
+     * that it refuses to open if the snapshot is older than the oldest segment left (as
+     * when a crash undoes the snapshot rename but not the deletes).
+     */
+    @Test
+    void testReopenAfterSegmentsDeleted() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        try {
+            ChessBoard expected = new ChessBoard();
+            Path snapshot = dir.resolve("snapshot.bin");
+            Path stale = dir.resolve("stale.bin");
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                journal.logBoard(3, new ChessBoard());
+                journal.compact(writer -> { });
+                logMove(journal, 3, expected, 7, 1, 5, 2);
+                Files.copy(snapshot, stale);
+                long lsn = journal.getRecordCount();
+                journal.compact(writer -> writer.add(3, lsn, expected));
+                logMove(journal, 3, expected, 5, 2, 3, 3);
+            }
+            assertFalse(Files.exists(dir.resolve("journal-1.log")));
+
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                assertEquals(expected, journal.getRecoveredGames().get(3L));
+            }
+
+            Files.move(stale, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            IOException e = assertThrows(IOException.class, () -> new MoveJournal(dir));
+            assertTrue(e.getMessage().contains("journal-1.log"), e.getMessage());
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Tests that concurrent games all log to one journal, every record is synced before
+     * its call returns, and the games are recovered intact.
+     */
+    @Test
+    void testConcurrentGroupCommit() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("journal");
+        try {
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                List<Thread> threads = new ArrayList<>();
+                List<Throwable> failures = new ArrayList<>();
+                for (int g = 0; g < GAMES; g++) {
+                    long id = g;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            journal.logBoard(id, new ChessBoard());
+                            for (int i = 0; i < MOVES; i++) {
+                                int from = i % 2 == 0 ? 57 : 42;
+                                int to = i % 2 == 0 ? 42 : 57;
+                                journal.logMove(id, from, to);
+                            }
+                        } catch (IOException e) {
+                            synchronized (failures) {
+                                failures.add(e);
+                            }
+                        }
+                    });
+                    thread.start();
+                    threads.add(thread);
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                assertTrue(failures.isEmpty(), failures.toString());
+                assertEquals(GAMES * (MOVES + 1L), journal.getRecordCount());
+                assertTrue(journal.getSyncCount() <= journal.getRecordCount());
+            }
+
+            try (MoveJournal journal = new MoveJournal(dir)) {
+                assertEquals(GAMES, journal.getRecoveredGames().size());
+                for (ChessBoard board : journal.getRecoveredGames().values()) {
+                    assertEquals(new ChessBoard(), board);
+                }
+            }
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    /**
+     * Logs a move, then applies it to the expected board.
+     *
+     * @param journal  the journal to log to
+     * @param id       the id of the game
+     * @param expected the expected board of the game
+     * @param fromRow  the row of the start square
+     * @param fromCol  the column of the start square
+     * @param toRow    the row of the end square
+     * @param toCol    the column of the end square
+     * @throws IOException if the move cannot be logged
+     */
+    private static void logMove(MoveJournal journal, long id, ChessBoard expected,
+        int fromRow, int fromCol, int toRow, int toCol) throws IOException {
+        Coordinate from = Coordinate.of(fromRow, fromCol);
+        Coordinate to = Coordinate.of(toRow, toCol);
+        journal.logMove(id, from.getSquare(), to.getSquare());
+        assertTrue(expected.move(from, to));
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     *
+     * @param dir the directory to delete
+     * @throws IOException if it cannot be deleted
+     */
+    private static void deleteDir(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            List<Path> paths = new ArrayList<>();
+            files.sorted(Comparator.reverseOrder()).forEach(paths::add);
+            for (Path file : paths) {
+                Files.delete(file);
+            }
+        }
+    }
+}
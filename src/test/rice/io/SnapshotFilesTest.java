@@ -0,0 +1,117 @@
+package test.rice.io;
+
+import main.rice.ChessBoard;
+import main.rice.MoveBuffer;
+import main.rice.io.SnapshotFiles;
+import main.rice.pieces.Color;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the SnapshotFiles class.
+ */
+public class SnapshotFilesTest {
+
+    /**
+     * The number of positions written: more than two buffers' worth (2048 positions
+     * each), ending partway through the last buffer.
+     */
+    private static final int POSITIONS = 5000;
+
+    /**
+     * Tests that positions written to a file are read back identically and in order,
+     * across several staging buffers.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        Path file = Files.createTempFile("snapshots", ".bin");
+        try {
+            List<ChessBoard> boards = randomGame(new Random(11), POSITIONS);
+            SnapshotFiles.write(file, boards);
+            assertEquals((long) POSITIONS * ChessBoard.SNAPSHOT_BYTES, Files.size(file));
+            assertEquals(boards, SnapshotFiles.read(file));
+
+            // Rewriting replaces the contents
+            SnapshotFiles.write(file, boards.subList(0, 3));
+            assertEquals(boards.subList(0, 3), SnapshotFiles.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that writes through a channel append at its position, so a file can be built
+     * up in batches.
+     */
+    @Test
+    void testAppend() throws IOException {
+        Path file = Files.createTempFile("snapshots", ".bin");
+        try {
+            List<ChessBoard> boards = randomGame(new Random(12), 3000);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                SnapshotFiles.write(channel, boards.subList(0, 2500));
+                SnapshotFiles.write(channel, boards.subList(2500, boards.size()));
+            }
+            assertEquals(boards, SnapshotFiles.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a file whose length is not a whole number of snapshots is rejected.
+     */
+    @Test
+    void testTruncatedFile() throws IOException {
+        Path file = Files.createTempFile("snapshots", ".bin");
+        try {
+            SnapshotFiles.write(file, randomGame(new Random(13), POSITIONS));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 5);
+            }
+            assertThrows(IOException.class, () -> SnapshotFiles.read(file));
+
+            Files.write(file, new byte[0]);
+            assertTrue(SnapshotFiles.read(file).isEmpty());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Plays random moves from the initial position, restarting whenever a side has no
+     * move left.
+     *
+     * @param random the source of randomness
+     * @param count  the number of positions to return
+     * @return the position after each move, each on its own board
+     */
+    private static List<ChessBoard> randomGame(Random random, int count) {
+        List<ChessBoard> boards = new ArrayList<>(count);
+        ChessBoard board = new ChessBoard();
+        MoveBuffer moves = new MoveBuffer();
+        Color toMove = Color.WHITE;
+        while (boards.size() < count) {
+            int numMoves = board.generateMoves(toMove, moves);
+            if (numMoves == 0) {
+                board = new ChessBoard();
+                toMove = Color.WHITE;
+                continue;
+            }
+            board.makeMove(moves.get(random.nextInt(numMoves)));
+            boards.add(board.copy());
+            toMove = toMove.opposite();
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,191 @@
+package test.rice.metrics;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.metrics.LatencyHistogram;
+import main.rice.metrics.MoveMetrics;
+import main.rice.metrics.MoveRejection;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the MoveMetrics and LatencyHistogram classes.
+ */
+public class MoveMetricsTest {
+
+    /**
+     * Tests bucketing, percentiles and the mean of a LatencyHistogram.
+     */
+    @Test
+    void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(0);
+        histogram.record(5000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(98, histogram.getBuckets()[7]);
+        assertEquals(1, histogram.getBuckets()[0]);
+        assertEquals(127, histogram.getPercentile(0.5));
+        assertEquals(127, histogram.getPercentile(0.99));
+        assertEquals(8191, histogram.getPercentile(1));
+        assertEquals(148, histogram.getMean(), 1e-9);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    /**
+     * Tests that the counters can be read over JMX.
+     */
+    @Test
+    void testMBeanExported() throws Exception {
+        assertTrue(MoveMetrics.register());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MoveMetrics.OBJECT_NAME);
+        assertEquals(MoveMetrics.ENABLED, server.getAttribute(name, "Enabled"));
+
+        long before = (Long) server.getAttribute(name, "RejectedBlockedPath");
+        MoveMetrics.recordMove(MoveRejection.BLOCKED_PATH, 10);
+        assertEquals(before + 1, server.getAttribute(name, "RejectedBlockedPath"));
+        assertTrue(((long[]) server.getAttribute(name, "MoveLatencyHistogram"))[4] > 0);
+    }
+
+    /**
+     * Tests that recorded moves and validations show up in the counters, histograms and
+     * MBean attributes, and that a reset over JMX clears them. Records directly, so it
+     * runs whether or not instrumentation is enabled.
+     */
+    @Test
+    void testRecording() throws Exception {
+        assertTrue(MoveMetrics.register());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MoveMetrics.OBJECT_NAME);
+        MoveMetrics metrics = MoveMetrics.getInstance();
+        metrics.reset();
+
+        // One timed rejection per reason, one untimed one, and one accepted move
+        for (MoveRejection rejection : MoveRejection.values()) {
+            MoveMetrics.recordMove(rejection, 100);
+        }
+        MoveMetrics.recordRejected(MoveRejection.EMPTY_START);
+        MoveMetrics.recordMove(null, 5000);
+        MoveMetrics.recordValidateMove(20);
+        MoveMetrics.recordValidateMove(20);
+
+        // Check the counters
+        for (MoveRejection rejection : MoveRejection.values()) {
+            long expected = rejection == MoveRejection.EMPTY_START ? 2 : 1;
+            assertEquals(expected, metrics.getRejected(rejection), rejection.name());
+        }
+        assertEquals(MoveRejection.COUNT + 1, metrics.getRejectedMoves());
+        assertEquals(1, metrics.getAcceptedMoves());
+
+        // Check the histograms: 100 ns lands in bucket 7, 5000 ns in 13 and 20 ns in 5
+        LatencyHistogram moves = metrics.getMoveLatency();
+        assertEquals(MoveRejection.COUNT + 1, moves.getCount());
+        assertEquals(MoveRejection.COUNT, moves.getBuckets()[7]);
+        assertEquals(1, moves.getBuckets()[13]);
+        assertEquals(127, metrics.getMoveLatencyP50());
+        assertEquals(8191, metrics.getMoveLatencyP99());
+        assertEquals(2, metrics.getValidateMoveLatency().getCount());
+        assertEquals(2, metrics.getValidateMoveLatencyHistogram()[5]);
+        assertEquals(20, metrics.getValidateMoveLatencyMean(), 1e-9);
+
+        // Check the same numbers over JMX
+        assertEquals(1L, server.getAttribute(name, "AcceptedMoves"));
+        assertEquals((long) MoveRejection.COUNT + 1,
+            server.getAttribute(name, "RejectedMoves"));
+        assertEquals(2L, server.getAttribute(name, "RejectedEmptyStart"));
+        assertEquals(1L, server.getAttribute(name, "RejectedFriendlyCapture"));
+        assertEquals(127L, server.getAttribute(name, "MoveLatencyP50"));
+        assertArrayEquals(moves.getBuckets(),
+            (long[]) server.getAttribute(name, "MoveLatencyHistogram"));
+        assertEquals(31L, server.getAttribute(name, "ValidateMoveLatencyP99"));
+
+        server.invoke(name, "reset", null, null);
+        assertEquals(0L, server.getAttribute(name, "AcceptedMoves"));
+        assertEquals(0L, server.getAttribute(name, "RejectedMoves"));
+        assertEquals(0, moves.getCount());
+        assertEquals(0, metrics.getValidateMoveLatency().getCount());
+    }
+
+    /**
+     * Tests that ChessBoard reports each rejection reason. Instrumentation is fixed when
+     * MoveMetrics is initialized, so unless this JVM was started with
+     * -Dmain.rice.metrics=true, the check runs in a new JVM started with it.
+     */
+    @Test
+    void testMoveInstrumented() throws IOException, InterruptedException {
+        if (MoveMetrics.ENABLED) {
+            checkMoveInstrumented();
+            return;
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java")
+            .toString();
+        Process process = new ProcessBuilder(java,
+            "-D" + MoveMetrics.PROPERTY + "=true",
+            "-cp", System.getProperty("java.class.path"),
+            MoveMetricsTest.class.getName())
+            .redirectErrorStream(true)
+            .start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS), "instrumented JVM hung");
+        assertEquals(0, process.exitValue(), output);
+    }
+
+    /**
+     * Runs checkMoveInstrumented() in a JVM started by testMoveInstrumented(). An
+     * assertion failure ends the JVM with a stack trace and a non-zero exit code.
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        assertTrue(MoveMetrics.ENABLED);
+        checkMoveInstrumented();
+    }
+
+    /**
+     * Makes one move rejected for each reason (two off the board: one by Coordinate, one
+     * by square), one accepted move and one validateMove() call, and checks that each
+     * was recorded. Needs instrumentation to be enabled.
+     */
+    private static void checkMoveInstrumented() {
+        MoveMetrics metrics = MoveMetrics.getInstance();
+        metrics.reset();
+
+        ChessBoard board = new ChessBoard();
+        assertFalse(board.move(Coordinate.of(7, 0), new Coordinate(8, 0)));
+        assertFalse(board.move(64, 0));
+        assertFalse(board.move(Coordinate.of(4, 4), Coordinate.of(3, 4)));
+        assertFalse(board.move(Coordinate.of(7, 1), Coordinate.of(6, 1)));
+        assertFalse(board.move(Coordinate.of(7, 7), Coordinate.of(7, 4)));
+        assertFalse(board.move(Coordinate.of(7, 0), Coordinate.of(7, 1)));
+        assertTrue(board.move(Coordinate.of(7, 1), Coordinate.of(5, 2)));
+        board.getPiece(Coordinate.of(5, 2)).validateMove(Coordinate.of(3, 3));
+
+        for (MoveRejection rejection : MoveRejection.values()) {
+            int expected = rejection == MoveRejection.OUT_OF_BOUNDS ? 2 : 1;
+            assertEquals(expected, metrics.getRejected(rejection), rejection.name());
+        }
+        assertEquals(1, metrics.getAcceptedMoves());
+        assertEquals(6, metrics.getMoveLatency().getCount());
+        assertEquals(1, metrics.getValidateMoveLatency().getCount());
+    }
+}
@@ -0,0 +1,134 @@
+package test.rice.session;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.session.GameSessionManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the GameSessionManager class.
+ */
+public class GameSessionManagerTest {
+
+    /**
+     * The number of games to host concurrently.
+     */
+    private static final int GAMES = 64;
+
+    /**
+     * The number of moves to make in each game.
+     */
+    private static final int MOVES = 200;
+
+    /**
+     * Tests that asynchronous moves for many games are applied in submission order per
+     * game: each game shuffles a Knight out and back, which only succeeds if every move
+     * lands after the previous one.
+     */
+    @Test
+    void testSubmitMovePreservesOrder() {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (GameSessionManager manager = new GameSessionManager(pool)) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < GAMES; i++) {
+                ids.add(manager.newGame());
+            }
+
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < MOVES; i++) {
+                Coordinate from = Coordinate.of(i % 2 == 0 ? 7 : 5, i % 2 == 0 ? 1 : 2);
+                Coordinate to = Coordinate.of(i % 2 == 0 ? 5 : 7, i % 2 == 0 ? 2 : 1);
+                for (long id : ids) {
+                    futures.add(manager.submitMove(id, from, to));
+                }
+            }
+            for (CompletableFuture<Boolean> future : futures) {
+                assertTrue(future.join());
+            }
+
+            String initial = new ChessBoard().toString();
+            for (long id : ids) {
+                assertEquals(initial, manager.getSession(id).read(ChessBoard::toString));
+                assertEquals(MOVES, manager.getSession(id).getAcceptedMoves());
+            }
+            assertEquals((long) GAMES * MOVES, manager.getAcceptedMoves());
+            assertEquals(0, manager.getRejectedMoves());
+            assertTrue(manager.getMovesPerSecond() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that direct moves from many threads are counted per game and globally, and
+     * that unknown or removed games are reported.
+     */
+    @Test
+    void testMoveCountersAndLifecycle() throws InterruptedException {
+        try (GameSessionManager manager = new GameSessionManager()) {
+            long id = manager.newGame();
+            Coordinate out = Coordinate.of(7, 1);
+            Coordinate in = Coordinate.of(5, 2);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < MOVES; i++) {
+                        manager.move(id, out, in);
+                        manager.move(id, in, out);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            long total = 4L * 2 * MOVES;
+            assertEquals(total, manager.getAcceptedMoves() + manager.getRejectedMoves());
+            assertEquals(manager.getAcceptedMoves(),
+                manager.getSession(id).getAcceptedMoves());
+            assertFalse(manager.move(id, Coordinate.of(4, 4), Coordinate.of(3, 4)));
+
+            assertEquals(1, manager.getGameCount());
+            assertNotNull(manager.removeGame(id));
+            assertEquals(0, manager.getGameCount());
+            assertThrows(IllegalArgumentException.class,
+                () -> manager.move(id, out, in));
+        }
+    }
+
+    /**
+     * Tests that moves submitted after close() fail instead of hanging, and keep failing
+     * rather than leaving the game's queue stuck.
+     */
+    @Test
+    void testSubmitAfterClose() {
+        GameSessionManager manager = new GameSessionManager();
+        long id = manager.newGame();
+        assertTrue(manager.submitMove(id, Coordinate.of(7, 1), Coordinate.of(5, 2))
+            .join());
+        manager.close();
+
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<Boolean> future = manager.submitMove(id,
+                Coordinate.of(5, 2), Coordinate.of(7, 1));
+            assertTrue(future.isCompletedExceptionally());
+            CompletionException e = assertThrows(CompletionException.class,
+                future::join);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertTrue(manager.move(id, Coordinate.of(5, 2), Coordinate.of(7, 1)));
+    }
+}
@@ -0,0 +1,143 @@
+package test.rice.storage;
+
+import main.rice.ChessBoard;
+import main.rice.Coordinate;
+import main.rice.MoveBuffer;
+import main.rice.pieces.AChessPiece;
+import main.rice.pieces.Color;
+import main.rice.pieces.PieceCode;
+import main.rice.pieces.PieceType;
+import main.rice.storage.PositionStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the PositionStore class.
+ */
+public class PositionStoreTest {
+
+    /**
+     * Tests that every position of a pseudo-random game reads back the same through a
+     * cursor, across the store growing from a capacity of one.
+     */
+    @Test
+    void testRoundTrip() {
+        List<ChessBoard> boards = playGame(new Random(24), 120);
+        PositionStore store = new PositionStore(1);
+        for (int i = 0; i < boards.size(); i++) {
+            assertEquals(i, store.add(boards.get(i)));
+        }
+        assertEquals(boards.size(), store.size());
+
+        PositionStore.Cursor cursor = store.cursor();
+        for (int i = 0; i < boards.size(); i++) {
+            ChessBoard board = boards.get(i);
+            assertSame(cursor, cursor.moveTo(i));
+            assertEquals(i, cursor.getIndex());
+            for (int square = 0; square < 64; square++) {
+                assertEquals(board.getPieceCode(square), cursor.getPieceCode(square));
+            }
+            for (Color color : Color.values()) {
+                assertEquals(board.getMaterial(color), cursor.getMaterial(color));
+            }
+            assertEquals(board.getZobristKey(), cursor.getZobristKey());
+            assertEquals(board.getZobristKey(), store.getZobristKey(i));
+            assertEquals(board, cursor.toChessBoard());
+            assertEquals(board.toString(), cursor.toString());
+
+            // Pieces are only created on request, detached from the store
+            AChessPiece piece = cursor.getPiece(new Coordinate(7, 7));
+            assertEquals(board.getPieceCode(63), PieceCode.of(piece));
+        }
+        assertNull(cursor.getPiece(new Coordinate(8, 0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.moveTo(boards.size()));
+    }
+
+    /**
+     * Tests that scans and column sums agree with the same checks made on the boards.
+     */
+    @Test
+    void testScan() {
+        List<ChessBoard> boards = playGame(new Random(9), 200);
+        PositionStore store = new PositionStore(64);
+        for (ChessBoard board : boards) {
+            store.add(board);
+        }
+
+        // Positions where White is not behind on material and has a Rook on a corner
+        int rook = PieceCode.of(Color.WHITE, PieceType.ROOK);
+        long corners = (1L << 56) | (1L << 63);
+        List<Integer> expected = new ArrayList<>();
+        long rooks = 0;
+        for (int i = 0; i < boards.size(); i++) {
+            ChessBoard board = boards.get(i);
+            rooks += Long.bitCount(store.getPieces(i, rook));
+            if (board.getMaterial(Color.WHITE) >= board.getMaterial(Color.BLACK)
+                && (PieceCode.of(board.getPiece(56)) == rook
+                || PieceCode.of(board.getPiece(63)) == rook)) {
+                expected.add(i);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertTrue(expected.size() < boards.size());
+
+        PositionStore.IFilter filter = position ->
+            (position.getPieces(rook) & corners) != 0
+            && position.getMaterial(Color.WHITE) >= position.getMaterial(Color.BLACK);
+        List<Integer> found = new ArrayList<>();
+        store.scan(filter, found::add);
+        assertEquals(expected, found);
+        assertEquals(expected.size(), store.count(filter));
+        assertEquals(rooks, store.countPieces(rook));
+
+        // Piece counts are summed over all six columns
+        PositionStore.Cursor cursor = store.cursor();
+        for (int i = 0; i < boards.size(); i++) {
+            int pieces = 0;
+            for (int square = 0; square < 64; square++) {
+                pieces += boards.get(i).getPiece(square) == null ? 0 : 1;
+            }
+            assertEquals(pieces, cursor.moveTo(i).getPieceCount());
+        }
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, store.count(position -> true));
+    }
+
+    /**
+     * Tests that invalid capacities are rejected.
+     */
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new PositionStore(0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PositionStore(PositionStore.MAX_CAPACITY + 1));
+    }
+
+    /**
+     * Plays pseudo-random moves from the initial position.
+     *
+     * @param random the source of randomness
+     * @param moves  the largest number of moves to play
+     * @return a copy of the board after each move, starting with the initial position
+     */
+    private static List<ChessBoard> playGame(Random random, int moves) {
+        ChessBoard board = new ChessBoard();
+        List<ChessBoard> boards = new ArrayList<>();
+        boards.add(board.copy());
+        MoveBuffer buffer = new MoveBuffer();
+        Color toMove = Color.WHITE;
+        for (int i = 0; i < moves && board.generateMoves(toMove, buffer) > 0; i++) {
+            board.makeMove(buffer.get(random.nextInt(buffer.size())));
+            boards.add(board.copy());
+            toMove = toMove.opposite();
+        }
+        return boards;
+    }
+}